@@ -0,0 +1,120 @@
+package com.code.challenge.user_engine.controller;
+
+import com.code.challenge.user_engine.UserEngineApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latencia de {@code /login} en la aplicación completa, con pocos hilos de Tomcat, sin carga y con {@code flooders}
+ * clientes mandando sign-ups sin parar. {@code SampleTime} reporta los percentiles: el p99 con avalancha tiene que
+ * quedar cerca del de sin carga, porque BCrypt no corre en los hilos del servidor y lo que no entra en la cola del
+ * hash sale con 503.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SignUpFloodBenchmark {
+
+    @Param({"0", "32"})
+    public int flooders;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger emails = new AtomicInteger();
+    private final AtomicBoolean flooding = new AtomicBoolean();
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private ExecutorService flood;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(UserEngineApplication.class).properties(
+                "server.port=0",
+                "server.tomcat.threads.max=8",
+                "spring.datasource.url=jdbc:h2:mem:flood;DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "password-hashing.threads=2",
+                "password-hashing.queue-capacity=8"
+        ).run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/users";
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        token = objectMapper.readTree(signUp(nextEmail()).body()).get("token").asText();
+
+        flooding.set(true);
+        flood = Executors.newFixedThreadPool(Math.max(1, flooders));
+        for (int i = 0; i < flooders; i++) {
+            flood.submit(() -> {
+                while (flooding.get()) {
+                    if (signUp(nextEmail()).statusCode() == 503) {
+                        TimeUnit.MILLISECONDS.sleep(50); // un cliente real respeta Retry-After
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        flooding.set(false);
+        flood.shutdown();
+        flood.awaitTermination(30, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    // Cada login revoca el token usado y devuelve uno nuevo
+    @Benchmark
+    public int login() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(10))
+                .GET().build(), HttpResponse.BodyHandlers.ofString());
+        token = objectMapper.readTree(response.body()).get("token").asText();
+        return response.statusCode();
+    }
+
+    private HttpResponse<String> signUp(String email) throws IOException, InterruptedException {
+        String body = "{\"name\":\"flood\",\"email\":\"" + email + "\",\"password\":\"passwoR34d\",\"phones\":[]}";
+        return client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/sign-up"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // El usuario del email tiene que ser de exactamente 7 letras
+    private String nextEmail() {
+        int n = emails.getAndIncrement();
+        char[] user = new char[7];
+        for (int i = user.length - 1; i >= 0; i--) {
+            user[i] = (char) ('a' + n % 26);
+            n /= 26;
+        }
+        return new String(user) + "@example.com";
+    }
+}
@@ -0,0 +1,143 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de un usuario por email en H2 con {@code users} sintéticos: por el índice único del {@code VARCHAR} como
+ * hacía {@code findByEmail}, contra el índice de {@code email_hash} confirmando con {@code canonical_email} como
+ * hace ahora. La base va a disco para que diez millones de filas no dependan del heap; el tamaño de cada índice
+ * se estima por lo que crece el archivo al crearlo y se imprime en el setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmailLookupBenchmark {
+
+    @Param({"10000000"})
+    public int users;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement byEmail;
+    private PreparedStatement byEmailHash;
+    private String[] emails;
+    private long[] hashes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("email-lookup");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("users") + ";CACHE_SIZE=262144", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id bigint primary key, email varchar(255) not null, "
+                    + "canonical_email varchar(255), email_hash bigint)");
+        }
+        connection.setAutoCommit(false);
+        Random random = new Random(1);
+        emails = new String[1024];
+        hashes = new long[emails.length];
+        int sample = users / emails.length;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into users (id, email, canonical_email, email_hash) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < users; i++) {
+                // Largo parecido al de emails reales: unos 30 caracteres
+                String email = "User." + Integer.toHexString(random.nextInt()) + i + "@Example" + (i % 997) + ".com";
+                String canonical = User.canonicalEmail(email);
+                insert.setLong(1, i);
+                insert.setString(2, email);
+                insert.setString(3, canonical);
+                insert.setLong(4, User.emailHash(canonical));
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if (i % sample == 0 && i / sample < emails.length) {
+                    emails[i / sample] = email;
+                    hashes[i / sample] = User.emailHash(canonical);
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+
+        long emailIndex = indexBytes("create unique index ix_email on users(email)");
+        long hashIndex = indexBytes("create index ix_email_hash on users(email_hash)");
+        System.out.printf("%n%d usuarios: índice de email %d MB (%.1f bytes por fila), índice de email_hash %d MB (%.1f bytes por fila)%n",
+                users, emailIndex >> 20, (double) emailIndex / users, hashIndex >> 20, (double) hashIndex / users);
+
+        byEmail = connection.prepareStatement("select id from users where email = ?");
+        byEmailHash = connection.prepareStatement("select id, canonical_email from users where email_hash = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long email() throws SQLException {
+        byEmail.setString(1, emails[next++ & 1023]);
+        try (ResultSet rows = byEmail.executeQuery()) {
+            return rows.next() ? rows.getLong(1) : -1;
+        }
+    }
+
+    @Benchmark
+    public long emailHash() throws SQLException {
+        int i = next++ & 1023;
+        String canonical = User.canonicalEmail(emails[i]);
+        byEmailHash.setLong(1, User.emailHash(canonical));
+        try (ResultSet rows = byEmailHash.executeQuery()) {
+            while (rows.next()) {
+                if (canonical.equals(rows.getString(2))) {
+                    return rows.getLong(1);
+                }
+            }
+            return -1;
+        }
+    }
+
+    // El store de H2 solo agrega: lo que crece el archivo al crear el índice es, aproximadamente, lo que ocupa
+    private long indexBytes(String createIndex) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("checkpoint sync");
+            long before = storeSize();
+            statement.execute(createIndex);
+            statement.execute("checkpoint sync");
+            return storeSize() - before;
+        }
+    }
+
+    private long storeSize() {
+        return directory.resolve("users.mv.db").toFile().length();
+    }
+}
@@ -0,0 +1,105 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.security.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Inserts en una tabla con clave {@code BINARY(16)} como la de {@code users}, ya cargada con {@code rows} filas:
+ * UUID versión 4 (cada insert cae en cualquier parte del índice) contra versión 7 de
+ * {@link RandomSource#timeOrderedUuid()} (todos caen al final). Cada invocación confirma un lote de
+ * {@value #BATCH} inserts y el tiempo se reporta por insert. Lo que ocupa la tabla con su índice después de la
+ * carga se estima por el archivo de H2 y se imprime en el setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrimaryKeyOrderBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"random", "time-ordered"})
+    public String ids;
+
+    private final RandomSource randomSource = new RandomSource();
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("primary-key");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("keys") + ";CACHE_SIZE=262144", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            // Sin id numérico: H2 guarda la fila por un rowid interno y la clave es un índice aparte, como en users
+            statement.execute("create table users (id binary(16) primary key, email_hash bigint, created timestamp)");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("insert into users (id, email_hash, created) values (?, ?, current_timestamp)");
+        long before = storeSize();
+        for (int i = 0; i < rows; i += BATCH) {
+            insertBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("checkpoint sync");
+        }
+        long bytes = storeSize() - before;
+        System.out.printf("%n%d filas con ids %s: %d MB en disco (%.1f bytes por fila)%n",
+                rows, ids, bytes >> 20, (double) bytes / rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insert() throws SQLException {
+        insertBatch();
+    }
+
+    private void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH; i++) {
+            UUID id = "random".equals(ids) ? randomSource.randomUuid() : randomSource.timeOrderedUuid();
+            insert.setBytes(1, ByteBuffer.allocate(16)
+                    .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+            insert.setLong(2, id.getLeastSignificantBits());
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    private long storeSize() {
+        return directory.resolve("keys.mv.db").toFile().length();
+    }
+}
@@ -0,0 +1,128 @@
+package com.code.challenge.user_engine.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contención sobre la fuente aleatoria a 1, 8 y 32 hilos: {@link UUID#randomUUID()} y un {@link SecureRandom}
+ * compartido (lo que usaban los ids, el jti y los salts) contra {@link RandomSource}. Los 16 bytes son lo que
+ * pide un UUID o un salt de BCrypt. {@code timeOrderedUuid} es el generador de claves primarias.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RandomSourceBenchmark {
+
+    private final SecureRandom shared = new SecureRandom();
+    private final RandomSource randomSource = new RandomSource();
+
+    @State(Scope.Thread)
+    public static class Salt {
+        final byte[] bytes = new byte[16];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID jdkUuid_1() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID jdkUuid_8() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public UUID jdkUuid_32() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID stripedUuid_1() {
+        return randomSource.randomUuid();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID stripedUuid_8() {
+        return randomSource.randomUuid();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public UUID stripedUuid_32() {
+        return randomSource.randomUuid();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public UUID timeOrderedUuid_1() {
+        return randomSource.timeOrderedUuid();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public UUID timeOrderedUuid_8() {
+        return randomSource.timeOrderedUuid();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public UUID timeOrderedUuid_32() {
+        return randomSource.timeOrderedUuid();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] sharedSalt_1(Salt salt) {
+        shared.nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] sharedSalt_8(Salt salt) {
+        shared.nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+
+    @Benchmark
+    @Threads(32)
+    public byte[] sharedSalt_32(Salt salt) {
+        shared.nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] stripedSalt_1(Salt salt) {
+        randomSource.asSecureRandom().nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public byte[] stripedSalt_8(Salt salt) {
+        randomSource.asSecureRandom().nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+
+    @Benchmark
+    @Threads(32)
+    public byte[] stripedSalt_32(Salt salt) {
+        randomSource.asSecureRandom().nextBytes(salt.bytes);
+        return salt.bytes;
+    }
+}
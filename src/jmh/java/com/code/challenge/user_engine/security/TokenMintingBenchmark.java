@@ -0,0 +1,58 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión con {@code Jwts.builder()} (camino anterior) contra {@link HmacTokenMinter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenMintingBenchmark {
+
+    private SecretKey key;
+    private HmacTokenMinter minter;
+    private UUID userId;
+    private UUID tokenId;
+
+    @Setup
+    public void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        minter = new HmacTokenMinter(key);
+        userId = UUID.randomUUID();
+        tokenId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public String jjwtBuilder() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(userId.toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 3_600_000))
+                .setId(tokenId.toString())
+                .claim("epoch", 0)
+                .signWith(key)
+                .compact();
+    }
+
+    @Benchmark
+    public String minter() {
+        long now = System.currentTimeMillis();
+        return minter.mint(userId, now, now + 3_600_000, tokenId, 0);
+    }
+}
@@ -0,0 +1,65 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de autenticar un request en cada modo de {@code jwt.token-mode}: verificar el HMAC del JWT
+ * contra resolver el token opaco en la tabla fuera del heap, con 100k sesiones vivas. Al terminar
+ * imprime el tamaño del header {@code Authorization} de cada modo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenModeBenchmark {
+
+    private static final int SESSIONS = 100_000;
+
+    private SigningKeyRing signingKeyRing;
+    private OpaqueTokenStore opaqueTokenStore;
+    private String jwt;
+    private String[] opaqueTokens;
+    private long now;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        now = System.currentTimeMillis();
+        signingKeyRing = new SigningKeyRing("bench", Map.of("bench", Keys.secretKeyFor(SignatureAlgorithm.HS512)));
+        jwt = signingKeyRing.mint(UUID.randomUUID(), now, now + 3_600_000, UUID.randomUUID(), 0);
+        opaqueTokenStore = new OpaqueTokenStore(SESSIONS * 2, new RandomSource());
+        opaqueTokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            opaqueTokens[i] = opaqueTokenStore.issue(UUID.randomUUID(), now + 3_600_000, 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void reportHeaderBytes() {
+        System.out.printf("%nAuthorization header: jwt=%d bytes, opaque=%d bytes%n",
+                ("Bearer " + jwt).length(), ("Bearer " + opaqueTokens[0]).length());
+    }
+
+    @Benchmark
+    public VerifiedToken jwt() {
+        return signingKeyRing.verify(jwt, now);
+    }
+
+    @Benchmark
+    public VerifiedToken opaque() {
+        return opaqueTokenStore.resolve(opaqueTokens[next++ % SESSIONS], now);
+    }
+}
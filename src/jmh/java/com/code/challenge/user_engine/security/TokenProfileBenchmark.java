@@ -0,0 +1,52 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de un token de cada {@code jwt.token-profile} con el key ring (camino de cada request).
+ * Al terminar imprime el tamaño del header {@code Authorization} del perfil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenProfileBenchmark {
+
+    @Param({"LEGACY", "COMPACT", "COMPACT_HS256"})
+    private TokenProfile profile;
+
+    private SigningKeyRing signingKeyRing;
+    private String token;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        now = System.currentTimeMillis();
+        signingKeyRing = new SigningKeyRing("bench", Map.of("bench", Keys.secretKeyFor(SignatureAlgorithm.HS512)), profile);
+        token = signingKeyRing.mint(UUID.randomUUID(), now, now + 3_600_000, UUID.randomUUID(), 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportHeaderBytes() {
+        System.out.printf("%nAuthorization header (%s): %d bytes%n", profile, ("Bearer " + token).length());
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return signingKeyRing.verify(token, now);
+    }
+}
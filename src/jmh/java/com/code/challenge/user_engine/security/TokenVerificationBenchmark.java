@@ -0,0 +1,58 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación con el parser de jjwt (camino anterior) contra {@link HmacTokenVerifier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenVerificationBenchmark {
+
+    private SecretKey key;
+    private HmacTokenVerifier verifier;
+    private String token;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        verifier = new HmacTokenVerifier(key);
+        now = System.currentTimeMillis();
+        token = Jwts.builder()
+                .setSubject(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 3_600_000))
+                .setId(UUID.randomUUID().toString())
+                .signWith(key)
+                .compact();
+    }
+
+    @Benchmark
+    public VerifiedToken jjwtParser() {
+        Claims claims = Jwts.parser().setSigningKey(key).parseClaimsJws(token).getBody();
+        return new VerifiedToken(token, UUID.fromString(claims.getSubject()), UUID.fromString(claims.getId()),
+                claims.getExpiration().getTime());
+    }
+
+    @Benchmark
+    public VerifiedToken fastVerifier() {
+        return verifier.verify(token, now);
+    }
+}
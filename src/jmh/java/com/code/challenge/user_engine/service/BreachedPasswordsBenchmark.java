@@ -0,0 +1,89 @@
+package com.code.challenge.user_engine.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta de {@link BreachedPasswords} sobre un archivo generado de registros ordenados: SHA-1 de la clave,
+ * índice de páginas y búsqueda binaria dentro de la página, con la clave presente y ausente.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BreachedPasswordsBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int records;
+
+    @Param({"4096"})
+    public int recordsPerPage;
+
+    private Path file;
+    private BreachedPasswords breachedPasswords;
+    private byte[][] present;
+    private String[] absent;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Registros equiespaciados con ruido: ordenados sin tener que ordenar millones de arreglos
+        file = Files.createTempFile("breached", ".sha1");
+        Random random = new Random(1);
+        BigInteger step = BigInteger.ONE.shiftLeft(160).divide(BigInteger.valueOf(records));
+        present = new byte[1024][];
+        int sample = records / present.length;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            byte[] record = new byte[BreachedPasswords.RECORD_BYTES];
+            for (int i = 0; i < records; i++) {
+                BigInteger value = step.multiply(BigInteger.valueOf(i)).add(BigInteger.valueOf(random.nextInt(1 << 30)));
+                byte[] raw = value.toByteArray();
+                Arrays.fill(record, (byte) 0);
+                int length = Math.min(raw.length, record.length);
+                System.arraycopy(raw, raw.length - length, record, record.length - length, length);
+                out.write(record);
+                if (i % sample == 0 && i / sample < present.length) {
+                    present[i / sample] = record.clone();
+                }
+            }
+        }
+        breachedPasswords = new BreachedPasswords(file, recordsPerPage);
+        absent = new String[1024];
+        for (int i = 0; i < absent.length; i++) {
+            absent[i] = "clave" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        breachedPasswords = null;
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public boolean presentDigest() {
+        return breachedPasswords.contains(present[next++ & 1023]);
+    }
+
+    @Benchmark
+    public boolean absentPassword() {
+        return breachedPasswords.isBreached(absent[next++ & 1023]);
+    }
+}
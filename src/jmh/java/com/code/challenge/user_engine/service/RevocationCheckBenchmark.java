@@ -0,0 +1,68 @@
+package com.code.challenge.user_engine.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo del chequeo por request: blacklist con un token revocado por sesión contra un epoch por usuario.
+ * La huella en memoria de ambos se compara en {@code TokenEpochsTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RevocationCheckBenchmark {
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"5"})
+    public int tokensPerUser;
+
+    private TokenBlacklist tokenBlacklist;
+    private TokenEpochs tokenEpochs;
+    private UUID[] userIds;
+    private UUID[] tokenIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long expiresAt = System.currentTimeMillis() + 3_600_000;
+        Random random = new Random(1);
+        tokenBlacklist = new TokenBlacklist();
+        tokenEpochs = new TokenEpochs(userId -> Optional.empty());
+        userIds = new UUID[users];
+        tokenIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = new UUID(random.nextLong(), random.nextLong());
+            tokenEpochs.record(userIds[i], 1);
+            for (int t = 0; t < tokensPerUser; t++) {
+                tokenBlacklist.blacklistToken(new UUID(random.nextLong(), random.nextLong()), expiresAt);
+            }
+            // Token vigente: no está en la blacklist, el caso normal de cada request
+            tokenIds[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+    }
+
+    @Benchmark
+    public boolean blacklist() {
+        return tokenBlacklist.isBlacklisted(tokenIds[next++ % users]);
+    }
+
+    @Benchmark
+    public boolean epoch() {
+        int i = next++ % users;
+        return tokenEpochs.isCurrent(userIds[i], 1);
+    }
+}
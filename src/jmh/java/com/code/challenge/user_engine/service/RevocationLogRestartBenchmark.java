@@ -0,0 +1,67 @@
+package com.code.challenge.user_engine.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Arranque de {@link TokenBlacklist} con un {@link RevocationLog} de {@code revocations} registros vigentes:
+ * abrir el archivo mapeado y reproducirlo sobre el {@link RevocationSet}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RevocationLogRestartBenchmark {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Param({"1000000"})
+    public int revocations;
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+    private Path directory;
+    private Path path;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("revocation-log");
+        path = directory.resolve("revocations.log");
+        Random random = new Random(7);
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < revocations; i++) {
+                log.append(random.nextLong(), random.nextLong(), NOW + 1 + random.nextInt(3_600_000));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int restart() {
+        TokenBlacklist restarted = new TokenBlacklist(clock, RevocationLog.open(path));
+        restarted.close();
+        return restarted.size();
+    }
+}
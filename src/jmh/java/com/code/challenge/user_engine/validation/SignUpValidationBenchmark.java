@@ -0,0 +1,71 @@
+package com.code.challenge.user_engine.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Los {@code @Pattern} anteriores de {@code SignUpRequest} contra los validadores escritos a mano. Los casos
+ * adversariales son entradas largas que el body puede traer igual: {@code @Size} no corta la evaluación del
+ * regex, y los lookaheads anidados de la clave retroceden por cada dígito candidato.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignUpValidationBenchmark {
+    private static final Pattern EMAIL = Pattern.compile("^[A-Za-z]{7}@[A-Za-z0-9.-]{3,30}\\.[A-Za-z]{2,10}$");
+    private static final Pattern PASSWORD =
+            Pattern.compile("^(?=[^A-Z]*[A-Z][^A-Z]*$)(?=(?:[^0-9]*[0-9]){2}[^0-9]*$)[a-zA-Z\\d]{8,12}$");
+
+    @Param({"valid", "invalid", "adversarial"})
+    public String input;
+
+    private String email;
+    private String password;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (input) {
+            case "valid":
+                email = "abcdefg@domain.com";
+                password = "passW12rd";
+                break;
+            case "invalid":
+                email = "abcdefg@domain.c0m";
+                password = "passW1234";
+                break;
+            default:
+                email = "abcdefg@" + "a-".repeat(2_000) + "com";
+                password = "A1" + "a".repeat(4_000) + "1";
+        }
+    }
+
+    @Benchmark
+    public boolean regexEmail() {
+        return EMAIL.matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean scanEmail() {
+        return SignUpEmailValidator.isValid(email);
+    }
+
+    @Benchmark
+    public boolean regexPassword() {
+        return PASSWORD.matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean scanPassword() {
+        return SignUpPasswordValidator.isValid(password);
+    }
+}
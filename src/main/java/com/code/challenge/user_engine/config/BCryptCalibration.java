@@ -0,0 +1,63 @@
+package com.code.challenge.user_engine.config;
+
+import lombok.Getter;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Costo de BCrypt elegido al arrancar: el mayor cuyo hash tarda a lo sumo {@code targetMillis} en esta
+ * máquina, nunca por debajo de {@code minStrength}. Cada punto de costo duplica el tiempo, así que se mide
+ * el piso y se extrapola; el costo elegido se mide una vez más para reportarlo. El costo queda escrito en
+ * cada hash ({@code $2a$NN$...}), lo que permite detectar los hashes viejos al verificarlos.
+ */
+@Getter
+public final class BCryptCalibration {
+    static final int MAX_STRENGTH = 31;
+    private static final String SAMPLE_PASSWORD = "calibration";
+
+    private final int strength;
+    private final long targetMillis;
+    private final double hashMillis;
+
+    BCryptCalibration(int strength, long targetMillis, double hashMillis) {
+        this.strength = strength;
+        this.targetMillis = targetMillis;
+        this.hashMillis = hashMillis;
+    }
+
+    public static BCryptCalibration calibrate(long targetMillis, int minStrength) {
+        if (targetMillis <= 0 || minStrength < 4 || minStrength > MAX_STRENGTH) {
+            throw new IllegalArgumentException("BCrypt target must be positive and min strength between 4 and " + MAX_STRENGTH);
+        }
+        long floorNanos = measure(minStrength, 3);
+        int strength = strengthFor(floorNanos, targetMillis * 1_000_000, minStrength);
+        long hashNanos = strength == minStrength ? floorNanos : measure(strength, 1);
+        return new BCryptCalibration(strength, targetMillis, hashNanos / 1_000_000.0);
+    }
+
+    // Mayor costo cuya extrapolación desde el piso no pasa del objetivo
+    static int strengthFor(long floorNanos, long targetNanos, int minStrength) {
+        int strength = minStrength;
+        double estimate = floorNanos;
+        while (strength < MAX_STRENGTH && estimate * 2 <= targetNanos) {
+            strength++;
+            estimate *= 2;
+        }
+        return strength;
+    }
+
+    // Mediana de varias corridas, después de una de calentamiento
+    private static long measure(int strength, int runs) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[runs / 2];
+    }
+}
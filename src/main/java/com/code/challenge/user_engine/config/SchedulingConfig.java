@@ -0,0 +1,15 @@
+package com.code.challenge.user_engine.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tareas programadas (feed de revocaciones, purgas, backfill de emails, compactación, resiembra). Con
+ * {@code scheduling.enabled=false} no corre ninguna: los tests que cuentan sentencias las llaman a mano.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,7 +1,10 @@
 package com.code.challenge.user_engine.config;
 
 import com.code.challenge.user_engine.security.JwtAuthenticationFilter;
+import com.code.challenge.user_engine.security.RandomSource;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,6 +31,7 @@ public class SecurityConfig {
                 .authorizeRequests()
                 .antMatchers("/api/v1/users/sign-up").permitAll()
                 .antMatchers("/api/v1/users/login").permitAll()
+                .antMatchers("/api/v1/users/refresh").permitAll()
                 .antMatchers("/h2-console/**").permitAll()
                 .anyRequest().authenticated()
                 .and()
@@ -40,6 +44,14 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // El filtro solo debe correr dentro de la cadena de seguridad, no también como filtro del servlet
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(jwtAuthenticationFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(
             AuthenticationConfiguration authenticationConfiguration) throws Exception {
@@ -47,7 +59,15 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptCalibration bcryptCalibration(@Value("${password-hashing.bcrypt.target-millis:100}") long targetMillis,
+                                               @Value("${password-hashing.bcrypt.min-strength:10}") int minStrength) {
+        return BCryptCalibration.calibrate(targetMillis, minStrength);
+    }
+
+    // Los hashes con un costo menor al calibrado se rehacen al verificarlos (UserCredentialsService.updatePassword).
+    // Los salts salen de RandomSource y no del SecureRandom que BCrypt crearía por su cuenta
+    @Bean
+    public PasswordEncoder passwordEncoder(BCryptCalibration bcryptCalibration, RandomSource randomSource) {
+        return new BCryptPasswordEncoder(bcryptCalibration.getStrength(), randomSource.asSecureRandom());
     }
 }
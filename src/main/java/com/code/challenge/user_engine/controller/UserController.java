@@ -1,14 +1,18 @@
 package com.code.challenge.user_engine.controller;
 
 import com.code.challenge.user_engine.dto.ErrorResponse;
+import com.code.challenge.user_engine.dto.RefreshRequest;
 import com.code.challenge.user_engine.dto.SignUpRequest;
 import com.code.challenge.user_engine.dto.UserResponse;
+import com.code.challenge.user_engine.exception.HashingOverloadedException;
 import com.code.challenge.user_engine.exception.InvalidDataException;
 import com.code.challenge.user_engine.exception.InvalidTokenException;
 import com.code.challenge.user_engine.exception.UserAlreadyExistsException;
 import com.code.challenge.user_engine.exception.UserNotFoundException;
+import com.code.challenge.user_engine.security.JwtAuthenticationToken;
 import com.code.challenge.user_engine.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +20,9 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -23,43 +30,111 @@ import java.util.Collections;
 public class UserController {
     private final UserService userService;
 
+    // El hash corre en PasswordHashingExecutor: el hilo de Tomcat queda libre hasta que la respuesta está lista
     @PostMapping("/sign-up")
-    public ResponseEntity<?> signUp(@Valid @RequestBody SignUpRequest request) {
+    public CompletableFuture<ResponseEntity<?>> signUp(@Valid @RequestBody SignUpRequest request) {
+        return userService.signUp(request)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(this::signUpFailed);
+    }
+
+    @GetMapping("/login")
+    public ResponseEntity<?> login(@RequestHeader("Authorization") String token, JwtAuthenticationToken authentication) {
         try {
-            UserResponse response = userService.signUp(request);
+            // Si el filtro ya verificó el token se reutilizan sus claims
+            UserResponse response = authentication != null && authentication.getVerifiedToken() != null
+                    ? userService.login(authentication.getVerifiedToken())
+                    : userService.login(token.replace("Bearer ", ""));
             return ResponseEntity.ok(response);
-        } catch (UserAlreadyExistsException e) {
+        } catch (InvalidTokenException | UserNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Collections.singletonList(
+                            ErrorResponse.builder()
+                                    .timestamp(LocalDateTime.now())
+                                    .code(HttpStatus.UNAUTHORIZED.value())
+                                    .detail(e.getMessage())
+                                    .build()));
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(userService.refresh(request.getRefreshToken()));
+        } catch (InvalidTokenException | UserNotFoundException e) {
+            return unauthorized(e.getMessage());
+        }
+    }
+
+    // Invalida todos los tokens del usuario autenticado, incluido el de este request
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(JwtAuthenticationToken authentication) {
+        if (authentication == null) {
+            return unauthorized("Token is required");
+        }
+        try {
+            userService.revokeAllTokens((UUID) authentication.getPrincipal());
+            return ResponseEntity.noContent().build();
+        } catch (UserNotFoundException e) {
+            return unauthorized(e.getMessage());
+        }
+    }
+
+    // Desactiva la cuenta del usuario autenticado y, como logout-all, invalida todos sus tokens
+    @PostMapping("/deactivate")
+    public ResponseEntity<?> deactivate(JwtAuthenticationToken authentication) {
+        if (authentication == null) {
+            return unauthorized("Token is required");
+        }
+        try {
+            userService.deactivate((UUID) authentication.getPrincipal());
+            return ResponseEntity.noContent().build();
+        } catch (UserNotFoundException e) {
+            return unauthorized(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<?> signUpFailed(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof UserAlreadyExistsException) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Collections.singletonList(
                             ErrorResponse.builder()
                                     .timestamp(LocalDateTime.now())
                                     .code(HttpStatus.CONFLICT.value())
-                                    .detail(e.getMessage())
+                                    .detail(cause.getMessage())
                                     .build()));
-        } catch (InvalidDataException e) {
+        }
+        if (cause instanceof InvalidDataException) {
             return ResponseEntity.badRequest()
                     .body(Collections.singletonList(
                             ErrorResponse.builder()
                                     .timestamp(LocalDateTime.now())
                                     .code(HttpStatus.BAD_REQUEST.value())
-                                    .detail(e.getMessage())
+                                    .detail(cause.getMessage())
                                     .build()));
         }
-    }
-
-    @GetMapping("/login")
-    public ResponseEntity<?> login(@RequestHeader("Authorization") String token) {
-        try {
-            UserResponse response = userService.login(token.replace("Bearer ", ""));
-            return ResponseEntity.ok(response);
-        } catch (InvalidTokenException | UserNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+        if (cause instanceof HashingOverloadedException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
                     .body(Collections.singletonList(
                             ErrorResponse.builder()
                                     .timestamp(LocalDateTime.now())
-                                    .code(HttpStatus.UNAUTHORIZED.value())
-                                    .detail(e.getMessage())
+                                    .code(HttpStatus.SERVICE_UNAVAILABLE.value())
+                                    .detail(cause.getMessage())
                                     .build()));
         }
+        // El resto llega a GlobalExceptionHandler
+        throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+    }
+
+    private ResponseEntity<?> unauthorized(String detail) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Collections.singletonList(
+                        ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .code(HttpStatus.UNAUTHORIZED.value())
+                                .detail(detail)
+                                .build()));
     }
 }
@@ -0,0 +1,14 @@
+package com.code.challenge.user_engine.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshRequest {
+    @NotBlank
+    private String refreshToken;
+}
@@ -1,5 +1,6 @@
 package com.code.challenge.user_engine.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,4 +20,7 @@ public class UserResponse {
     private String email;
     private String password;
     private List<PhoneDto> phones;
+    // Solo con jwt.refresh.enabled; sin él la respuesta queda igual que antes
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String refreshToken;
 }
@@ -0,0 +1,7 @@
+package com.code.challenge.user_engine.exception;
+
+public class HashingOverloadedException extends RuntimeException {
+    public HashingOverloadedException() {
+        super("Too many sign-ups in progress, please retry later");
+    }
+}
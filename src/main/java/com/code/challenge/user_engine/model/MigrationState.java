@@ -0,0 +1,47 @@
+package com.code.challenge.user_engine.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Estado de una migración de datos, compartido por todos los nodos y por los reinicios. Lo escribe la tarea que
+ * migra las filas al terminar cada pasada; el código que lee tiene que tolerar filas viejas mientras no esté completa.
+ */
+@Entity
+@Table(name = "migration_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MigrationState {
+    // Filas de users sin canonical_email ni email_hash (EmailLookupBackfill)
+    public static final String EMAIL_LOOKUP = "email-lookup";
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    // Última pasada que encontró filas sin migrar
+    private long lastPendingAt;
+
+    // Null mientras puedan aparecer filas sin migrar
+    private Long completedAt;
+
+    public boolean isComplete() {
+        return completedAt != null;
+    }
+
+    /**
+     * Una pasada que encontró filas sin migrar reabre la migración: las escribió un nodo con la versión anterior.
+     * Se da por terminada cuando pasa {@code quietPeriodMillis} sin que aparezca ninguna.
+     */
+    public void recordPass(boolean foundPending, long now, long quietPeriodMillis) {
+        if (foundPending) {
+            lastPendingAt = now;
+            completedAt = null;
+        } else if (completedAt == null && now - lastPendingAt >= quietPeriodMillis) {
+            completedAt = now;
+        }
+    }
+}
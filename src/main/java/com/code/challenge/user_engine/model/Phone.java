@@ -6,15 +6,24 @@ import java.util.UUID;
 
 @Entity
 @Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Phone {
+    // Lo asigna la aplicación al armar el usuario, como el de User
     @Id
-    @GeneratedValue
+    @EqualsAndHashCode.Include
     private UUID id;
 
     private long number;
     private int cityCode;
     private String countryCode;
+
+    // Dueño de la relación: el insert ya lleva user_id, sin un update por teléfono después. Fuera de
+    // toString para no recorrer el ciclo con User.phones ni inicializar el proxy
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    private User user;
 }
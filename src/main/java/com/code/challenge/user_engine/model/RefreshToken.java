@@ -0,0 +1,26 @@
+package com.code.challenge.user_engine.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.util.UUID;
+
+/**
+ * Refresh token vigente. Solo se guarda el digest de 128 bits del token, nunca el valor.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+    @Id
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @Column(columnDefinition = "BINARY(16)", nullable = false)
+    private UUID userId;
+
+    private long expiresAt;
+}
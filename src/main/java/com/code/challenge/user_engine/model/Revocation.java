@@ -0,0 +1,37 @@
+package com.code.challenge.user_engine.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Fila del feed de revocaciones compartido entre nodos. {@code seq} es creciente y cada nodo lee las
+ * filas nuevas por encima de la última que aplicó. Se escribe y se lee con {@code JdbcTemplate} en
+ * {@code RevocationFeed}; la entidad define la tabla.
+ */
+@Entity
+@Table(name = "revocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Revocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    // jti del token revocado, o el id del usuario cuyo epoch se incrementó
+    private long subjectMsb;
+    private long subjectLsb;
+    private long expiresAt;
+    private int tokenEpoch;
+
+    public enum Kind {
+        TOKEN,
+        EPOCH
+    }
+}
@@ -1,40 +1,103 @@
 package com.code.challenge.user_engine.model;
 
 import lombok.*;
-import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = {
+                @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "canonical_email"),
+                @UniqueConstraint(name = User.LEGACY_EMAIL_CONSTRAINT, columnNames = "email")},
+        indexes = @Index(name = "idx_users_email_hash", columnList = "email_hash"))
 @Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class User {
+    // Con nombre fijo para reconocer su violación en el insert de /sign-up
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    // La unicidad del email tal cual, la única que cubre las filas sin canonical_email. EmailLookupBackfill la
+    // borra cuando migration_state da la migración por completa
+    public static final String LEGACY_EMAIL_CONSTRAINT = "uk_users_email_legacy";
+
+    // UUID v7 asignado antes del insert: firma el token sin esperar a la base, los inserts caen al final del índice
+    // y, como no cambia, es lo único que usan equals/hashCode
     @Id
-    @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
     @Column(columnDefinition = "BINARY(16)")
+    @EqualsAndHashCode.Include
     private UUID id;
 
     private String name;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
+    // Derivados de email en cada escritura. Las búsquedas van por el índice del hash de 8 bytes, que no es único,
+    // y confirman con el canónico; la unicidad es la del canónico: dos emails que solo difieren en mayúsculas son
+    // el mismo usuario, y dos distintos con el mismo hash conviven.
+    // Null solo en filas anteriores a estas columnas que EmailLookupBackfill todavía no completó
+    @Setter(AccessLevel.NONE)
+    @Column(name = "canonical_email")
+    private String canonicalEmail;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_hash")
+    private Long emailHash;
+
+    // Fila anterior a estas columnas cuyo email canónico ya tenía otra: conserva su email tal cual para resolverla
+    // a mano, y un canónico propio que no coincide con ningún email real
+    @Setter(AccessLevel.NONE)
+    @Column(name = "email_conflict", columnDefinition = "boolean default false not null")
+    private boolean emailConflict;
+
     @Column(nullable = false)
     private String password;
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "user_id")
+    // Los escribe Phone.user: con hibernate.jdbc.batch_size, todos los teléfonos de un sign-up van en un solo lote
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+    @ToString.Exclude
     private List<Phone> phones;
 
     private LocalDateTime created;
     private LocalDateTime lastLogin;
     private String token;
     private boolean isActive;
-}
\ No newline at end of file
+    // Se incrementa para invalidar de una vez todos los tokens emitidos al usuario
+    private int tokenEpoch;
+
+    @PrePersist
+    @PreUpdate
+    public void canonicalizeEmail() {
+        canonicalEmail = emailConflict ? "conflict+" + id + "@invalid" : canonicalEmail(email);
+        emailHash = emailHash(canonicalEmail);
+    }
+
+    public void markEmailConflict() {
+        emailConflict = true;
+        canonicalizeEmail();
+    }
+
+    public static String canonicalEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Primeros 8 bytes del SHA-256: se guarda en la base, así que no puede depender de la JVM como String.hashCode
+    public static long emailHash(String canonicalEmail) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonicalEmail.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
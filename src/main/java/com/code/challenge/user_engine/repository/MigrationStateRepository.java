@@ -0,0 +1,9 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.model.MigrationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigrationStateRepository extends JpaRepository<MigrationState, String> {
+}
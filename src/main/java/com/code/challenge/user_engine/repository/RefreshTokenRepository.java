@@ -0,0 +1,28 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    // Devuelve 0 si otro request ya lo consumió o venció: cada refresh token se usa una sola vez
+    @Modifying
+    @Query("delete from RefreshToken r where r.id = :id and r.expiresAt > :now")
+    int deleteIfValid(@Param("id") UUID id, @Param("now") long now);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.userId = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+
+}
@@ -1,15 +1,35 @@
 package com.code.challenge.user_engine.repository;
 
 import com.code.challenge.user_engine.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
 
-    Optional<User> findByEmail(String email);
+    // Filas anteriores a email_hash, en orden de id para recorrerlas por tramos (EmailLookupBackfill)
+    List<User> findByEmailHashIsNullOrderByIdAsc(Pageable page);
+
+    List<User> findByEmailHashIsNullAndIdGreaterThanOrderByIdAsc(UUID id, Pageable page);
+
+    // Por el índice del hash; quien llama confirma con el canónico
+    @Query("select u.canonicalEmail from User u where u.emailHash in :hashes")
+    List<String> findCanonicalEmailsByEmailHashIn(@Param("hashes") Collection<Long> hashes);
+
+    // Lo que necesita la respuesta de /login y /refresh en una sola consulta: el usuario con sus teléfonos
+    @EntityGraph(attributePaths = "phones")
+    Optional<User> findWithPhonesById(UUID id);
+
+    @Query("select u.tokenEpoch from User u where u.id = :id")
+    Optional<Integer> findTokenEpochById(@Param("id") UUID id);
 
 }
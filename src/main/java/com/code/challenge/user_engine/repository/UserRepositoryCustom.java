@@ -0,0 +1,34 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserta un usuario nuevo con su id ya asignado. {@code save} lo trataría como existente y haría un
+     * merge, con un select previo que no hace falta.
+     */
+    User insert(User user);
+
+    /**
+     * Busca por el email canónico: consulta el índice de {@code email_hash} y confirma con el valor completo,
+     * así que las mayúsculas no importan.
+     */
+    Optional<User> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * Vuelve a leer de {@code migration_state} si las búsquedas todavía tienen que probar con el email exacto en
+     * las filas sin {@code email_hash}. Lo llama EmailLookupBackfill al terminar cada pasada.
+     */
+    void reloadEmailLookupState();
+
+    /**
+     * Borra la restricción única sobre el email tal cual ({@link User#LEGACY_EMAIL_CONSTRAINT}), que solo hace
+     * falta mientras haya filas sin {@code canonical_email}. No falla si ya no está.
+     */
+    void dropLegacyEmailConstraint();
+}
@@ -0,0 +1,91 @@
+package com.code.challenge.user_engine.repository;
+
+import com.code.challenge.user_engine.model.MigrationState;
+import com.code.challenge.user_engine.model.User;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Null hasta la primera lectura de migration_state; después lo refresca cada pasada del backfill
+    private volatile Boolean legacyEmailLookup;
+
+    @Override
+    @Transactional
+    public User insert(User user) {
+        entityManager.persist(user);
+        entityManager.flush();
+        return user;
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String canonicalEmail = User.canonicalEmail(email);
+        // El hash no es único: cada candidato se confirma con el email canónico
+        List<User> candidates = entityManager.createQuery("select u from User u where u.emailHash = :hash", User.class)
+                .setParameter("hash", User.emailHash(canonicalEmail))
+                .getResultList();
+        for (User candidate : candidates) {
+            if (canonicalEmail.equals(candidate.getCanonicalEmail())) {
+                return Optional.of(candidate);
+            }
+        }
+        if (legacyEmailLookup()) {
+            // Fila anterior al backfill: se busca como antes, por el email tal cual se guardó
+            return entityManager.createQuery("select u from User u where u.emailHash is null and u.email = :email", User.class)
+                    .setParameter("email", email)
+                    .getResultStream().findFirst();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        String canonicalEmail = User.canonicalEmail(email);
+        List<String> candidates = entityManager.createQuery("select u.canonicalEmail from User u where u.emailHash = :hash", String.class)
+                .setParameter("hash", User.emailHash(canonicalEmail))
+                .getResultList();
+        if (candidates.contains(canonicalEmail)) {
+            return true;
+        }
+        return legacyEmailLookup() && !entityManager.createQuery("select u.id from User u where u.emailHash is null and u.email = :email")
+                .setParameter("email", email)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    @Override
+    public void reloadEmailLookupState() {
+        legacyEmailLookup = readLegacyEmailLookup();
+    }
+
+    @Override
+    @Transactional
+    public void dropLegacyEmailConstraint() {
+        entityManager.createNativeQuery("alter table users drop constraint if exists " + User.LEGACY_EMAIL_CONSTRAINT)
+                .executeUpdate();
+    }
+
+    // Mientras la migración no esté completa, una búsqueda fallida prueba con el email exacto. Esa consulta filtra
+    // por email_hash is null sobre el índice del hash: solo recorre las filas que faltan completar
+    private boolean legacyEmailLookup() {
+        Boolean legacy = legacyEmailLookup;
+        if (legacy == null) {
+            legacy = readLegacyEmailLookup();
+            legacyEmailLookup = legacy;
+        }
+        return legacy;
+    }
+
+    private boolean readLegacyEmailLookup() {
+        MigrationState state = entityManager.find(MigrationState.class, MigrationState.EMAIL_LOOKUP);
+        return state == null || !state.isComplete();
+    }
+}
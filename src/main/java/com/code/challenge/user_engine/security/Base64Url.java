@@ -0,0 +1,157 @@
+package com.code.challenge.user_engine.security;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Base64url sin padding sobre arreglos propios, para codificar y decodificar tokens sin buffers intermedios.
+ */
+final class Base64Url {
+    static final int UUID_CHARS = 22; // 16 bytes sin padding
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    static int encodedLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * @return posición en {@code out} después del último carácter escrito
+     */
+    static int encode(byte[] source, int length, byte[] out, int offset) {
+        int i = 0;
+        for (; i + 3 <= length; i += 3) {
+            int block = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8 | (source[i + 2] & 0xFF);
+            out[offset++] = ALPHABET[block >>> 18];
+            out[offset++] = ALPHABET[block >>> 12 & 0x3F];
+            out[offset++] = ALPHABET[block >>> 6 & 0x3F];
+            out[offset++] = ALPHABET[block & 0x3F];
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int block = (source[i] & 0xFF) << 16;
+            out[offset++] = ALPHABET[block >>> 18];
+            out[offset++] = ALPHABET[block >>> 12 & 0x3F];
+        } else if (remaining == 2) {
+            int block = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8;
+            out[offset++] = ALPHABET[block >>> 18];
+            out[offset++] = ALPHABET[block >>> 12 & 0x3F];
+            out[offset++] = ALPHABET[block >>> 6 & 0x3F];
+        }
+        return offset;
+    }
+
+    /**
+     * Los 16 bytes big-endian del UUID, igual que {@link #encode} sobre {@code msb} y {@code lsb} seguidos.
+     *
+     * @return posición en {@code out} después del último carácter escrito
+     */
+    static int encodeUuid(long msb, long lsb, byte[] out, int offset) {
+        for (int i = 0; i < UUID_CHARS - 1; i++) {
+            out[offset++] = ALPHABET[(int) (msb >>> 58)];
+            msb = msb << 6 | lsb >>> 58;
+            lsb <<= 6;
+        }
+        // Quedan 2 bits, en la parte alta del último carácter
+        out[offset++] = ALPHABET[(int) (msb >>> 58) & 0x30];
+        return offset;
+    }
+
+    /**
+     * @return si {@code text} tiene en {@code offset} la forma canónica de un UUID de 22 caracteres
+     */
+    static boolean isUuid(byte[] text, int offset) {
+        for (int i = 0; i < UUID_CHARS; i++) {
+            byte c = text[offset + i];
+            if (c < 0 || VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return (VALUES[text[offset + UUID_CHARS - 1]] & 0xF) == 0;
+    }
+
+    // 10 caracteres y 4 bits del siguiente; solo para texto ya validado con isUuid
+    static long uuidMsb(byte[] text, int offset) {
+        long value = 0;
+        for (int i = 0; i < 10; i++) {
+            value = value << 6 | VALUES[text[offset + i]];
+        }
+        return value << 4 | VALUES[text[offset + 10]] >>> 2;
+    }
+
+    // 2 bits del carácter 10, 10 caracteres enteros y 2 bits del último
+    static long uuidLsb(byte[] text, int offset) {
+        long value = VALUES[text[offset + 10]] & 0x3;
+        for (int i = 11; i < UUID_CHARS - 1; i++) {
+            value = value << 6 | VALUES[text[offset + i]];
+        }
+        return value << 2 | VALUES[text[offset + UUID_CHARS - 1]] >>> 4;
+    }
+
+    /**
+     * @return el UUID codificado en {@code text}, o {@code null} si no son 22 caracteres base64url canónicos
+     */
+    static UUID decodeUuid(String text) {
+        if (text == null || text.length() != UUID_CHARS) {
+            return null;
+        }
+        byte[] ascii = new byte[UUID_CHARS];
+        for (int i = 0; i < UUID_CHARS; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            ascii[i] = (byte) c;
+        }
+        return isUuid(ascii, 0) ? new UUID(uuidMsb(ascii, 0), uuidLsb(ascii, 0)) : null;
+    }
+
+    /**
+     * @return el valor de 6 bits del carácter, o -1 si no pertenece al alfabeto
+     */
+    static int valueOf(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+
+    /**
+     * Decodifica el rango {@code [from, to)} de {@code text}.
+     *
+     * @return bytes escritos, o -1 si el texto no es base64url válido o no entra en {@code out}
+     */
+    static int decode(String text, int from, int to, byte[] out) {
+        if ((to - from) % 4 == 1) {
+            return -1;
+        }
+        int accumulator = 0;
+        int bits = 0;
+        int written = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            int value = valueOf(c);
+            if (value < 0) {
+                return -1;
+            }
+            accumulator = accumulator << 6 | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (written == out.length) {
+                    return -1;
+                }
+                out[written++] = (byte) (accumulator >> bits);
+            }
+        }
+        return written;
+    }
+}
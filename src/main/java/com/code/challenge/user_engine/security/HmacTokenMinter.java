@@ -0,0 +1,172 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.UUID;
+
+/**
+ * Con el perfil {@link TokenProfile#LEGACY} emite los mismos tokens que {@code Jwts.builder().setHeaderParam("kid", kid)
+ * .setSubject().setIssuedAt().setExpiration().setId().claim("epoch", epoch).signWith(key)}, byte por byte; los
+ * perfiles compactos cambian el payload y el algoritmo según {@link TokenProfile}. Header precalculado, payload
+ * escrito directo en un buffer reutilizado por hilo y un {@link Mac} por hilo. La única reserva por token es el
+ * {@code String} resultante.
+ */
+final class HmacTokenMinter {
+    private static final byte[] SUB = "{\"sub\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IAT = "\",\"iat\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EXP = ",\"exp\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMPACT_EXP = "\",\"exp\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JTI = ",\"jti\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EPOCH = "\",\"epoch\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMPACT_END = "\"}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    // Dos UUID, dos fechas en segundos de hasta 19 dígitos, un int y el texto fijo de los claims
+    private static final int MAX_PAYLOAD_BYTES = 2 * 36 + 2 * 19 + 11 + 50;
+
+    private final byte[] header;
+    private final boolean compact;
+    private final ThreadLocal<MinterState> state;
+
+    HmacTokenMinter(SecretKey key) {
+        this(key, null);
+    }
+
+    HmacTokenMinter(SecretKey key, String kid) {
+        this(key, kid, TokenProfile.LEGACY);
+    }
+
+    HmacTokenMinter(SecretKey key, String kid, TokenProfile profile) {
+        SignatureAlgorithm algorithm = profile.getAlgorithm();
+        new MinterState(key, algorithm, 0);
+        this.header = HmacTokenVerifier.headerSegment(kid, algorithm).getBytes(StandardCharsets.US_ASCII);
+        this.compact = profile.isCompact();
+        this.state = ThreadLocal.withInitial(() -> new MinterState(key, algorithm, header.length));
+    }
+
+    String mint(UUID subject, long issuedAtMillis, long expiresAtMillis, UUID tokenId, int tokenEpoch) {
+        MinterState current = state.get();
+        byte[] payload = current.payload;
+        int length = compact
+                ? putCompactClaims(subject, expiresAtMillis, tokenId, tokenEpoch, payload)
+                : putClaims(subject, issuedAtMillis, expiresAtMillis, tokenId, tokenEpoch, payload);
+
+        byte[] token = current.token;
+        int offset = put(header, token, 0);
+        token[offset++] = '.';
+        offset = Base64Url.encode(payload, length, token, offset);
+        current.sign(token, offset);
+        token[offset++] = '.';
+        offset = Base64Url.encode(current.signature, current.signature.length, token, offset);
+        // Todo es ASCII: con ISO-8859-1 el String copia los bytes tal cual, sin pasar por un encoder
+        return new String(token, 0, offset, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int putClaims(UUID subject, long issuedAtMillis, long expiresAtMillis, UUID tokenId, int tokenEpoch,
+                                 byte[] payload) {
+        int length = put(SUB, payload, 0);
+        length = putUuid(subject, payload, length);
+        length = put(IAT, payload, length);
+        length = putLong(issuedAtMillis / 1000, payload, length);
+        length = put(EXP, payload, length);
+        length = putLong(expiresAtMillis / 1000, payload, length);
+        length = put(JTI, payload, length);
+        length = putUuid(tokenId, payload, length);
+        length = put(EPOCH, payload, length);
+        length = putLong(tokenEpoch, payload, length);
+        return put(END, payload, length);
+    }
+
+    // {"sub":"<22>","exp":N,"jti":"<22>"} y "epoch" solo si no es 0
+    private static int putCompactClaims(UUID subject, long expiresAtMillis, UUID tokenId, int tokenEpoch, byte[] payload) {
+        int length = put(SUB, payload, 0);
+        length = Base64Url.encodeUuid(subject.getMostSignificantBits(), subject.getLeastSignificantBits(), payload, length);
+        length = put(COMPACT_EXP, payload, length);
+        length = putLong(expiresAtMillis / 1000, payload, length);
+        length = put(JTI, payload, length);
+        length = Base64Url.encodeUuid(tokenId.getMostSignificantBits(), tokenId.getLeastSignificantBits(), payload, length);
+        if (tokenEpoch == 0) {
+            return put(COMPACT_END, payload, length);
+        }
+        length = put(EPOCH, payload, length);
+        length = putLong(tokenEpoch, payload, length);
+        return put(END, payload, length);
+    }
+
+    private static int put(byte[] source, byte[] out, int offset) {
+        System.arraycopy(source, 0, out, offset, source.length);
+        return offset + source.length;
+    }
+
+    // Mismo formato que UUID.toString(): 8-4-4-4-12 en hexadecimal minúscula
+    private static int putUuid(UUID uuid, byte[] out, int offset) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        offset = putHex(msb >>> 32, 8, out, offset);
+        out[offset++] = '-';
+        offset = putHex(msb >>> 16, 4, out, offset);
+        out[offset++] = '-';
+        offset = putHex(msb, 4, out, offset);
+        out[offset++] = '-';
+        offset = putHex(lsb >>> 48, 4, out, offset);
+        out[offset++] = '-';
+        return putHex(lsb, 12, out, offset);
+    }
+
+    private static int putHex(long value, int digits, byte[] out, int offset) {
+        for (int i = digits - 1; i >= 0; i--) {
+            out[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return offset + digits;
+    }
+
+    private static int putLong(long value, byte[] out, int offset) {
+        if (value < 0) {
+            out[offset++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+
+    private static final class MinterState {
+        private final Mac mac;
+        private final byte[] payload = new byte[MAX_PAYLOAD_BYTES];
+        private final byte[] token;
+        private final byte[] signature;
+
+        private MinterState(SecretKey key, SignatureAlgorithm algorithm, int headerLength) {
+            try {
+                mac = Mac.getInstance(algorithm.getJcaName());
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Signing key cannot be used with " + algorithm.getJcaName(), e);
+            }
+            signature = new byte[mac.getMacLength()];
+            token = new byte[headerLength + 2
+                    + Base64Url.encodedLength(MAX_PAYLOAD_BYTES) + Base64Url.encodedLength(signature.length)];
+        }
+
+        private void sign(byte[] input, int length) {
+            mac.update(input, 0, length);
+            try {
+                mac.doFinal(signature, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
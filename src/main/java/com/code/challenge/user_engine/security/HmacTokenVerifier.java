@@ -0,0 +1,330 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Verificación HMAC directa (HS512, o HS256 para {@link TokenProfile#COMPACT_HS256}) de los tokens que emite
+ * este servicio: un {@link Mac} y buffers reutilizados por hilo, comparación de firma en tiempo constante y una
+ * lectura mínima del payload (solo {@code sub}, {@code exp}, {@code jti} y {@code epoch}, con los UUID en texto o
+ * en base64url compacto). Todo lo que no tenga exactamente esa forma se deja a jjwt devolviendo {@code null}.
+ */
+final class HmacTokenVerifier {
+
+    private static final int UUID_CHARS = 36;
+
+    private final String headerSegment;
+    private final int signatureChars;
+    private final ThreadLocal<VerifierState> state;
+
+    HmacTokenVerifier(SecretKey key) {
+        this(key, null);
+    }
+
+    HmacTokenVerifier(SecretKey key, String kid) {
+        this(key, kid, SignatureAlgorithm.HS512);
+    }
+
+    HmacTokenVerifier(SecretKey key, String kid, SignatureAlgorithm algorithm) {
+        // Falla al construir, no en el primer request, si la clave no sirve para el algoritmo
+        this.signatureChars = Base64Url.encodedLength(new VerifierState(key, algorithm).expectedSignature.length);
+        this.headerSegment = headerSegment(kid, algorithm);
+        this.state = ThreadLocal.withInitial(() -> new VerifierState(key, algorithm));
+    }
+
+    /**
+     * Header que jjwt escribe para HS512, con el {@code kid} primero cuando se indica.
+     */
+    static String headerSegment(String kid) {
+        return headerSegment(kid, SignatureAlgorithm.HS512);
+    }
+
+    static String headerSegment(String kid, SignatureAlgorithm algorithm) {
+        String alg = "\"alg\":\"" + algorithm.getValue() + "\"}";
+        String json = kid == null ? "{" + alg : "{\"kid\":\"" + kid + "\"," + alg;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    String headerSegment() {
+        return headerSegment;
+    }
+
+    // Solo se compara el header: la clave correcta para el token es la que emitió ese mismo header
+    boolean handles(String token) {
+        return token.length() > headerSegment.length() && token.startsWith(headerSegment)
+                && token.charAt(headerSegment.length()) == '.';
+    }
+
+    /**
+     * @return los claims del token, o {@code null} si no tiene la forma esperada o ya expiró
+     * @throws SignatureException si la firma no corresponde a la clave
+     */
+    VerifiedToken verify(String token, long now) {
+        if (!handles(token)) {
+            return null;
+        }
+        int headerEnd = headerSegment.length();
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (payloadEnd < 0 || token.length() - payloadEnd - 1 != signatureChars) {
+            return null;
+        }
+
+        VerifierState current = state.get();
+        byte[] signingInput = current.signingInput(payloadEnd);
+        for (int i = 0; i < payloadEnd; i++) {
+            char c = token.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            signingInput[i] = (byte) c;
+        }
+        if (Base64Url.decode(token, payloadEnd + 1, token.length(), current.providedSignature)
+                != current.providedSignature.length) {
+            return null;
+        }
+        current.sign(signingInput, payloadEnd);
+        if (!constantTimeEquals(current.expectedSignature, current.providedSignature)) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+        byte[] payload = current.payload(payloadEnd - headerEnd - 1);
+        int payloadLength = Base64Url.decode(token, headerEnd + 1, payloadEnd, payload);
+        return payloadLength < 0 ? null : scanClaims(token, payload, payloadLength, now);
+    }
+
+    // Objeto JSON plano con strings sin escapes y enteros; cualquier otra cosa vuelve a jjwt
+    private static VerifiedToken scanClaims(String token, byte[] json, int length, long now) {
+        long subMsb = 0, subLsb = 0, jtiMsb = 0, jtiLsb = 0, exp = 0, epoch = 0;
+        boolean hasSub = false, hasJti = false, hasExp = false;
+
+        int i = skipWhitespace(json, 0, length);
+        if (i >= length || json[i] != '{') {
+            return null;
+        }
+        i = skipWhitespace(json, i + 1, length);
+        if (i < length && json[i] == '}') {
+            return null;
+        }
+        while (true) {
+            if (i >= length || json[i] != '"') {
+                return null;
+            }
+            int keyStart = i + 1;
+            int keyEnd = endOfString(json, keyStart, length);
+            if (keyEnd < 0) {
+                return null;
+            }
+            i = skipWhitespace(json, keyEnd + 1, length);
+            if (i >= length || json[i] != ':') {
+                return null;
+            }
+            i = skipWhitespace(json, i + 1, length);
+            if (i >= length) {
+                return null;
+            }
+
+            if (json[i] == '"') {
+                int valueStart = i + 1;
+                int valueEnd = endOfString(json, valueStart, length);
+                if (valueEnd < 0) {
+                    return null;
+                }
+                if (isKey(json, keyStart, keyEnd, "sub") || isKey(json, keyStart, keyEnd, "jti")) {
+                    long msb;
+                    long lsb;
+                    if (valueEnd - valueStart == UUID_CHARS && isUuid(json, valueStart)) {
+                        msb = parseHex(json, valueStart, 8) << 32 | parseHex(json, valueStart + 9, 4) << 16
+                                | parseHex(json, valueStart + 14, 4);
+                        lsb = parseHex(json, valueStart + 19, 4) << 48 | parseHex(json, valueStart + 24, 12);
+                    } else if (valueEnd - valueStart == Base64Url.UUID_CHARS && Base64Url.isUuid(json, valueStart)) {
+                        msb = Base64Url.uuidMsb(json, valueStart);
+                        lsb = Base64Url.uuidLsb(json, valueStart);
+                    } else {
+                        return null;
+                    }
+                    if (json[keyStart] == 's') {
+                        subMsb = msb;
+                        subLsb = lsb;
+                        hasSub = true;
+                    } else {
+                        jtiMsb = msb;
+                        jtiLsb = lsb;
+                        hasJti = true;
+                    }
+                } else if (isKey(json, keyStart, keyEnd, "exp") || isKey(json, keyStart, keyEnd, "nbf")
+                        || isKey(json, keyStart, keyEnd, "epoch")) {
+                    return null;
+                }
+                i = valueEnd + 1;
+            } else if (json[i] >= '0' && json[i] <= '9') {
+                long value = 0;
+                int digits = 0;
+                while (i < length && json[i] >= '0' && json[i] <= '9') {
+                    value = value * 10 + (json[i++] - '0');
+                    if (++digits > 15) {
+                        return null;
+                    }
+                }
+                if (isKey(json, keyStart, keyEnd, "exp")) {
+                    exp = value;
+                    hasExp = true;
+                } else if (isKey(json, keyStart, keyEnd, "epoch")) {
+                    if (value > Integer.MAX_VALUE) {
+                        return null;
+                    }
+                    epoch = value;
+                } else if (isKey(json, keyStart, keyEnd, "nbf") || isKey(json, keyStart, keyEnd, "sub")
+                        || isKey(json, keyStart, keyEnd, "jti")) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+
+            i = skipWhitespace(json, i, length);
+            if (i >= length) {
+                return null;
+            }
+            if (json[i] == '}') {
+                if (skipWhitespace(json, i + 1, length) != length) {
+                    return null;
+                }
+                break;
+            }
+            if (json[i] != ',') {
+                return null;
+            }
+            i = skipWhitespace(json, i + 1, length);
+        }
+
+        // Sin exp, o ya vencido: jjwt arma la excepción con los claims completos
+        long expiresAt = exp * 1000;
+        if (!hasSub || !hasExp || now > expiresAt) {
+            return null;
+        }
+        UUID tokenId = hasJti ? new UUID(jtiMsb, jtiLsb) : TokenIds.digestOf(token);
+        return new VerifiedToken(token, new UUID(subMsb, subLsb), tokenId, expiresAt, (int) epoch);
+    }
+
+    private static int skipWhitespace(byte[] json, int i, int length) {
+        while (i < length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int endOfString(byte[] json, int i, int length) {
+        for (; i < length; i++) {
+            if (json[i] == '"') {
+                return i;
+            }
+            if (json[i] == '\\' || json[i] < 0x20) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isKey(byte[] json, int start, int end, String key) {
+        if (end - start != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (json[start + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUuid(byte[] json, int start) {
+        for (int i = 0; i < UUID_CHARS; i++) {
+            byte c = json[start + i];
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : hexValue(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(byte[] json, int start, int digits) {
+        long value = 0;
+        for (int i = 0; i < digits; i++) {
+            value = value << 4 | (hexValue(json[start + i]) & 0xF);
+        }
+        return value;
+    }
+
+    private static int hexValue(byte c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean constantTimeEquals(byte[] expected, byte[] provided) {
+        int difference = 0;
+        for (int i = 0; i < expected.length; i++) {
+            difference |= expected[i] ^ provided[i];
+        }
+        return difference == 0;
+    }
+
+    private static final class VerifierState {
+        private final Mac mac;
+        private final byte[] expectedSignature;
+        private final byte[] providedSignature;
+        private byte[] signingInput = new byte[512];
+        private byte[] payload = new byte[256];
+
+        private VerifierState(SecretKey key, SignatureAlgorithm algorithm) {
+            try {
+                mac = Mac.getInstance(algorithm.getJcaName());
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Signing key cannot be used with " + algorithm.getJcaName(), e);
+            }
+            expectedSignature = new byte[mac.getMacLength()];
+            providedSignature = new byte[mac.getMacLength()];
+        }
+
+        private byte[] signingInput(int length) {
+            if (signingInput.length < length) {
+                signingInput = new byte[length];
+            }
+            return signingInput;
+        }
+
+        private byte[] payload(int encodedLength) {
+            int decodedLength = encodedLength * 3 / 4 + 1;
+            if (payload.length < decodedLength) {
+                payload = new byte[decodedLength];
+            }
+            return payload;
+        }
+
+        private void sign(byte[] input, int length) {
+            mac.update(input, 0, length);
+            try {
+                mac.doFinal(expectedSignature, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -10,7 +10,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.UUID;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -32,11 +31,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             String token = extractToken(request);
-            if (token != null && jwtTokenUtil.validateToken(token)) {
-                UUID userId = jwtTokenUtil.getUserIdFromToken(token);
-
-                // Crear autenticación y establecerla en el contexto de seguridad
-                JwtAuthenticationToken authentication = new JwtAuthenticationToken(userId, token);
+            VerifiedToken verifiedToken = token != null ? jwtTokenUtil.verifyToken(token) : null;
+            if (verifiedToken != null) {
+                // Crear autenticación y establecerla en el contexto de seguridad; los claims viajan con ella
+                JwtAuthenticationToken authentication = new JwtAuthenticationToken(verifiedToken);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
 
@@ -8,11 +8,21 @@ public class JwtAuthenticationToken extends AbstractAuthenticationToken {
 
     private final UUID userId;
     private final String token;
+    private final transient VerifiedToken verifiedToken;
 
     public JwtAuthenticationToken(UUID userId, String token) {
+        this(userId, token, null);
+    }
+
+    public JwtAuthenticationToken(VerifiedToken verifiedToken) {
+        this(verifiedToken.getUserId(), verifiedToken.getToken(), verifiedToken);
+    }
+
+    private JwtAuthenticationToken(UUID userId, String token, VerifiedToken verifiedToken) {
         super(null);
         this.userId = userId;
         this.token = token;
+        this.verifiedToken = verifiedToken;
         setAuthenticated(true);
     }
 
@@ -25,4 +35,8 @@ public class JwtAuthenticationToken extends AbstractAuthenticationToken {
     public Object getPrincipal() {
         return userId;
     }
+
+    public VerifiedToken getVerifiedToken() {
+        return verifiedToken;
+    }
 }
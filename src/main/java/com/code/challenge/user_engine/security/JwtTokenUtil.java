@@ -1,46 +1,146 @@
 package com.code.challenge.user_engine.security;
 
 import com.code.challenge.user_engine.service.TokenBlacklist;
+import com.code.challenge.user_engine.service.TokenEpochs;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.util.Date;
 import java.util.UUID;
 
 @Component
 public class JwtTokenUtil {
+    static final String TOKEN_EPOCH_CLAIM = "epoch";
 
     @Autowired
     private TokenBlacklist tokenBlacklist;
 
-    private static final SecretKey secret = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenEpochs tokenEpochs;
+
+    @Autowired
+    private SigningKeyRing signingKeyRing;
+
+    @Autowired
+    private RandomSource randomSource;
+
+    // Solo existe con jwt.token-mode=opaque
+    @Autowired(required = false)
+    private OpaqueTokenStore opaqueTokenStore;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    public String generateToken(UUID userId) {
-        return Jwts.builder().setSubject(userId.toString()).setIssuedAt(new Date()).setExpiration(new Date(System.currentTimeMillis() + expiration * 1000)).signWith(secret).compact();
+    // Con refresh tokens los access tokens duran minutos y no necesitan revocación por token
+    @Value("${jwt.refresh.enabled:false}")
+    private boolean refreshEnabled;
+
+    @Value("${jwt.refresh.access-expiration:300}")
+    private long accessExpiration;
+
+    public String generateToken(UUID userId, int tokenEpoch) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + (refreshEnabled ? accessExpiration : expiration) * 1000;
+        if (opaqueTokenStore != null) {
+            return opaqueTokenStore.issue(userId, expiresAt, tokenEpoch);
+        }
+        return signingKeyRing.mint(userId, now, expiresAt, randomSource.randomUuid(), tokenEpoch);
     }
 
     public UUID getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
-        UUID uuidParsed = UUID.fromString(claims.getSubject());
-        return UUID.fromString(claims.getSubject());
+        if (isOpaque(token)) {
+            VerifiedToken resolved = opaqueTokenStore.resolve(token, System.currentTimeMillis());
+            if (resolved == null) {
+                throw new MalformedJwtException("Unknown or expired opaque token");
+            }
+            return resolved.getUserId();
+        }
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached.getUserId();
+        }
+        return verifyAndCache(token).getUserId();
     }
 
     public boolean validateToken(String token) {
         try {
-            if (tokenBlacklist.isBlacklisted(token)) {
-                return false;
-            }
-            Jwts.parser().setSigningKey(secret).parseClaimsJws(token);
-            return true;
+            return verifyToken(token) != null;
         } catch (Exception e) {
             return false;
         }
     }
+
+    // Verifica firma, expiración, blacklist y epoch una sola vez; devuelve null si el token no es válido
+    public VerifiedToken verifyToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        VerifiedToken verifiedToken;
+        if (isOpaque(token)) {
+            // Sin firma ni cache: resolverlo ya es una búsqueda en memoria
+            verifiedToken = opaqueTokenStore.resolve(token, System.currentTimeMillis());
+            if (verifiedToken == null) {
+                return null;
+            }
+        } else {
+            verifiedToken = verifiedTokenCache.get(token);
+            if (verifiedToken == null) {
+                try {
+                    verifiedToken = verifyAndCache(token);
+                } catch (JwtException | IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        // La revocación se consulta por jti y por epoch del usuario, incluso cuando el token sale del cache
+        if (tokenBlacklist.isBlacklisted(verifiedToken.getTokenId())
+                || !tokenEpochs.isCurrent(verifiedToken.getUserId(), verifiedToken.getTokenEpoch())) {
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    public void evictToken(String token) {
+        if (isOpaque(token)) {
+            opaqueTokenStore.revoke(token);
+            return;
+        }
+        verifiedTokenCache.invalidate(token);
+    }
+
+    // En modo opaco se siguen aceptando los JWT emitidos antes del cambio
+    private boolean isOpaque(String token) {
+        return opaqueTokenStore != null && token != null && OpaqueTokenStore.isOpaque(token);
+    }
+
+    private VerifiedToken verifyAndCache(String token) {
+        // Los tokens propios se resuelven sin jjwt; el resto (y los errores detallados) siguen por el parser
+        VerifiedToken verifiedToken = signingKeyRing.verify(token, System.currentTimeMillis());
+        if (verifiedToken == null) {
+            verifiedToken = parseToken(token);
+        }
+        if (verifiedToken.getExpiresAt() != Long.MAX_VALUE) {
+            verifiedTokenCache.put(verifiedToken);
+        }
+        return verifiedToken;
+    }
+
+    private VerifiedToken parseToken(String token) {
+        Claims claims = signingKeyRing.parseClaims(token);
+        UUID userId = parseUuid(claims.getSubject());
+        UUID tokenId = claims.getId() != null ? parseUuid(claims.getId()) : TokenIds.digestOf(token);
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        Integer tokenEpoch = claims.get(TOKEN_EPOCH_CLAIM, Integer.class);
+        return new VerifiedToken(token, userId, tokenId, expiresAt, tokenEpoch != null ? tokenEpoch : 0);
+    }
+
+    // sub y jti vienen en texto (perfil legacy) o como 22 caracteres base64url (perfiles compactos)
+    private static UUID parseUuid(String value) {
+        UUID compact = Base64Url.decodeUuid(value);
+        return compact != null ? compact : UUID.fromString(value);
+    }
 }
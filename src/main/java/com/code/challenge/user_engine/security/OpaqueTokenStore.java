@@ -0,0 +1,292 @@
+package com.code.challenge.user_engine.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Tokens opacos para clientes internos ({@code jwt.token-mode=opaque}): 22 caracteres base64url con
+ * 128 bits aleatorios que se resuelven en una tabla hash fuera del heap (token → usuario, expiración,
+ * epoch). No hay firma que verificar y el header queda en ~30 bytes. Las lecturas no toman locks: cada
+ * slot lleva una versión (seqlock) y la tabla se reemplaza entera al crecer. Las escrituras se
+ * serializan. La tabla es local al nodo, así que un token solo vale en el nodo que lo emitió.
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.token-mode", havingValue = "opaque")
+public class OpaqueTokenStore {
+    static final int TOKEN_LENGTH = 22;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // Slot de una línea de cache: version, clave (2), usuario (2), expiración, epoch, relleno
+    private static final int SLOT_BYTES = 64;
+    private static final int VERSION = 0;
+    private static final int KEY_MSB = 8;
+    private static final int KEY_LSB = 16;
+    private static final int USER_MSB = 24;
+    private static final int USER_LSB = 32;
+    private static final int EXPIRES_AT = 40;
+    private static final int EPOCH = 48;
+    private static final long REVOKED = 0;
+
+    private final RandomSource randomSource;
+    private volatile Table table;
+    private int occupied; // slots con clave, vivos o no; solo se lee y escribe bajo el lock
+
+    @Autowired
+    public OpaqueTokenStore(@Value("${jwt.opaque.initial-capacity:65536}") int initialCapacity, RandomSource randomSource) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("jwt.opaque.initial-capacity must be positive");
+        }
+        this.randomSource = randomSource;
+        this.table = new Table(Integer.highestOneBit(Math.max(16, initialCapacity - 1)) << 1);
+    }
+
+    public static boolean isOpaque(String token) {
+        return token.length() == TOKEN_LENGTH && token.indexOf('.') < 0;
+    }
+
+    public String issue(UUID userId, long expiresAt, int tokenEpoch) {
+        byte[] bytes = new byte[16];
+        long msb;
+        long lsb;
+        do {
+            randomSource.nextBytes(bytes);
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            msb = wrapped.getLong(0);
+            lsb = wrapped.getLong(8);
+        } while ((msb | lsb) == 0);
+        insert(msb, lsb, userId, expiresAt, tokenEpoch);
+        byte[] text = new byte[TOKEN_LENGTH];
+        Base64Url.encode(bytes, bytes.length, text, 0);
+        return new String(text, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @return los datos del token, o {@code null} si no tiene formato opaco, no existe, venció o fue revocado
+     */
+    public VerifiedToken resolve(String token, long now) {
+        long[] key = decode(token);
+        if (key == null) {
+            return null;
+        }
+        Table current = table;
+        long[] entry = current.find(key[0], key[1]);
+        if (entry == null || entry[2] <= now) {
+            return null;
+        }
+        return new VerifiedToken(token, new UUID(entry[0], entry[1]), new UUID(key[0], key[1]), entry[2], (int) entry[3]);
+    }
+
+    public synchronized boolean revoke(String token) {
+        long[] key = decode(token);
+        if (key == null) {
+            return false;
+        }
+        Table current = table;
+        int base = current.slotOf(key[0], key[1]);
+        if (base < 0 || current.get(base + EXPIRES_AT) == REVOKED) {
+            return false;
+        }
+        current.write(base, key[0], key[1], current.get(base + USER_MSB), current.get(base + USER_LSB),
+                REVOKED, current.get(base + EPOCH));
+        return true;
+    }
+
+    public int capacity() {
+        return table.capacity;
+    }
+
+    private synchronized void insert(long msb, long lsb, UUID userId, long expiresAt, int tokenEpoch) {
+        long now = System.currentTimeMillis();
+        Table current = table;
+        // Un slot vencido o revocado se reutiliza: sigue ocupado, así que no corta las cadenas de búsqueda
+        int base = current.reusableSlot(msb, lsb, now);
+        if (base < 0) {
+            if ((occupied + 1) * 4L > current.capacity * 3L) {
+                current = rebuild(current, now);
+            }
+            base = current.emptySlot(msb, lsb);
+            occupied++;
+        }
+        current.write(base, msb, lsb, userId.getMostSignificantBits(), userId.getLeastSignificantBits(), expiresAt, tokenEpoch);
+    }
+
+    // Copia solo lo vigente a una tabla nueva y la publica; los lectores con la tabla vieja terminan su búsqueda en ella
+    private Table rebuild(Table old, long now) {
+        int live = 0;
+        for (int slot = 0; slot < old.capacity; slot++) {
+            if (old.get(slot * SLOT_BYTES + EXPIRES_AT) > now) {
+                live++;
+            }
+        }
+        int capacity = old.capacity;
+        while ((live + 1) * 2L > capacity) {
+            capacity *= 2;
+        }
+        Table rebuilt = new Table(capacity);
+        for (int slot = 0; slot < old.capacity; slot++) {
+            int base = slot * SLOT_BYTES;
+            long expiresAt = old.get(base + EXPIRES_AT);
+            if (expiresAt > now) {
+                long msb = old.get(base + KEY_MSB);
+                long lsb = old.get(base + KEY_LSB);
+                rebuilt.write(rebuilt.emptySlot(msb, lsb), msb, lsb, old.get(base + USER_MSB), old.get(base + USER_LSB),
+                        expiresAt, old.get(base + EPOCH));
+            }
+        }
+        occupied = live;
+        table = rebuilt;
+        return rebuilt;
+    }
+
+    // 21 caracteres aportan 126 bits y el último los 2 restantes; sus 4 bits bajos deben ser cero
+    private static long[] decode(String token) {
+        if (token == null || token.length() != TOKEN_LENGTH) {
+            return null;
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < TOKEN_LENGTH - 1; i++) {
+            int value = Base64Url.valueOf(token.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            msb = msb << 6 | lsb >>> 58;
+            lsb = lsb << 6 | value;
+        }
+        int last = Base64Url.valueOf(token.charAt(TOKEN_LENGTH - 1));
+        if (last < 0 || (last & 0xF) != 0) {
+            return null;
+        }
+        msb = msb << 2 | lsb >>> 62;
+        lsb = lsb << 2 | last >>> 4;
+        return (msb | lsb) == 0 ? null : new long[]{msb, lsb};
+    }
+
+    private static long mix(long msb, long lsb) {
+        long h = msb ^ lsb * 0x9E3779B97F4A7C15L;
+        return h ^ h >>> 29;
+    }
+
+    private static final class Table {
+        private final ByteBuffer buffer;
+        private final int capacity;
+        private final int mask;
+
+        Table(int capacity) {
+            this.buffer = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        long get(int offset) {
+            return (long) LONGS.get(buffer, offset);
+        }
+
+        /**
+         * Lectura sin lock: se relee el slot si la versión es impar (escritura en curso) o cambió durante la lectura.
+         *
+         * @return {usuario msb, usuario lsb, expiración, epoch}, o {@code null} si la clave no está
+         */
+        long[] find(long msb, long lsb) {
+            int slot = (int) mix(msb, lsb) & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                int base = slot * SLOT_BYTES;
+                long version;
+                long slotMsb;
+                long slotLsb;
+                long userMsb;
+                long userLsb;
+                long expiresAt;
+                long epoch;
+                while (true) {
+                    version = (long) LONGS.getAcquire(buffer, base + VERSION);
+                    if ((version & 1) != 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    slotMsb = get(base + KEY_MSB);
+                    slotLsb = get(base + KEY_LSB);
+                    userMsb = get(base + USER_MSB);
+                    userLsb = get(base + USER_LSB);
+                    expiresAt = get(base + EXPIRES_AT);
+                    epoch = get(base + EPOCH);
+                    VarHandle.loadLoadFence();
+                    if ((long) LONGS.getOpaque(buffer, base + VERSION) == version) {
+                        break;
+                    }
+                }
+                if ((slotMsb | slotLsb) == 0) {
+                    return null;
+                }
+                if (slotMsb == msb && slotLsb == lsb) {
+                    return new long[]{userMsb, userLsb, expiresAt, epoch};
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        // Solo escritores, bajo el lock del store
+        int slotOf(long msb, long lsb) {
+            int slot = (int) mix(msb, lsb) & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                int base = slot * SLOT_BYTES;
+                long slotMsb = get(base + KEY_MSB);
+                long slotLsb = get(base + KEY_LSB);
+                if (slotMsb == msb && slotLsb == lsb) {
+                    return base;
+                }
+                if ((slotMsb | slotLsb) == 0) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int reusableSlot(long msb, long lsb, long now) {
+            int slot = (int) mix(msb, lsb) & mask;
+            for (int probes = 0; probes < capacity; probes++) {
+                int base = slot * SLOT_BYTES;
+                if ((get(base + KEY_MSB) | get(base + KEY_LSB)) == 0) {
+                    return -1;
+                }
+                if (get(base + EXPIRES_AT) <= now) {
+                    return base;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int emptySlot(long msb, long lsb) {
+            int slot = (int) mix(msb, lsb) & mask;
+            while ((get(slot * SLOT_BYTES + KEY_MSB) | get(slot * SLOT_BYTES + KEY_LSB)) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot * SLOT_BYTES;
+        }
+
+        void write(int base, long msb, long lsb, long userMsb, long userLsb, long expiresAt, long epoch) {
+            long version = get(base + VERSION);
+            LONGS.setOpaque(buffer, base + VERSION, version + 1);
+            VarHandle.storeStoreFence();
+            LONGS.set(buffer, base + KEY_MSB, msb);
+            LONGS.set(buffer, base + KEY_LSB, lsb);
+            LONGS.set(buffer, base + USER_MSB, userMsb);
+            LONGS.set(buffer, base + USER_LSB, userLsb);
+            LONGS.set(buffer, base + EXPIRES_AT, expiresAt);
+            LONGS.set(buffer, base + EPOCH, epoch);
+            LONGS.setRelease(buffer, base + VERSION, version + 2);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.code.challenge.user_engine.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Aleatoriedad criptográfica para salts, ids y tokens sin un monitor compartido: varios DRBG (Hash_DRBG
+ * SHA-256, NIST SP 800-90A) y cada hilo usa el que le toca por su id. Cada instancia se siembra sola desde
+ * el sistema operativo y se vuelve a sembrar periódicamente. Un pedido de 16 bytes al DRBG cuesta casi lo
+ * mismo que uno de 1 KB, así que cada franja genera de a bloques y reparte desde ahí. {@link #asSecureRandom()}
+ * expone lo mismo a APIs que piden un {@link SecureRandom}, como el {@code BCryptPasswordEncoder}. Las claves
+ * primarias salen de {@link #timeOrderedUuid()}; lo que tiene que ser impredecible, como el jti, de
+ * {@link #randomUuid()}.
+ */
+@Component
+public class RandomSource {
+    private static final int SECURITY_STRENGTH = 256;
+    private static final int BLOCK_BYTES = 1024;
+    private static final int SEQUENCE_MAX = 0xfff;
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final SecureRandom view = new StripedSecureRandom();
+
+    public RandomSource() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    RandomSource(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(newDrbg());
+        }
+    }
+
+    public void nextBytes(byte[] bytes) {
+        stripe().nextBytes(bytes);
+    }
+
+    /**
+     * UUID versión 4, equivalente a {@link UUID#randomUUID()} pero sin su {@code SecureRandom} global.
+     */
+    public UUID randomUuid() {
+        byte[] bytes = new byte[16];
+        stripe().nextBytes(bytes);
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < 8; i++) {
+            msb = (msb << 8) | (bytes[i] & 0xff);
+            lsb = (lsb << 8) | (bytes[i + 8] & 0xff);
+        }
+        msb = (msb & ~0xf000L) | 0x4000L;                              // versión 4
+        lsb = (lsb & 0x3fffffffffffffffL) | 0x8000000000000000L;        // variante IETF
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * UUID versión 7 (RFC 9562): los primeros 48 bits son milisegundos Unix, así los ids nuevos caen al final del
+     * índice en lugar de repartirse por todo el árbol. Los 12 bits siguientes son un contador que arranca en un
+     * valor al azar cada milisegundo y los 62 últimos son aleatorios. Cada franja es monótona por su cuenta, aun
+     * con el reloj atrasado; entre franjas el orden es por milisegundo, sin un contador compartido.
+     */
+    public UUID timeOrderedUuid() {
+        return timeOrderedUuid(System.currentTimeMillis());
+    }
+
+    UUID timeOrderedUuid(long nowMillis) {
+        return stripe().timeOrderedUuid(nowMillis);
+    }
+
+    public SecureRandom asSecureRandom() {
+        return view;
+    }
+
+    // El DRBG ya se resiembra solo; esto acota además cuánto tiempo vive un mismo estado
+    @Scheduled(fixedDelayString = "${random.reseed-interval-ms:3600000}",
+            initialDelayString = "${random.reseed-interval-ms:3600000}")
+    public void reseed() {
+        for (Stripe stripe : stripes) {
+            stripe.reseed();
+        }
+    }
+
+    int getStripes() {
+        return stripes.length;
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) Thread.currentThread().getId() & mask];
+    }
+
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(SECURITY_STRENGTH, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("DRBG is not available", e);
+        }
+    }
+
+    private static final class Stripe {
+        private final SecureRandom drbg;
+        private final byte[] block = new byte[BLOCK_BYTES];
+        private int position = BLOCK_BYTES;
+        private long lastMillis;
+        private int sequence;
+
+        Stripe(SecureRandom drbg) {
+            this.drbg = drbg;
+        }
+
+        synchronized void nextBytes(byte[] bytes) {
+            if (bytes.length > BLOCK_BYTES / 4) {
+                drbg.nextBytes(bytes);
+                return;
+            }
+            if (position + bytes.length > BLOCK_BYTES) {
+                drbg.nextBytes(block);
+                position = 0;
+            }
+            System.arraycopy(block, position, bytes, 0, bytes.length);
+            // Lo entregado no queda en memoria
+            Arrays.fill(block, position, position + bytes.length, (byte) 0);
+            position += bytes.length;
+        }
+
+        synchronized UUID timeOrderedUuid(long nowMillis) {
+            byte[] bytes = new byte[10];
+            nextBytes(bytes);
+            // El contador arranca con el bit alto en cero: deja al menos 2048 ids por milisegundo antes de desbordar
+            int seed = ((bytes[8] & 0x07) << 8) | (bytes[9] & 0xff);
+            if (nowMillis > lastMillis) {
+                lastMillis = nowMillis;
+                sequence = seed;
+            } else if (sequence < SEQUENCE_MAX) {
+                sequence++;
+            } else {
+                // Contador agotado: se toma prestado el milisegundo siguiente
+                lastMillis++;
+                sequence = seed;
+            }
+            long lsb = 0;
+            for (int i = 0; i < 8; i++) {
+                lsb = (lsb << 8) | (bytes[i] & 0xff);
+            }
+            long msb = (lastMillis << 16) | 0x7000L | sequence;             // versión 7
+            lsb = (lsb & 0x3fffffffffffffffL) | 0x8000000000000000L;        // variante IETF
+            return new UUID(msb, lsb);
+        }
+
+        synchronized byte[] generateSeed(int numBytes) {
+            return drbg.generateSeed(numBytes);
+        }
+
+        // Lo generado antes de resembrar se descarta
+        synchronized void reseed() {
+            drbg.reseed();
+            position = BLOCK_BYTES;
+        }
+    }
+
+    private final class StripedSecureRandom extends SecureRandom {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String getAlgorithm() {
+            return "DRBG";
+        }
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            stripe().nextBytes(bytes);
+        }
+
+        @Override
+        public byte[] generateSeed(int numBytes) {
+            return stripe().generateSeed(numBytes);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Claves HS512 compartidas por todos los nodos, leídas de un keystore PKCS12 local: cada alias es un
+ * {@code kid}, una de ellas firma y el resto solo verifica (rotación). Los tokens llevan el {@code kid}
+ * en el header y cada clave tiene su verificador armado de antemano. Sin keystore configurado se usa
+ * una clave aleatoria propia del proceso, válida solo en ese nodo. {@code jwt.token-profile} elige el formato
+ * de los tokens emitidos; los de cualquier perfil se verifican igual (cada clave tiene verificador HS512 y HS256).
+ * HS512 usa el secreto del keystore tal cual; HS256 usa una clave derivada de él con HKDF-Expand y el algoritmo
+ * como etiqueta, así un mismo secreto nunca firma con dos algoritmos.
+ */
+@Component
+public class SigningKeyRing {
+    static final String LOCAL_KID = "local";
+    private static final int MIN_KEY_BYTES = 64;
+    private static final Pattern KID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final String HKDF_INFO = "user-engine jwt ";
+
+    private final String activeKid;
+    private final Map<SignatureAlgorithm, Map<String, SecretKey>> keys;
+    private final HmacTokenMinter minter;
+    private final HmacTokenVerifier[] verifiers;
+    private final JwtParser parser;
+
+    @Autowired
+    public SigningKeyRing(@Value("${jwt.keystore.path:}") String keystorePath,
+                          @Value("${jwt.keystore.password:}") String keystorePassword,
+                          @Value("${jwt.keystore.active-kid:}") String activeKid,
+                          @Value("${jwt.token-profile:legacy}") String tokenProfile) {
+        // PKCS12 devuelve los alias en minúscula
+        this(keystorePath.isBlank() ? LOCAL_KID : activeKid.toLowerCase(Locale.ROOT), keystorePath.isBlank()
+                ? Map.of(LOCAL_KID, Keys.secretKeyFor(SignatureAlgorithm.HS512))
+                : load(Path.of(keystorePath), keystorePassword.toCharArray()), TokenProfile.fromProperty(tokenProfile));
+    }
+
+    SigningKeyRing(String activeKid, Map<String, SecretKey> keys) {
+        this(activeKid, keys, TokenProfile.LEGACY);
+    }
+
+    SigningKeyRing(String activeKid, Map<String, SecretKey> keys, TokenProfile profile) {
+        Map<String, SecretKey> validated = new LinkedHashMap<>();
+        keys.forEach((kid, key) -> validated.put(checkKid(kid), checkKey(kid, key)));
+        if (!validated.containsKey(activeKid)) {
+            throw new IllegalStateException("Active signing key '" + activeKid + "' is not in the key ring " + validated.keySet());
+        }
+        this.activeKid = activeKid;
+        this.keys = new EnumMap<>(SignatureAlgorithm.class);
+        for (SignatureAlgorithm algorithm : new SignatureAlgorithm[]{SignatureAlgorithm.HS512, SignatureAlgorithm.HS256}) {
+            Map<String, SecretKey> derived = new LinkedHashMap<>();
+            validated.forEach((kid, key) -> derived.put(kid, deriveKey(key, algorithm)));
+            this.keys.put(algorithm, Collections.unmodifiableMap(derived));
+        }
+        this.minter = new HmacTokenMinter(keyFor(activeKid, profile.getAlgorithm().getValue()), activeKid, profile);
+        this.verifiers = validated.keySet().stream()
+                .flatMap(kid -> this.keys.entrySet().stream()
+                        .map(entry -> new HmacTokenVerifier(entry.getValue().get(kid), kid, entry.getKey())))
+                .toArray(HmacTokenVerifier[]::new);
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return keyFor(header.getKeyId(), header.getAlgorithm());
+            }
+        }).build();
+    }
+
+    public String getActiveKid() {
+        return activeKid;
+    }
+
+    String mint(UUID subject, long issuedAtMillis, long expiresAtMillis, UUID tokenId, int tokenEpoch) {
+        return minter.mint(subject, issuedAtMillis, expiresAtMillis, tokenId, tokenEpoch);
+    }
+
+    /**
+     * Camino rápido: el header del token identifica la clave sin parsearlo.
+     *
+     * @return los claims verificados, o {@code null} si el token debe pasar por {@link #parseClaims(String)}
+     */
+    VerifiedToken verify(String token, long now) {
+        for (HmacTokenVerifier verifier : verifiers) {
+            if (verifier.handles(token)) {
+                return verifier.verify(token, now);
+            }
+        }
+        return null;
+    }
+
+    Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // Sin kid se asume la clave activa: así siguen valiendo los tokens emitidos antes del key ring
+    private SecretKey keyFor(String kid, String alg) {
+        Map<String, SecretKey> byKid = null;
+        for (Map.Entry<SignatureAlgorithm, Map<String, SecretKey>> entry : keys.entrySet()) {
+            if (entry.getKey().getValue().equals(alg)) {
+                byKid = entry.getValue();
+            }
+        }
+        if (byKid == null) {
+            throw new SignatureException("Unsupported signing algorithm '" + alg + "'");
+        }
+        SecretKey key = byKid.get(kid == null ? activeKid : kid);
+        if (key == null) {
+            throw new SignatureException("No verification key for kid '" + kid + "'");
+        }
+        return key;
+    }
+
+    /**
+     * Clave con la que {@code secret} firma en {@code algorithm}. HS512 conserva el secreto original, así siguen
+     * valiendo los tokens ya emitidos; el resto sale de HKDF-Expand (RFC 5869) con el secreto como PRK, que ya es
+     * aleatorio, y {@code "user-engine jwt " + alg} como info.
+     */
+    static SecretKey deriveKey(SecretKey secret, SignatureAlgorithm algorithm) {
+        if (algorithm == SignatureAlgorithm.HS512) {
+            return secret;
+        }
+        try {
+            Mac mac = Mac.getInstance(algorithm.getJcaName());
+            mac.init(new SecretKeySpec(secret.getEncoded(), algorithm.getJcaName()));
+            mac.update((HKDF_INFO + algorithm.getValue()).getBytes(StandardCharsets.US_ASCII));
+            // Un solo bloque T(1): la salida del HMAC ya tiene el largo de clave que pide el algoritmo
+            mac.update((byte) 1);
+            return new SecretKeySpec(mac.doFinal(), algorithm.getJcaName());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive " + algorithm.getValue() + " key", e);
+        }
+    }
+
+    private static Map<String, SecretKey> load(Path path, char[] password) {
+        try (InputStream in = Files.newInputStream(path)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, password);
+            Map<String, SecretKey> keys = new LinkedHashMap<>();
+            Enumeration<String> aliases = keyStore.aliases();
+            while (aliases.hasMoreElements()) {
+                String alias = aliases.nextElement();
+                if (keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class)) {
+                    Key key = keyStore.getKey(alias, password);
+                    keys.put(alias, new SecretKeySpec(key.getEncoded(), SignatureAlgorithm.HS512.getJcaName()));
+                }
+            }
+            return keys;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load signing keys from " + path, e);
+        }
+    }
+
+    private static String checkKid(String kid) {
+        // El kid se escribe tal cual en el header JSON
+        if (kid == null || !KID.matcher(kid).matches()) {
+            throw new IllegalStateException("Invalid key id '" + kid + "'");
+        }
+        return kid;
+    }
+
+    private static SecretKey checkKey(String kid, SecretKey key) {
+        if (key.getEncoded() == null || key.getEncoded().length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("Key '" + kid + "' must have at least 512 bits for HS512");
+        }
+        return key;
+    }
+}
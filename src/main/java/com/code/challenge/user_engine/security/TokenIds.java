@@ -0,0 +1,30 @@
+package com.code.challenge.user_engine.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Identificadores de 128 bits para tokens: el {@code jti} cuando existe, o los primeros 16 bytes
+ * del SHA-256 del token completo para valores que no lo traen.
+ */
+public final class TokenIds {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private TokenIds() {
+    }
+
+    public static UUID digestOf(String token) {
+        ByteBuffer hash = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        return new UUID(hash.getLong(), hash.getLong());
+    }
+}
@@ -0,0 +1,43 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.util.Locale;
+
+/**
+ * Formato de los JWT que emite el servicio ({@code jwt.token-profile}). Los perfiles compactos escriben
+ * {@code sub} y {@code jti} como los 16 bytes del UUID en base64url (22 caracteres en lugar de 36), no
+ * incluyen {@code iat} (nadie lo lee) y omiten {@code epoch} cuando vale 0. {@code COMPACT_HS256} además
+ * firma con HS256: 43 caracteres de firma en lugar de 86. La verificación acepta todos los perfiles a la
+ * vez, así que se puede cambiar nodo por nodo sin invalidar los tokens ya emitidos.
+ */
+enum TokenProfile {
+    LEGACY(SignatureAlgorithm.HS512, false),
+    COMPACT(SignatureAlgorithm.HS512, true),
+    COMPACT_HS256(SignatureAlgorithm.HS256, true);
+
+    private final SignatureAlgorithm algorithm;
+    private final boolean compact;
+
+    TokenProfile(SignatureAlgorithm algorithm, boolean compact) {
+        this.algorithm = algorithm;
+        this.compact = compact;
+    }
+
+    SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    boolean isCompact() {
+        return compact;
+    }
+
+    // legacy | compact | compact-hs256
+    static TokenProfile fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown jwt.token-profile '" + value + "'", e);
+        }
+    }
+}
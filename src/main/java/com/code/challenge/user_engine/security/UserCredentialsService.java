@@ -0,0 +1,52 @@
+package com.code.challenge.user_engine.security;
+
+import com.code.challenge.user_engine.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usuarios por email y clave para el {@code AuthenticationManager}. Como también es
+ * {@link UserDetailsPasswordService}, el {@code DaoAuthenticationProvider} rehace con el costo calibrado
+ * todo hash más débil apenas la clave se verifica bien (upgrade-on-verify).
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCredentialsService implements UserDetailsService, UserDetailsPasswordService {
+    private final UserRepository userRepository;
+    private final LongAdder upgrades = new LongAdder();
+
+    @Override
+    public UserDetails loadUserByUsername(String email) {
+        com.code.challenge.user_engine.model.User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return User.withUsername(user.getEmail())
+                .password(user.getPassword())
+                .disabled(!user.isActive())
+                .authorities(List.of())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        com.code.challenge.user_engine.model.User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        upgrades.increment();
+        return User.withUserDetails(userDetails).password(newPassword).build();
+    }
+
+    public long getUpgrades() {
+        return upgrades.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package com.code.challenge.user_engine.security;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Claims de un token cuya firma ya fue verificada. El filtro lo crea una sola vez por request
+ * y lo deja en el {@link JwtAuthenticationToken} para que el resto del flujo no vuelva a verificar.
+ */
+@Getter
+@RequiredArgsConstructor
+public class VerifiedToken {
+    private final String token;
+    private final UUID userId;
+    private final UUID tokenId;
+    private final long expiresAt;
+    private final int tokenEpoch;
+
+    // Tokens sin claim de epoch: son anteriores a cualquier revocación global del usuario
+    public VerifiedToken(String token, UUID userId, UUID tokenId, long expiresAt) {
+        this(token, userId, tokenId, expiresAt, 0);
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,126 @@
+package com.code.challenge.user_engine.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache acotado de tokens ya verificados. La clave es un digest SHA-256 (128 bits) del token,
+ * de modo que un acierto evita tanto la verificación HMAC como el parseo de los claims. Las entradas vencidas
+ * se barren en {@link #sweepExpired()}, fuera de los requests; al llenarse, {@link #put} solo descarta un lote
+ * chico, así que el costo por request no depende del tamaño del cache.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final Map<UUID, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("jwt.cache.max-size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public VerifiedToken get(String token) {
+        if (token == null) {
+            misses.increment();
+            return null;
+        }
+        UUID key = TokenIds.digestOf(token);
+        VerifiedToken entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    public void put(VerifiedToken verifiedToken) {
+        if (verifiedToken == null || verifiedToken.getToken() == null
+                || verifiedToken.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(TokenIds.digestOf(verifiedToken.getToken()), verifiedToken);
+    }
+
+    public void invalidate(String token) {
+        if (token != null) {
+            entries.remove(TokenIds.digestOf(token));
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Descarta las entradas vencidas. Programado cada {@code jwt.cache.sweep-interval-ms}.
+     *
+     * @return entradas descartadas
+     */
+    @Scheduled(fixedDelayString = "${jwt.cache.sweep-interval-ms:60000}")
+    public int sweepExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<VerifiedToken> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    // Descarta un lote de maxSize/16: primero vencidas dentro de una ventana acotada, después las primeras que aparezcan
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int batch = Math.max(1, maxSize / 16);
+        int removed = 0;
+        int scanned = 0;
+        Iterator<VerifiedToken> iterator = entries.values().iterator();
+        while (removed < batch && scanned++ < 4 * batch && iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        iterator = entries.values().iterator();
+        while (removed < batch && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+    }
+}
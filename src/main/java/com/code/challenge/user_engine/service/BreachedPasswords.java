@@ -0,0 +1,210 @@
+package com.code.challenge.user_engine.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Claves filtradas conocidas, sin servicios externos: un archivo local de SHA-1 de 20 bytes ordenados
+ * ({@code password-hashing.breached.path}; la lista de HIBP "ordered by hash" se convierte con
+ * {@code cut -d: -f1 | xxd -r -p}). El archivo se mapea en tramos de hasta 2 GB, nunca se copia al heap, y un
+ * índice con los primeros 8 bytes del primer registro de cada página de {@code records-per-page} registros
+ * acota la búsqueda binaria a una página: unas pocas lecturas por consulta aunque el archivo pese decenas de GB.
+ * Sin archivo configurado ninguna clave cuenta como filtrada.
+ */
+@Service
+public class BreachedPasswords {
+    static final int RECORD_BYTES = 20;
+    private static final long SEGMENT_RECORDS = Integer.MAX_VALUE / RECORD_BYTES;
+
+    private final MappedByteBuffer[] segments;
+    private final long records;
+    private final int recordsPerPage;
+    private final long[] pageKeys;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder recordReads = new LongAdder();
+
+    @Autowired
+    public BreachedPasswords(@Value("${password-hashing.breached.path:}") String path,
+                             @Value("${password-hashing.breached.records-per-page:4096}") int recordsPerPage) {
+        this(path.isBlank() ? null : Path.of(path), recordsPerPage);
+    }
+
+    BreachedPasswords(Path path, int recordsPerPage) {
+        if (recordsPerPage <= 0) {
+            throw new IllegalArgumentException("password-hashing.breached.records-per-page must be positive");
+        }
+        this.recordsPerPage = recordsPerPage;
+        if (path == null) {
+            this.segments = new MappedByteBuffer[0];
+            this.records = 0;
+            this.pageKeys = new long[0];
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % RECORD_BYTES != 0) {
+                throw new IllegalStateException("Breached password file " + path + " is not a sequence of 20-byte SHA-1 digests");
+            }
+            this.records = size / RECORD_BYTES;
+            // Los tramos cortan entre registros: ninguno queda partido en dos
+            this.segments = new MappedByteBuffer[(int) ((records + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+            for (int i = 0; i < segments.length; i++) {
+                long first = i * SEGMENT_RECORDS;
+                long count = Math.min(SEGMENT_RECORDS, records - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * RECORD_BYTES, count * RECORD_BYTES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map breached password file " + path, e);
+        }
+        this.pageKeys = new long[(int) ((records + recordsPerPage - 1) / recordsPerPage)];
+        for (int page = 0; page < pageKeys.length; page++) {
+            pageKeys[page] = keyAt((long) page * recordsPerPage);
+        }
+    }
+
+    public boolean isEnabled() {
+        return records > 0;
+    }
+
+    public boolean isBreached(String password) {
+        if (!isEnabled()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean found = contains(sha1(password));
+        lookupNanos.add(System.nanoTime() - start);
+        lookups.increment();
+        if (found) {
+            hits.increment();
+        }
+        return found;
+    }
+
+    boolean contains(byte[] digest) {
+        ByteBuffer wrapped = ByteBuffer.wrap(digest);
+        long key = wrapped.getLong(0);
+        long middle = wrapped.getLong(8);
+        int tail = wrapped.getInt(16);
+
+        // Un registro con esta clave solo puede estar entre la última página que empieza por debajo y la
+        // primera que empieza por encima; salvo colisiones de 64 bits es una sola página
+        int fromPage = lastPageBelow(key);
+        int toPage = firstPageAbove(key);
+        long low = (long) fromPage * recordsPerPage;
+        long high = Math.min((long) toPage * recordsPerPage, records) - 1;
+        int reads = 0;
+        boolean found = false;
+        while (low <= high && !found) {
+            long mid = (low + high) >>> 1;
+            int cmp = compareAt(mid, key, middle, tail);
+            reads++;
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                found = true;
+            }
+        }
+        recordReads.add(reads);
+        return found;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public int getIndexSize() {
+        return pageKeys.length;
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // Acumulado en nanosegundos; dividido por getLookups() da el promedio por consulta
+    public long getLookupNanos() {
+        return lookupNanos.sum();
+    }
+
+    // Registros del archivo leídos por la búsqueda binaria; el índice de páginas está en el heap y no cuenta
+    public long getRecordReads() {
+        return recordReads.sum();
+    }
+
+    private int lastPageBelow(long key) {
+        int low = 0;
+        int high = pageKeys.length - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(pageKeys[mid], key) < 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int firstPageAbove(long key) {
+        int low = 0;
+        int high = pageKeys.length - 1;
+        int found = pageKeys.length;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(pageKeys[mid], key) > 0) {
+                found = mid;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    private long keyAt(long record) {
+        return segments[(int) (record / SEGMENT_RECORDS)].getLong((int) (record % SEGMENT_RECORDS) * RECORD_BYTES);
+    }
+
+    private int compareAt(long record, long key, long middle, int tail) {
+        MappedByteBuffer segment = segments[(int) (record / SEGMENT_RECORDS)];
+        int offset = (int) (record % SEGMENT_RECORDS) * RECORD_BYTES;
+        int cmp = Long.compareUnsigned(segment.getLong(offset), key);
+        if (cmp == 0) {
+            cmp = Long.compareUnsigned(segment.getLong(offset + 8), middle);
+        }
+        if (cmp == 0) {
+            cmp = Integer.compareUnsigned(segment.getInt(offset + 16), tail);
+        }
+        return cmp;
+    }
+
+    static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+}
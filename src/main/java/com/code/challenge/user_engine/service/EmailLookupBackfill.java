@@ -0,0 +1,146 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.model.MigrationState;
+import com.code.challenge.user_engine.model.User;
+import com.code.challenge.user_engine.repository.MigrationStateRepository;
+import com.code.challenge.user_engine.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Completa {@code canonical_email} y {@code email_hash} en las filas de {@code users} anteriores a esas columnas,
+ * de a {@code users.email-backfill.batch-size} filas por transacción. Si dos filas solo difieren en mayúsculas, la
+ * primera en orden de id se queda con el email canónico y la otra se marca con {@code email_conflict} y un canónico
+ * propio: las búsquedas por ese email llevan a la primera, y la otra se cuenta en {@link #getConflicts()} para
+ * resolverla a mano sin dejar la migración abierta. Cada pasada registra el resultado en {@link MigrationState}:
+ * mientras no pase {@code users.email-backfill.quiet-period-ms} sin encontrar filas sin completar, las búsquedas
+ * por email que no encuentran nada por el hash prueban con el email exacto y sigue la restricción única sobre el
+ * email tal cual ({@link User#LEGACY_EMAIL_CONSTRAINT}). Con la migración completa, este nodo la borra una vez.
+ */
+@Service
+public class EmailLookupBackfill {
+    private final UserRepository userRepository;
+    private final MigrationStateRepository migrationStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long quietPeriodMillis;
+    private final Clock clock;
+    private final LongAdder backfilled = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private int passFilled;
+    private int passConflicts;
+    private boolean legacyConstraintDropped;
+
+    @Autowired
+    public EmailLookupBackfill(UserRepository userRepository, MigrationStateRepository migrationStateRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${users.email-backfill.batch-size:1000}") int batchSize,
+                               @Value("${users.email-backfill.quiet-period-ms:86400000}") long quietPeriodMillis) {
+        this(userRepository, migrationStateRepository, new TransactionTemplate(transactionManager), batchSize,
+                quietPeriodMillis, Clock.systemUTC());
+    }
+
+    EmailLookupBackfill(UserRepository userRepository, MigrationStateRepository migrationStateRepository,
+                        TransactionTemplate transactionTemplate, int batchSize, long quietPeriodMillis, Clock clock) {
+        if (batchSize <= 0 || quietPeriodMillis < 0) {
+            throw new IllegalArgumentException("users.email-backfill.batch-size must be positive and quiet-period-ms must not be negative");
+        }
+        this.userRepository = userRepository;
+        this.migrationStateRepository = migrationStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.quietPeriodMillis = quietPeriodMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Recorre una vez todas las filas sin completar. Corre al arrancar y después periódicamente, por las filas
+     * que escriban nodos con la versión anterior durante un despliegue.
+     *
+     * @return cuántas filas completó
+     */
+    @Scheduled(fixedDelayString = "${users.email-backfill.interval-ms:60000}")
+    public synchronized int backfill() {
+        passFilled = 0;
+        passConflicts = 0;
+        UUID after = null;
+        do {
+            UUID from = after;
+            after = transactionTemplate.execute(status -> fillBatch(from));
+        } while (after != null);
+        boolean foundPending = passFilled + passConflicts > 0;
+        MigrationState state = transactionTemplate.execute(status -> recordPass(foundPending));
+        userRepository.reloadEmailLookupState();
+        if (state.isComplete() && !legacyConstraintDropped) {
+            userRepository.dropLegacyEmailConstraint();
+            legacyConstraintDropped = true;
+        }
+        backfilled.add(passFilled);
+        conflicts.add(passConflicts);
+        passes.increment();
+        return passFilled;
+    }
+
+    public long getBackfilled() {
+        return backfilled.sum();
+    }
+
+    // Filas que este nodo marcó con email_conflict porque otra ya tenía su email canónico
+    public long getConflicts() {
+        return conflicts.sum();
+    }
+
+    public long getPasses() {
+        return passes.sum();
+    }
+
+    // Devuelve el último id del tramo para seguir desde ahí, o null si no quedan más
+    private UUID fillBatch(UUID after) {
+        PageRequest page = PageRequest.of(0, batchSize);
+        List<User> users = after == null
+                ? userRepository.findByEmailHashIsNullOrderByIdAsc(page)
+                : userRepository.findByEmailHashIsNullAndIdGreaterThanOrderByIdAsc(after, page);
+        if (users.isEmpty()) {
+            return null;
+        }
+        Set<Long> hashes = users.stream()
+                .map(user -> User.emailHash(User.canonicalEmail(user.getEmail())))
+                .collect(Collectors.toSet());
+        // El canónico es único: una fila con el mismo, en la base o antes en este tramo, ya lo tiene. El hash solo
+        // trae los candidatos
+        Set<String> taken = new HashSet<>(userRepository.findCanonicalEmailsByEmailHashIn(hashes));
+        for (User user : users) {
+            if (taken.add(User.canonicalEmail(user.getEmail()))) {
+                user.canonicalizeEmail(); // lo escribe el flush del commit
+                passFilled++;
+            } else {
+                user.markEmailConflict();
+                passConflicts++;
+            }
+        }
+        return users.size() < batchSize ? null : users.get(users.size() - 1).getId();
+    }
+
+    // Sin fila todavía (primera pasada de esta versión) se arranca el período de espera desde ahora
+    private MigrationState recordPass(boolean foundPending) {
+        long now = clock.millis();
+        MigrationState state = migrationStateRepository.findById(MigrationState.EMAIL_LOOKUP)
+                .orElseGet(() -> MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(now).build());
+        state.recordPass(foundPending, now, quietPeriodMillis);
+        return migrationStateRepository.save(state);
+    }
+}
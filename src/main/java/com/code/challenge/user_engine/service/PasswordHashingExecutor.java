@@ -0,0 +1,122 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.exception.HashingOverloadedException;
+import com.code.challenge.user_engine.exception.InvalidDataException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hilos dedicados a BCrypt, tantos como CPUs, con una cola acotada. Con la cola llena el hash se rechaza en
+ * el acto ({@link HashingOverloadedException}, 503) en lugar de acumular requests: un pico de sign-ups no
+ * retiene hilos de Tomcat ni deja sin CPU a los {@code /login}. En el mismo hilo, antes del hash, se busca la
+ * clave en {@link BreachedPasswords}; una clave filtrada se rechaza sin gastar un BCrypt.
+ */
+@Service
+public class PasswordHashingExecutor {
+
+    static final String BREACHED_PASSWORD = "La clave figura en filtraciones conocidas, elija otra";
+
+    private final PasswordEncoder passwordEncoder;
+    private final BreachedPasswords breachedPasswords;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    @Autowired
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder, BreachedPasswords breachedPasswords,
+                                   @Value("${password-hashing.threads:0}") int threads,
+                                   @Value("${password-hashing.queue-capacity:64}") int queueCapacity) {
+        if (threads < 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("password-hashing.threads must not be negative and queue-capacity must be positive");
+        }
+        this.passwordEncoder = passwordEncoder;
+        this.breachedPasswords = breachedPasswords;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger created = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return el hash, o un future fallido con {@link HashingOverloadedException} si la cola está llena o con
+     * {@link InvalidDataException} si la clave está filtrada. Cancelar el future antes de que el hash empiece
+     * libera el lugar sin calcularlo
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                // Cancelado mientras esperaba en la cola (p. ej. el email ya existía): no se gasta el BCrypt
+                if (result.isDone()) {
+                    return;
+                }
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                try {
+                    if (breachedPasswords.isBreached(rawPassword)) {
+                        result.completeExceptionally(new InvalidDataException(BREACHED_PASSWORD));
+                        return;
+                    }
+                    result.complete(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new HashingOverloadedException());
+        }
+        return result;
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Acumulados en nanosegundos; divididos por getCompleted() dan el promedio por hash
+    public long getQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    public long getHashNanos() {
+        return hashNanos.sum();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,96 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.exception.InvalidTokenException;
+import com.code.challenge.user_engine.model.RefreshToken;
+import com.code.challenge.user_engine.repository.RefreshTokenRepository;
+import com.code.challenge.user_engine.security.RandomSource;
+import com.code.challenge.user_engine.security.TokenIds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh tokens de larga duración con {@code jwt.refresh.enabled}: los access tokens duran minutos y
+ * se verifican sin estado, así que lo único que hace falta revocar son estos tokens. Viven en la tabla
+ * {@code refresh_tokens} (compartida por todos los nodos) y rotan en cada uso.
+ */
+@Service
+public class RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final boolean enabled;
+    private final long expirationMillis;
+    private final Clock clock;
+    private final RandomSource randomSource;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh.enabled:false}") boolean enabled,
+                               @Value("${jwt.refresh.expiration:1209600}") long expirationSeconds,
+                               RandomSource randomSource) {
+        this(refreshTokenRepository, enabled, expirationSeconds * 1000, Clock.systemUTC(), randomSource);
+    }
+
+    RefreshTokenService(RefreshTokenRepository refreshTokenRepository, boolean enabled, long expirationMillis, Clock clock,
+                        RandomSource randomSource) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.enabled = enabled;
+        this.expirationMillis = expirationMillis;
+        this.clock = clock;
+        this.randomSource = randomSource;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issue(UUID userId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        randomSource.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .id(TokenIds.digestOf(token))
+                .userId(userId)
+                .expiresAt(clock.millis() + expirationMillis)
+                .build());
+        return token;
+    }
+
+    /**
+     * Invalida el token y devuelve su usuario; el llamador emite el par nuevo.
+     */
+    @Transactional
+    public UUID consume(String token) {
+        if (!enabled) {
+            throw new InvalidTokenException("Refresh tokens are disabled");
+        }
+        if (token == null || token.isBlank()) {
+            throw new InvalidTokenException("Refresh token is required");
+        }
+        UUID id = TokenIds.digestOf(token);
+        RefreshToken stored = refreshTokenRepository.findById(id)
+                .orElseThrow(() -> new InvalidTokenException("Invalid refresh token"));
+        if (refreshTokenRepository.deleteIfValid(id, clock.millis()) == 0) {
+            throw new InvalidTokenException("Refresh token expired");
+        }
+        return stored.getUserId();
+    }
+
+    @Transactional
+    public void revokeAll(UUID userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        return refreshTokenRepository.deleteExpired(clock.millis());
+    }
+}
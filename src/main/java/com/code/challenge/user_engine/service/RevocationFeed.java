@@ -0,0 +1,234 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.model.Revocation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Propaga las revocaciones entre nodos por la tabla {@code revocations}. Las locales se encolan y se
+ * escriben en lote; cada nodo lee periódicamente las filas por encima de su high-water mark y las
+ * aplica a su {@link TokenBlacklist} y sus {@link TokenEpochs}, así el chequeo por request sigue
+ * siendo solo en memoria y los nodos convergen en {@code jwt.revocation-feed.poll-interval-ms}.
+ */
+@Service
+public class RevocationFeed {
+    static final String INSERT = "insert into revocations (kind, subject_msb, subject_lsb, expires_at, token_epoch) values (?, ?, ?, ?, ?)";
+    static final String SELECT_AFTER = "select seq, kind, subject_msb, subject_lsb, expires_at, token_epoch from revocations where seq > ? order by seq limit ?";
+    static final String SELECT_SEQS = "select seq, kind, subject_msb, subject_lsb, expires_at, token_epoch from revocations where seq in (%s)";
+    static final String DELETE_EXPIRED = "delete from revocations where expires_at < ?";
+    // Un flush que todavía no confirmó deja un hueco en seq; pasado este tiempo se da por confirmado que no existe
+    static final long GAP_TIMEOUT_MILLIS = 60_000;
+    // Saltos mayores vienen de filas purgadas o de identidades cacheadas por la base, no de transacciones abiertas
+    private static final long MAX_TRACKED_GAP = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenBlacklist tokenBlacklist;
+    private final TokenEpochs tokenEpochs;
+    private final Clock clock;
+    private final int batchSize;
+    private final long epochRetentionMillis;
+    private final ConcurrentLinkedDeque<Revocation> pending = new ConcurrentLinkedDeque<>();
+    private final Object flushLock = new Object();
+    private final TreeMap<Long, Long> gaps = new TreeMap<>(); // seq salteado -> cuándo se detectó
+    private final LongAdder rowsRead = new LongAdder();
+    private long highWaterMark;
+
+    @Autowired
+    public RevocationFeed(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          TokenBlacklist tokenBlacklist, TokenEpochs tokenEpochs,
+                          @Value("${jwt.revocation-feed.batch-size:500}") int batchSize,
+                          @Value("${jwt.expiration}") long expirationSeconds) {
+        this(jdbcTemplate, new TransactionTemplate(transactionManager), tokenBlacklist, tokenEpochs,
+                Clock.systemUTC(), batchSize, expirationSeconds * 1000);
+    }
+
+    RevocationFeed(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, TokenBlacklist tokenBlacklist,
+                   TokenEpochs tokenEpochs, Clock clock, int batchSize, long epochRetentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenBlacklist = tokenBlacklist;
+        this.tokenEpochs = tokenEpochs;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.epochRetentionMillis = epochRetentionMillis;
+    }
+
+    public void tokenRevoked(UUID tokenId, long expiresAt) {
+        pending.add(Revocation.builder().kind(Revocation.Kind.TOKEN)
+                .subjectMsb(tokenId.getMostSignificantBits()).subjectLsb(tokenId.getLeastSignificantBits())
+                .expiresAt(expiresAt).build());
+    }
+
+    // Los tokens del epoch anterior vencen como mucho en jwt.expiration; después la fila ya no hace falta
+    public void epochBumped(UUID userId, int tokenEpoch) {
+        pending.add(Revocation.builder().kind(Revocation.Kind.EPOCH)
+                .subjectMsb(userId.getMostSignificantBits()).subjectLsb(userId.getLeastSignificantBits())
+                .expiresAt(clock.millis() + epochRetentionMillis).tokenEpoch(tokenEpoch).build());
+    }
+
+    /**
+     * Escribe lo encolado en lotes de {@code batch-size}, una transacción por lote. Si la base falla
+     * el lote vuelve al frente de la cola y se reintenta en el próximo flush.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation-feed.flush-interval-ms:100}")
+    public int flush() {
+        synchronized (flushLock) {
+            int written = 0;
+            List<Revocation> batch = new ArrayList<>(batchSize);
+            while (drainInto(batch) > 0) {
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), RevocationFeed::bind));
+                } catch (RuntimeException e) {
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        pending.addFirst(batch.get(i));
+                    }
+                    throw e;
+                }
+                written += batch.size();
+                batch.clear();
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Aplica las filas nuevas de todos los nodos, incluidas las propias (aplicarlas de nuevo no cambia nada).
+     *
+     * @return cuántas revocaciones vigentes se aplicaron
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation-feed.poll-interval-ms:1000}")
+    public synchronized int poll() {
+        long now = clock.millis();
+        gaps.values().removeIf(detectedAt -> now - detectedAt > GAP_TIMEOUT_MILLIS);
+        int applied = recheckGaps(now);
+        long from = highWaterMark;
+        Page page;
+        do {
+            page = new Page(now);
+            jdbcTemplate.query(SELECT_AFTER, page, from, batchSize);
+            applied += page.applied;
+            from = page.lastSeq;
+        } while (page.rows == batchSize);
+        return applied;
+    }
+
+    // Cada nodo purga por su cuenta; el delete es idempotente
+    @Scheduled(fixedDelayString = "${jwt.revocation-feed.purge-interval-ms:60000}")
+    public int purgeExpired() {
+        return jdbcTemplate.update(DELETE_EXPIRED, clock.millis());
+    }
+
+    public synchronized long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // Filas leídas de la tabla, aplicadas o no: lo que cuesta cada poll
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private int drainInto(List<Revocation> batch) {
+        Revocation revocation;
+        while (batch.size() < batchSize && (revocation = pending.poll()) != null) {
+            batch.add(revocation);
+        }
+        return batch.size();
+    }
+
+    // Los huecos se buscan por clave: el tramo ya aplicado no se vuelve a leer mientras esperan
+    private int recheckGaps(long now) {
+        int applied = 0;
+        List<Long> missing = new ArrayList<>(gaps.keySet());
+        for (int i = 0; i < missing.size(); i += batchSize) {
+            List<Long> chunk = missing.subList(i, Math.min(missing.size(), i + batchSize));
+            String placeholders = chunk.stream().map(seq -> "?").collect(Collectors.joining(","));
+            Page page = new Page(now);
+            jdbcTemplate.query(String.format(SELECT_SEQS, placeholders), page, chunk.toArray());
+            applied += page.applied;
+        }
+        return applied;
+    }
+
+    // Las transacciones de distintos nodos confirman fuera de orden: un seq salteado puede aparecer después
+    private boolean accept(long seq, long now) {
+        if (seq > highWaterMark) {
+            if (seq - highWaterMark - 1 <= MAX_TRACKED_GAP) {
+                for (long missing = highWaterMark + 1; missing < seq; missing++) {
+                    gaps.put(missing, now);
+                }
+            }
+            highWaterMark = seq;
+            return true;
+        }
+        return gaps.remove(seq) != null;
+    }
+
+    private static void bind(PreparedStatement statement, Revocation revocation) throws SQLException {
+        statement.setString(1, revocation.getKind().name());
+        statement.setLong(2, revocation.getSubjectMsb());
+        statement.setLong(3, revocation.getSubjectLsb());
+        statement.setLong(4, revocation.getExpiresAt());
+        statement.setInt(5, revocation.getTokenEpoch());
+    }
+
+    private class Page implements RowCallbackHandler {
+        private final long now;
+        private int rows;
+        private int applied;
+        private long lastSeq;
+
+        Page(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long seq = rs.getLong(1);
+            rows++;
+            rowsRead.increment();
+            lastSeq = seq;
+            long expiresAt = rs.getLong(5);
+            if (!accept(seq, now) || expiresAt <= now) {
+                return;
+            }
+            long msb = rs.getLong(3);
+            long lsb = rs.getLong(4);
+            if (Revocation.Kind.EPOCH.name().equals(rs.getString(2))) {
+                tokenEpochs.record(new UUID(msb, lsb), rs.getInt(6));
+            } else {
+                tokenBlacklist.applyReplicated(msb, lsb, expiresAt);
+            }
+            applied++;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.code.challenge.user_engine.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Log de revocaciones de solo-append sobre un archivo mapeado en memoria. Cada registro ocupa 24 bytes
+ * (msb, lsb, expiración); el header guarda la cantidad de registros válidos. {@link TokenBlacklist} lo
+ * reproduce al arrancar y lo compacta, reescribiendo solo las entradas vigentes, si encontró vencidas.
+ * <p>
+ * Java no tiene API pública para desmapear un {@link MappedByteBuffer}: cerrar el canal no libera el mapeo, que
+ * sigue ocupando espacio de direcciones (y el disco del archivo reemplazado) hasta que el GC recolecta el buffer.
+ * Por eso los remapeos se acotan: {@link #append} duplica la capacidad al crecer, así que hay a lo sumo unos
+ * log2(registros) en la vida del log, y {@link #compact} deja un solo mapeo viejo porque adopta el del archivo
+ * compactado en lugar de volver a mapearlo.
+ */
+public final class RevocationLog implements Closeable {
+    private static final int MAGIC = 0x52564B4C; // "RVKL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_BYTES = 24;
+    private static final int MIN_RECORDS = 4_096;
+    // Un MappedByteBuffer direcciona con int: no entran más registros que estos en un solo mapeo
+    static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    private int capacity;
+
+    private RevocationLog(Path path) {
+        this.path = path;
+    }
+
+    public static RevocationLog open(Path path) {
+        RevocationLog log = new RevocationLog(path);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            log.map(Math.max(MIN_RECORDS, recordsIn(path)));
+            log.readHeader();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open revocation log " + path, e);
+        }
+        return log;
+    }
+
+    public synchronized void append(long msb, long lsb, long expiresAt) {
+        if (count == capacity) {
+            grow();
+        }
+        int offset = offsetOf(count);
+        buffer.putLong(offset, msb);
+        buffer.putLong(offset + 8, lsb);
+        buffer.putLong(offset + 16, expiresAt);
+        // El contador se publica después del registro: un corte a mitad pierde la última entrada, no la corrompe
+        buffer.putInt(COUNT_OFFSET, ++count);
+    }
+
+    /**
+     * Recorre los registros que siguen vigentes en {@code now}.
+     *
+     * @return cantidad de registros entregados
+     */
+    public synchronized int replay(long now, RecordVisitor visitor) {
+        int live = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = offsetOf(i);
+            long expiresAt = buffer.getLong(offset + 16);
+            if (expiresAt > now) {
+                visitor.visit(buffer.getLong(offset), buffer.getLong(offset + 8), expiresAt);
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Reescribe el log con los registros vigentes y reemplaza el archivo de forma atómica. El archivo nuevo mide lo
+     * vigente (o el mínimo inicial): la compactación lo achica, y su mapeo pasa a ser el del log.
+     *
+     * @return cantidad de registros descartados
+     */
+    public synchronized int compact(long now) {
+        int live = 0;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getLong(offsetOf(i) + 16) > now) {
+                live++;
+            }
+        }
+        int records = Math.max(MIN_RECORDS, live);
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        FileChannel target = null;
+        try {
+            target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer out = target.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes(records));
+            int written = 0;
+            for (int i = 0; i < count; i++) {
+                int offset = offsetOf(i);
+                if (buffer.getLong(offset + 16) > now) {
+                    int targetOffset = offsetOf(written++);
+                    out.putLong(targetOffset, buffer.getLong(offset));
+                    out.putLong(targetOffset + 8, buffer.getLong(offset + 8));
+                    out.putLong(targetOffset + 16, buffer.getLong(offset + 16));
+                }
+            }
+            out.putInt(0, MAGIC);
+            out.putInt(4, VERSION);
+            out.putInt(COUNT_OFFSET, live);
+            out.force();
+            // El rename conserva el inodo: el canal y el mapeo del compactado quedan apuntando al log
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = target;
+            buffer = out;
+            capacity = records;
+        } catch (IOException e) {
+            if (target != null) {
+                try {
+                    target.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new UncheckedIOException("Cannot compact revocation log " + path, e);
+        }
+
+        int dropped = count - live;
+        count = live;
+        return dropped;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot close revocation log " + path, e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        int magic = buffer.getInt(0);
+        if (magic == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(COUNT_OFFSET, 0);
+            count = 0;
+            return;
+        }
+        if (magic != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a revocation log: " + path);
+        }
+        count = Math.min(buffer.getInt(COUNT_OFFSET), capacity);
+    }
+
+    private void grow() {
+        if (capacity >= MAX_RECORDS) {
+            throw new IllegalStateException("Revocation log is full: " + path);
+        }
+        try {
+            // El mapeo anterior se libera cuando el GC recolecta el buffer; duplicar mantiene pocos pendientes
+            channel.close();
+            map((int) Math.min(2L * capacity, MAX_RECORDS));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow revocation log " + path, e);
+        }
+    }
+
+    private void map(int records) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long bytes = Math.min(Math.max(fileBytes(records), channel.size()), fileBytes(MAX_RECORDS));
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = (int) ((bytes - HEADER_BYTES) / RECORD_BYTES);
+    }
+
+    private static int recordsIn(Path path) throws IOException {
+        return Files.exists(path) ? (int) Math.min(MAX_RECORDS, Math.max(0, (Files.size(path) - HEADER_BYTES) / RECORD_BYTES)) : 0;
+    }
+
+    // En long: count * RECORD_BYTES en int desborda pasados los 89 millones de registros
+    static int offsetOf(int record) {
+        return Math.toIntExact(HEADER_BYTES + (long) record * RECORD_BYTES);
+    }
+
+    private static long fileBytes(int records) {
+        return HEADER_BYTES + (long) records * RECORD_BYTES;
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(long msb, long lsb, long expiresAt);
+    }
+}
@@ -0,0 +1,310 @@
+package com.code.challenge.user_engine.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Conjunto de claves de 128 bits con expiración, en un arreglo primitivo con direccionamiento abierto
+ * (sondeo lineal) y un filtro de Bloom por bloques delante. Las consultas no reservan memoria: usan
+ * lectura optimista y, si la clave no está en el Bloom, ni siquiera tocan la tabla.
+ */
+public final class RevocationSet {
+    private static final long BUCKET_MILLIS = 1000;
+    private static final int SLOT_LONGS = 3; // msb, lsb y expiración contiguos: un solo fallo de cache por slot
+    private static final int BLOOM_HASHES = 3;
+    private static final int BLOOM_BITS_PER_SLOT = 8;
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    // Expiraciones agrupadas por segundo para purgar en O(expirados)
+    private final TreeMap<Long, KeyBatch> expiryBuckets = new TreeMap<>();
+
+    private long[] slots;      // (0, 0) en msb/lsb marca un slot libre
+    private long[] bloom;
+    private int capacity;
+    private int size;
+    private int removedSinceBloomRebuild;
+    // Las expiraciones llegan casi ordenadas; se evita buscar en el TreeMap para cada alta
+    private long lastBucket = Long.MIN_VALUE;
+    private KeyBatch lastBatch;
+
+    public RevocationSet(int expectedSize) {
+        allocate(tableCapacityFor(expectedSize));
+    }
+
+    /**
+     * @return {@code true} si la clave no estaba presente
+     */
+    public boolean add(long msb, long lsb, long expiresAt) {
+        if ((msb | lsb) == 0) {
+            lsb = 1;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 4L > capacity * 3L) {
+                allocate(capacity * 2);
+            }
+            int base = findSlot(slots, capacity - 1, msb, lsb) * SLOT_LONGS;
+            boolean added = (slots[base] | slots[base + 1]) == 0;
+            if (added) {
+                slots[base] = msb;
+                slots[base + 1] = lsb;
+                size++;
+                setBloom(bloom, msb, lsb);
+            } else if (slots[base + 2] >= expiresAt) {
+                return false;
+            }
+            slots[base + 2] = expiresAt;
+            if (expiresAt != Long.MAX_VALUE) {
+                batchFor(bucketOf(expiresAt)).add(msb, lsb);
+            }
+            return added;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void ensureCapacity(int expectedSize) {
+        long stamp = lock.writeLock();
+        try {
+            int required = tableCapacityFor(expectedSize);
+            if (required > capacity) {
+                allocate(required);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(long msb, long lsb, long now) {
+        if ((msb | lsb) == 0) {
+            lsb = 1;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = lookup(msb, lsb, now);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup(msb, lsb, now);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Elimina las claves cuyos buckets de expiración ya pasaron.
+     *
+     * @return cantidad de claves eliminadas
+     */
+    public int purgeExpired(long now) {
+        long currentBucket = bucketOf(now);
+        long stamp = lock.writeLock();
+        try {
+            int purged = 0;
+            Map.Entry<Long, KeyBatch> bucket;
+            while ((bucket = expiryBuckets.firstEntry()) != null && bucket.getKey() < currentBucket) {
+                expiryBuckets.pollFirstEntry();
+                if (bucket.getValue() == lastBatch) {
+                    lastBatch = null;
+                    lastBucket = Long.MIN_VALUE;
+                }
+                KeyBatch batch = bucket.getValue();
+                for (int i = 0; i < batch.count; i += 2) {
+                    if (removeIfExpiredBy(batch.keys[i], batch.keys[i + 1], bucket.getKey())) {
+                        purged++;
+                    }
+                }
+            }
+            removedSinceBloomRebuild += purged;
+            // Los bits de las claves borradas siguen prendidos; se reconstruye cuando pesan demasiado
+            if (removedSinceBloomRebuild > Math.max(size, MIN_CAPACITY)) {
+                rebuildBloom();
+            }
+            return purged;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private boolean lookup(long msb, long lsb, long now) {
+        if (!mightContain(bloom, msb, lsb)) {
+            return false;
+        }
+        long[] table = slots;
+        int mask = table.length / SLOT_LONGS - 1;
+        int slot = (int) mix(msb, lsb) & mask;
+        // Acotado por la capacidad: una lectura optimista durante un resize no puede quedar en bucle
+        for (int probes = 0; probes <= mask; probes++) {
+            int base = slot * SLOT_LONGS;
+            long slotMsb = table[base];
+            long slotLsb = table[base + 1];
+            if (slotMsb == msb && slotLsb == lsb) {
+                return table[base + 2] > now;
+            }
+            if ((slotMsb | slotLsb) == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private KeyBatch batchFor(long bucket) {
+        if (bucket != lastBucket || lastBatch == null) {
+            lastBatch = expiryBuckets.computeIfAbsent(bucket, key -> new KeyBatch());
+            lastBucket = bucket;
+        }
+        return lastBatch;
+    }
+
+    private boolean removeIfExpiredBy(long msb, long lsb, long bucket) {
+        int slot = findSlot(slots, capacity - 1, msb, lsb);
+        int base = slot * SLOT_LONGS;
+        if ((slots[base] | slots[base + 1]) == 0) {
+            return false;
+        }
+        // Una clave revocada otra vez con una expiración posterior sigue viva
+        long expiresAt = slots[base + 2];
+        if (expiresAt == Long.MAX_VALUE || bucketOf(expiresAt) > bucket) {
+            return false;
+        }
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+
+    // Borrado con corrimiento hacia atrás: mantiene las cadenas de sondeo sin lápidas
+    private void deleteSlot(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while ((slots[next * SLOT_LONGS] | slots[next * SLOT_LONGS + 1]) != 0) {
+            int home = (int) mix(slots[next * SLOT_LONGS], slots[next * SLOT_LONGS + 1]) & mask;
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                System.arraycopy(slots, next * SLOT_LONGS, slots, hole * SLOT_LONGS, SLOT_LONGS);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole * SLOT_LONGS] = 0;
+        slots[hole * SLOT_LONGS + 1] = 0;
+        slots[hole * SLOT_LONGS + 2] = 0;
+    }
+
+    private static int findSlot(long[] table, int mask, long msb, long lsb) {
+        int slot = (int) mix(msb, lsb) & mask;
+        while (true) {
+            long slotMsb = table[slot * SLOT_LONGS];
+            long slotLsb = table[slot * SLOT_LONGS + 1];
+            if ((slotMsb == msb && slotLsb == lsb) || (slotMsb | slotLsb) == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        long[] oldSlots = slots;
+        long[] newSlots = new long[newCapacity * SLOT_LONGS];
+        if (oldSlots != null) {
+            for (int base = 0; base < oldSlots.length; base += SLOT_LONGS) {
+                long msb = oldSlots[base];
+                long lsb = oldSlots[base + 1];
+                if ((msb | lsb) != 0) {
+                    int target = findSlot(newSlots, newCapacity - 1, msb, lsb) * SLOT_LONGS;
+                    System.arraycopy(oldSlots, base, newSlots, target, SLOT_LONGS);
+                }
+            }
+        }
+        slots = newSlots;
+        capacity = newCapacity;
+        rebuildBloom();
+    }
+
+    private void rebuildBloom() {
+        long[] bits = new long[Math.max(1, capacity * BLOOM_BITS_PER_SLOT / 64)];
+        for (int base = 0; base < slots.length; base += SLOT_LONGS) {
+            long msb = slots[base];
+            long lsb = slots[base + 1];
+            if ((msb | lsb) != 0) {
+                setBloom(bits, msb, lsb);
+            }
+        }
+        bloom = bits;
+        removedSinceBloomRebuild = 0;
+    }
+
+    // Bloom por bloques: los bits de una clave caen en la misma palabra, un solo acceso a memoria
+    private static void setBloom(long[] bits, long msb, long lsb) {
+        long hash = mix(lsb, msb);
+        bits[(int) (hash >>> 32) & (bits.length - 1)] |= bloomMask(hash);
+    }
+
+    private static boolean mightContain(long[] bits, long msb, long lsb) {
+        long hash = mix(lsb, msb);
+        long mask = bloomMask(hash);
+        return (bits[(int) (hash >>> 32) & (bits.length - 1)] & mask) == mask;
+    }
+
+    private static long bloomMask(long hash) {
+        long mask = 0;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            mask |= 1L << (hash >>> (i * 6));
+        }
+        return mask;
+    }
+
+    private static long mix(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int tableCapacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < Math.max(expectedSize, 1) * 4L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long bucketOf(long millis) {
+        return millis / BUCKET_MILLIS;
+    }
+
+    private static final class KeyBatch {
+        private long[] keys = new long[8];
+        private int count;
+
+        private void add(long msb, long lsb) {
+            if (count == keys.length) {
+                long[] grown = new long[keys.length * 2];
+                System.arraycopy(keys, 0, grown, 0, count);
+                keys = grown;
+            }
+            keys[count++] = msb;
+            keys[count++] = lsb;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.code.challenge.user_engine.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hilos para lo que sigue al hash en {@code /sign-up}: firma del token, insert y refresh token. Van
+ * aparte de {@link PasswordHashingExecutor} para que una base lenta, o la espera de una conexión de Hikari, no
+ * ocupe los hilos de BCrypt y haga rechazar sign-ups con la CPU libre. La cola no tiene límite: lo que llega
+ * acá ya pasó por la cola acotada del hash, que es la que pone el techo.
+ */
+@Service
+public class SignUpCompletionExecutor {
+
+    private final Executor executor;
+
+    @Autowired
+    public SignUpCompletionExecutor(@Value("${sign-up.completion-threads:10}") int threads) {
+        this(newPool(threads));
+    }
+
+    SignUpCompletionExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    // No implementa Executor a propósito: un bean Executor reemplazaría el applicationTaskExecutor de Spring Boot
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    public int getQueueDepth() {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0;
+    }
+
+    public int getPoolSize() {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getCorePoolSize() : 0;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private static ThreadPoolExecutor newPool(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("sign-up.completion-threads must be positive");
+        }
+        AtomicInteger created = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "sign-up-completion-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
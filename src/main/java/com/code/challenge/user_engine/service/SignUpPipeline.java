@@ -0,0 +1,24 @@
+package com.code.challenge.user_engine.service;
+
+import java.util.Locale;
+
+/**
+ * Orden de las etapas de {@code /sign-up} ({@code sign-up.pipeline}). {@code SEQUENTIAL} hashea, firma el token
+ * y lo guarda con el insert; con {@code sign-up.email-pre-check} antes busca el email y uno repetido no llega al
+ * hash. {@code PARALLEL} encola el hash y, mientras corre, firma el token con el id ya asignado y, con el chequeo
+ * activado, busca el email, cada uno en su etapa; el insert las junta y guarda el token en la misma escritura. Un
+ * email repetido cancela el hash si todavía estaba en la cola; si ya había empezado, lo gasta.
+ */
+enum SignUpPipeline {
+    SEQUENTIAL,
+    PARALLEL;
+
+    // sequential | parallel
+    static SignUpPipeline fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown sign-up.pipeline '" + value + "'", e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.code.challenge.user_engine.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Tiempo acumulado por etapa de {@code /sign-up}, para comparar los dos {@link SignUpPipeline}. Cada etapa
+ * mide su propio reloj: en el pipeline paralelo la suma de las etapas supera al total.
+ */
+@Service
+public class SignUpTimings {
+
+    public enum Stage {
+        PROBE,  // chequeo de email repetido
+        HASH,   // BCrypt, cola incluida
+        MINT,   // firma del token
+        WRITE,  // la transacción del insert, con el token y el refresh token
+        TOTAL   // de la llamada a signUp hasta la respuesta
+    }
+
+    private final LongAdder[] nanos = new LongAdder[Stage.values().length];
+    private final LongAdder[] counts = new LongAdder[Stage.values().length];
+
+    public SignUpTimings() {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new LongAdder();
+            counts[i] = new LongAdder();
+        }
+    }
+
+    <T> T time(Stage stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, start);
+        }
+    }
+
+    void record(Stage stage, long startNanos) {
+        nanos[stage.ordinal()].add(System.nanoTime() - startNanos);
+        counts[stage.ordinal()].increment();
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()].sum();
+    }
+
+    public long getCount(Stage stage) {
+        return counts[stage.ordinal()].sum();
+    }
+
+    public long getMeanMicros(Stage stage) {
+        return TimeUnit.NANOSECONDS.toMicros(getNanos(stage) / Math.max(1, getCount(stage)));
+    }
+}
@@ -1,21 +1,150 @@
 package com.code.challenge.user_engine.service;
 
-
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Tokens revocados hasta su expiración, guardados como claves de 128 bits (el {@code jti}) en un
+ * {@link RevocationSet}. Purgar recorre solo los buckets de expiración ya vencidos. Si se configura
+ * {@code jwt.blacklist.log-path} las revocaciones también se escriben en un {@link RevocationLog}
+ * que se reproduce al arrancar, compactándolo si tenía registros vencidos. El request solo agrega al log; la compactación corre en
+ * {@link #compactLog()}, programada cada {@code jwt.blacklist.compaction-interval-ms}.
+ */
 @Service
 public class TokenBlacklist {
-    private final Set<String> blacklistedTokens = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_EVICTIONS_BEFORE_COMPACTION = 10_000;
+
+    private final RevocationSet revokedTokens = new RevocationSet(INITIAL_CAPACITY);
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong evictionsSinceCompaction = new AtomicLong();
+    private final Clock clock;
+    private final RevocationLog revocationLog;
+
+    public TokenBlacklist() {
+        this(Clock.systemUTC());
+    }
+
+    @Autowired
+    public TokenBlacklist(@Value("${jwt.blacklist.log-path:}") String logPath) {
+        this(Clock.systemUTC(), logPath == null || logPath.isBlank() ? null : RevocationLog.open(Path.of(logPath)));
+    }
+
+    TokenBlacklist(Clock clock) {
+        this(clock, null);
+    }
+
+    TokenBlacklist(Clock clock, RevocationLog revocationLog) {
+        this.clock = clock;
+        this.revocationLog = revocationLog;
+        if (revocationLog != null) {
+            long now = clock.millis();
+            revokedTokens.ensureCapacity(revocationLog.size());
+            int live = revocationLog.replay(now, revokedTokens::add);
+            // Lo vencido mientras el proceso no corría no pasa por purgeExpired: se descarta acá para que el log
+            // no crezca de un reinicio al siguiente
+            if (live < revocationLog.size()) {
+                revocationLog.compact(now);
+            }
+        }
+    }
+
+    public void blacklistToken(UUID tokenId, long expiresAt) {
+        long now = clock.millis();
+        purgeExpired(now);
+        if (expiresAt <= now) {
+            return; // ya no puede validar, no hace falta recordarlo
+        }
+        long msb = tokenId.getMostSignificantBits();
+        long lsb = tokenId.getLeastSignificantBits();
+        if (revokedTokens.add(msb, lsb, expiresAt)) {
+            insertions.increment();
+            if (revocationLog != null) {
+                revocationLog.append(msb, lsb, expiresAt);
+            }
+        }
+    }
+
+    // Revocación hecha en otro nodo y leída del RevocationFeed: ya está en la tabla, no se escribe en el log
+    public void applyReplicated(long tokenIdMsb, long tokenIdLsb, long expiresAt) {
+        if (expiresAt > clock.millis() && revokedTokens.add(tokenIdMsb, tokenIdLsb, expiresAt)) {
+            insertions.increment();
+        }
+    }
+
+    public boolean isBlacklisted(UUID tokenId) {
+        return isBlacklisted(tokenId.getMostSignificantBits(), tokenId.getLeastSignificantBits());
+    }
+
+    public boolean isBlacklisted(long tokenIdMsb, long tokenIdLsb) {
+        return revokedTokens.contains(tokenIdMsb, tokenIdLsb, clock.millis());
+    }
+
+    public int purgeExpired() {
+        return purgeExpired(clock.millis());
+    }
+
+    /**
+     * Reescribe el log sin las revocaciones vencidas cuando lo vencido desde la última compactación supera a lo
+     * vigente. Corre fuera de los requests: la copia, el {@code force} y el reemplazo del archivo no demoran un
+     * {@code /login}.
+     *
+     * @return registros descartados del log, 0 si no hacía falta compactar
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.compaction-interval-ms:60000}")
+    public int compactLog() {
+        if (revocationLog == null) {
+            return 0;
+        }
+        long now = clock.millis();
+        purgeExpired(now);
+        long pending = evictionsSinceCompaction.get();
+        if (pending > Math.max(MIN_EVICTIONS_BEFORE_COMPACTION, revokedTokens.size())
+                && evictionsSinceCompaction.compareAndSet(pending, 0)) {
+            return revocationLog.compact(now);
+        }
+        return 0;
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+
+    public long getInsertCount() {
+        return insertions.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
 
-    public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+    @PreDestroy
+    public void close() {
+        if (revocationLog != null) {
+            revocationLog.close();
+        }
     }
 
-    public boolean isBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+    private int purgeExpired(long now) {
+        int purged = revokedTokens.purgeExpired(now);
+        if (purged == 0) {
+            return 0;
+        }
+        evictions.add(purged);
+        // Lo cuenta para compactLog(); en el request no se toca el archivo
+        if (revocationLog != null) {
+            evictionsSinceCompaction.addAndGet(purged);
+        }
+        return purged;
     }
 }
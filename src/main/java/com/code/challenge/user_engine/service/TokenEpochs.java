@@ -0,0 +1,183 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Espejo en memoria de {@code User.tokenEpoch}: un mapa primitivo UUID → int con direccionamiento
+ * abierto. Un token es válido solo si lleva el epoch vigente de su usuario, así que revocar todos los
+ * tokens de un usuario es un incremento y la memoria crece con los usuarios, no con los tokens.
+ */
+@Service
+public class TokenEpochs {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int ABSENT = -1;
+    // Usuario que no está en la base (borrado): se recuerda para no consultarla en cada request con su token.
+    // Es menor que cualquier epoch, así que si el usuario aparece después, record lo reemplaza
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+    private final Function<UUID, Optional<Integer>> loader;
+
+    private long[] keys;    // pares (msb, lsb); (0, 0) marca un slot libre
+    private int[] epochs;
+    private int size;
+
+    @Autowired
+    public TokenEpochs(UserRepository userRepository) {
+        this(userRepository::findTokenEpochById);
+    }
+
+    TokenEpochs(Function<UUID, Optional<Integer>> loader) {
+        this.loader = loader;
+        this.keys = new long[INITIAL_CAPACITY * 2];
+        this.epochs = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Un usuario que no está en memoria se lee una vez de la base; si no existe el token no vale, y la ausencia
+     * también queda en memoria.
+     */
+    public boolean isCurrent(UUID userId, int epoch) {
+        long msb = userId.getMostSignificantBits();
+        long lsb = userId.getLeastSignificantBits();
+        int current = get(msb, lsb);
+        if (current == ABSENT) {
+            current = record(msb, lsb, loader.apply(userId).orElse(MISSING));
+        }
+        if (current == MISSING) {
+            return false;
+        }
+        if (epoch > current) {
+            // Solo este servicio firma tokens: un epoch mayor lo incrementó otro nodo
+            record(msb, lsb, epoch);
+            return true;
+        }
+        return epoch == current;
+    }
+
+    public void record(UUID userId, int epoch) {
+        record(userId.getMostSignificantBits(), userId.getLeastSignificantBits(), epoch);
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int get(long msb, long lsb) {
+        if ((msb | lsb) == 0) {
+            lsb = 1;
+        }
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int epoch = lookup(msb, lsb);
+            if (lock.validate(stamp)) {
+                return epoch;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return lookup(msb, lsb);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Los epochs solo crecen: se guarda el mayor entre el conocido y el nuevo
+    private int record(long msb, long lsb, int epoch) {
+        if ((msb | lsb) == 0) {
+            lsb = 1;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 4L > epochs.length * 3L) {
+                resize(epochs.length * 2);
+            }
+            int slot = findSlot(keys, msb, lsb);
+            if ((keys[slot * 2] | keys[slot * 2 + 1]) == 0) {
+                keys[slot * 2] = msb;
+                keys[slot * 2 + 1] = lsb;
+                epochs[slot] = epoch;
+                size++;
+            } else if (epochs[slot] < epoch) {
+                epochs[slot] = epoch;
+            }
+            return epochs[slot];
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int lookup(long msb, long lsb) {
+        long[] table = keys;
+        int[] values = epochs;
+        int mask = table.length / 2 - 1;
+        if (values.length != mask + 1) {
+            return ABSENT; // lectura optimista durante un resize, se reintenta con lock
+        }
+        int slot = (int) mix(msb, lsb) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long slotMsb = table[slot * 2];
+            long slotLsb = table[slot * 2 + 1];
+            if (slotMsb == msb && slotLsb == lsb) {
+                return values[slot];
+            }
+            if ((slotMsb | slotLsb) == 0) {
+                return ABSENT;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ABSENT;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldEpochs = epochs;
+        long[] newKeys = new long[capacity * 2];
+        int[] newEpochs = new int[capacity];
+        for (int slot = 0; slot < oldEpochs.length; slot++) {
+            long msb = oldKeys[slot * 2];
+            long lsb = oldKeys[slot * 2 + 1];
+            if ((msb | lsb) != 0) {
+                int target = findSlot(newKeys, msb, lsb);
+                newKeys[target * 2] = msb;
+                newKeys[target * 2 + 1] = lsb;
+                newEpochs[target] = oldEpochs[slot];
+            }
+        }
+        keys = newKeys;
+        epochs = newEpochs;
+    }
+
+    private static int findSlot(long[] table, long msb, long lsb) {
+        int mask = table.length / 2 - 1;
+        int slot = (int) mix(msb, lsb) & mask;
+        while (true) {
+            long slotMsb = table[slot * 2];
+            long slotLsb = table[slot * 2 + 1];
+            if ((slotMsb == msb && slotLsb == lsb) || (slotMsb | slotLsb) == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static long mix(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
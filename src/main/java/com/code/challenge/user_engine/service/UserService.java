@@ -10,39 +10,187 @@ import com.code.challenge.user_engine.model.Phone;
 import com.code.challenge.user_engine.model.User;
 import com.code.challenge.user_engine.repository.UserRepository;
 import com.code.challenge.user_engine.security.JwtTokenUtil;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.JwtException;
+import com.code.challenge.user_engine.security.RandomSource;
+import com.code.challenge.user_engine.security.VerifiedToken;
+import com.code.challenge.user_engine.service.SignUpTimings.Stage;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final SignUpCompletionExecutor signUpCompletionExecutor;
+    private final TransactionTemplate transactionTemplate;
     private final JwtTokenUtil jwtTokenUtil;
     private final TokenBlacklist tokenBlacklist;
+    private final TokenEpochs tokenEpochs;
+    private final RevocationFeed revocationFeed;
+    private final RefreshTokenService refreshTokenService;
+    private final SignUpTimings signUpTimings;
+    private final RandomSource randomSource;
+    private SignUpPipeline signUpPipeline = SignUpPipeline.SEQUENTIAL;
+    private boolean emailPreCheck;
 
-    @Transactional
-    public UserResponse signUp(SignUpRequest request) {
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
-            throw new UserAlreadyExistsException(request.getEmail());
+    @Value("${sign-up.pipeline:sequential}")
+    void setSignUpPipeline(String signUpPipeline) {
+        this.signUpPipeline = SignUpPipeline.fromProperty(signUpPipeline);
+    }
+
+    @Value("${sign-up.email-pre-check:false}")
+    void setEmailPreCheck(boolean emailPreCheck) {
+        this.emailPreCheck = emailPreCheck;
+    }
+
+    public CompletableFuture<UserResponse> signUp(SignUpRequest request) {
+        return signUp(request, emailPreCheck);
+    }
+
+    // Solo el hash corre en PasswordHashingExecutor; la firma y el insert siguen en SignUpCompletionExecutor, así
+    // una base lenta no le quita hilos a BCrypt. Las transacciones solo envuelven las escrituras: ni BCrypt ni la
+    // firma del token ocupan una conexión del pool. El email repetido lo detecta la restricción única del insert;
+    // checkEmailFirst agrega antes un EXISTS para no gastar un hash en ese caso
+    public CompletableFuture<UserResponse> signUp(SignUpRequest request, boolean checkEmailFirst) {
+        return signUpPipeline == SignUpPipeline.PARALLEL
+                ? signUpInParallel(request, checkEmailFirst)
+                : signUpInSequence(request, checkEmailFirst);
+    }
+
+    // El id lo asigna la aplicación: el token se firma antes de escribir y usuario, token y refresh token van en una
+    // sola transacción. Si falla, no queda un usuario sin token y el token firmado se revoca
+    private CompletableFuture<UserResponse> signUpInSequence(SignUpRequest request, boolean checkEmailFirst) {
+        long start = System.nanoTime();
+        if (checkEmailFirst && emailTaken(request.getEmail())) {
+            return CompletableFuture.failedFuture(new UserAlreadyExistsException(request.getEmail()));
         }
+        UUID id = randomSource.timeOrderedUuid();
+        return hash(request.getPassword())
+                .thenApplyAsync(encodedPassword -> {
+                    String token = signUpTimings.time(Stage.MINT, () -> jwtTokenUtil.generateToken(id, 0));
+                    try {
+                        User user = newUser(request, id, encodedPassword, token);
+                        return completeSignUp(user, insert(user, () -> issueRefreshToken(id)), start);
+                    } catch (RuntimeException e) {
+                        jwtTokenUtil.evictToken(token);
+                        throw e;
+                    }
+                }, signUpCompletionExecutor::execute);
+    }
+
+    // Con el id asignado acá, hash, firma y chequeo de email arrancan juntos, la firma y el chequeo en
+    // SignUpCompletionExecutor, y el insert es el punto de encuentro. Si el chequeo rechaza, el hash se cancela si
+    // todavía estaba en la cola; si el sign-up falla, el token firmado se revoca para no dejar viva una sesión
+    // opaca de un usuario que no existe
+    private CompletableFuture<UserResponse> signUpInParallel(SignUpRequest request, boolean checkEmailFirst) {
+        long start = System.nanoTime();
+        UUID id = randomSource.timeOrderedUuid();
+        CompletableFuture<String> encoding = passwordHashingExecutor.encode(request.getPassword());
+        CompletableFuture<Void> probe = checkEmailFirst
+                ? CompletableFuture.runAsync(() -> {
+                    if (emailTaken(request.getEmail())) {
+                        encoding.cancel(false);
+                        throw new UserAlreadyExistsException(request.getEmail());
+                    }
+                }, signUpCompletionExecutor::execute)
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<String> minting = CompletableFuture.supplyAsync(
+                () -> signUpTimings.time(Stage.MINT, () -> jwtTokenUtil.generateToken(id, 0)), signUpCompletionExecutor::execute);
+        // El chequeo va primero: si rechazó, su excepción es la que sale, no la cancelación del hash
+        return probe.thenCombine(timed(encoding), (checked, password) -> password)
+                .thenCombineAsync(minting, (password, token) -> {
+                    User user = newUser(request, id, password, token);
+                    // Usuario y refresh token en una sola transacción: o quedan los dos o ninguno
+                    return completeSignUp(user, insert(user, () -> issueRefreshToken(id)), start);
+                }, signUpCompletionExecutor::execute)
+                .whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        minting.thenAccept(jwtTokenUtil::evictToken);
+                    }
+                });
+    }
+
+    private boolean emailTaken(String email) {
+        return signUpTimings.time(Stage.PROBE, () -> userRepository.existsByEmail(email));
+    }
+
+    private CompletableFuture<String> hash(String password) {
+        return timed(passwordHashingExecutor.encode(password));
+    }
 
+    private CompletableFuture<String> timed(CompletableFuture<String> encoding) {
+        long start = System.nanoTime();
+        return encoding.whenComplete((encoded, failure) -> {
+            if (failure == null) {
+                signUpTimings.record(Stage.HASH, start);
+            }
+        });
+    }
+
+    private <T> T write(Supplier<T> work) {
+        return signUpTimings.time(Stage.WRITE, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    private User newUser(SignUpRequest request, UUID id, String encodedPassword, String token) {
         LocalDateTime now = LocalDateTime.now();
-        User user = User.builder().name(request.getName()).email(request.getEmail()).password(passwordEncoder.encode(request.getPassword())).phones(Optional.ofNullable(request.getPhones()).orElse(List.of()).stream().map(phoneDto -> Phone.builder().number(phoneDto.getNumber()).cityCode(phoneDto.getCityCode()).countryCode(phoneDto.getCountryCode()).build()).collect(Collectors.toList())).created(now).lastLogin(now).isActive(true).build();
-        user = userRepository.saveAndFlush(user);
-        user.setToken(jwtTokenUtil.generateToken(user.getId()));
+        User user = User.builder().id(id).name(request.getName()).email(request.getEmail()).password(encodedPassword).created(now).lastLogin(now).token(token).isActive(true).build();
+        user.setPhones(Optional.ofNullable(request.getPhones()).orElse(List.of()).stream().map(phoneDto -> Phone.builder().id(randomSource.timeOrderedUuid()).number(phoneDto.getNumber()).cityCode(phoneDto.getCityCode()).countryCode(phoneDto.getCountryCode()).user(user).build()).collect(Collectors.toList()));
+        return user;
+    }
 
-        return mapToUserResponse(user);
+    // Un solo viaje a la base: sin consulta previa, dos sign-ups simultáneos con el mismo email no pueden pasar los dos.
+    // sameTransaction corre después del insert, antes del commit
+    private <T> T insert(User user, Supplier<T> sameTransaction) {
+        try {
+            return write(() -> {
+                userRepository.insert(user);
+                return sameTransaction.get();
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (violatesEmailConstraint(e)) {
+                throw new UserAlreadyExistsException(user.getEmail());
+            }
+            throw e;
+        }
+    }
+
+    // Solo la violación de uk_users_email (o de uk_users_email_legacy, que la contiene en el nombre) es un email
+    // repetido; cualquier otra se propaga tal cual
+    private static boolean violatesEmailConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                ConstraintViolationException violation = (ConstraintViolationException) cause;
+                // Según el dialecto es el nombre exacto o el mensaje del driver desde el nombre del índice
+                String constraint = violation.getConstraintName() != null
+                        ? violation.getConstraintName() : String.valueOf(violation.getSQLException().getMessage());
+                return constraint.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    private UserResponse completeSignUp(User user, String refreshToken, long start) {
+        tokenEpochs.record(user.getId(), user.getTokenEpoch());
+        UserResponse response = mapToUserResponse(user);
+        response.setRefreshToken(refreshToken);
+        signUpTimings.record(Stage.TOTAL, start);
+        return response;
     }
 
     @Transactional
@@ -51,26 +199,105 @@ public class UserService {
             throw new InvalidTokenException("Token is required");
         }
 
-        try {
-            if (!jwtTokenUtil.validateToken(token)) {
-                throw new InvalidTokenException("Invalid or expired token");
-            }
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+        if (verifiedToken == null) {
+            throw new InvalidTokenException("Invalid or expired token");
+        }
+
+        return login(verifiedToken);
+    }
+
+    // El token ya fue verificado por JwtAuthenticationFilter; no se vuelve a validar la firma
+    @Transactional
+    public UserResponse login(VerifiedToken verifiedToken) {
+        // Con refresh tokens las sesiones solo se renuevan en /refresh: canjear acá un access token de minutos por
+        // otro alargaría la sesión sin límite y sin pasar por la rotación del refresh token
+        if (refreshTokenService.isEnabled()) {
+            throw new InvalidTokenException("Token login is disabled with refresh tokens, use /refresh");
+        }
+        User user = userRepository.findWithPhonesById(verifiedToken.getUserId()).orElseThrow(() -> new UserNotFoundException("User not found"));
+        if (!user.isActive()) {
+            throw new InvalidTokenException("User is not active");
+        }
 
-            UUID userId = jwtTokenUtil.getUserIdFromToken(token);
-            User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        user.setLastLogin(LocalDateTime.now());
+        String newToken = jwtTokenUtil.generateToken(user.getId(), user.getTokenEpoch());
+        user.setToken(newToken);
+        user = userRepository.save(user);
+        afterCommit(() -> {
+            tokenBlacklist.blacklistToken(verifiedToken.getTokenId(), verifiedToken.getExpiresAt());
+            revocationFeed.tokenRevoked(verifiedToken.getTokenId(), verifiedToken.getExpiresAt());
+            jwtTokenUtil.evictToken(verifiedToken.getToken());
+        });
 
-            user.setLastLogin(LocalDateTime.now());
-            String newToken = jwtTokenUtil.generateToken(user.getId());
-            user.setToken(newToken);
-            tokenBlacklist.blacklistToken(token);
-            user = userRepository.save(user);
+        return mapToUserResponse(user);
+    }
 
-            return mapToUserResponse(user);
-        } catch (ExpiredJwtException e) {
-            throw new InvalidTokenException("Token expired");
-        } catch (JwtException e) {
-            throw new InvalidTokenException("Invalid token");
+    // El refresh token usado queda consumido y se emite un par nuevo
+    @Transactional
+    public UserResponse refresh(String refreshToken) {
+        UUID userId = refreshTokenService.consume(refreshToken);
+        User user = userRepository.findWithPhonesById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        if (!user.isActive()) {
+            throw new InvalidTokenException("User is not active");
         }
+
+        user.setToken(jwtTokenUtil.generateToken(user.getId(), user.getTokenEpoch()));
+        user = userRepository.save(user);
+
+        return withRefreshToken(mapToUserResponse(user));
+    }
+
+    // Cierra todas las sesiones del usuario con un incremento, sin pasar cada token por la blacklist
+    @Transactional
+    public void revokeAllTokens(UUID userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        bumpTokenEpoch(user);
+    }
+
+    @Transactional
+    public void deactivate(UUID userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
+        user.setActive(false);
+        bumpTokenEpoch(user);
+    }
+
+    private void bumpTokenEpoch(User user) {
+        user.setTokenEpoch(user.getTokenEpoch() + 1);
+        user.setToken(null);
+        userRepository.save(user);
+        refreshTokenService.revokeAll(user.getId());
+        UUID userId = user.getId();
+        int tokenEpoch = user.getTokenEpoch();
+        afterCommit(() -> {
+            tokenEpochs.record(userId, tokenEpoch);
+            revocationFeed.epochBumped(userId, tokenEpoch);
+        });
+    }
+
+    // Las revocaciones en memoria y en el feed se aplican recién con el commit: si la transacción se deshace, el
+    // token presentado sigue valiendo en la base y en todos los nodos. Sin transacción activa corren en el acto
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private UserResponse withRefreshToken(UserResponse response) {
+        response.setRefreshToken(issueRefreshToken(response.getId()));
+        return response;
+    }
+
+    // Tiene que correr dentro de la transacción que guarda el access token
+    private String issueRefreshToken(UUID userId) {
+        return refreshTokenService.isEnabled() ? refreshTokenService.issue(userId) : null;
     }
 
     private UserResponse mapToUserResponse(User user) {
@@ -0,0 +1,26 @@
+package com.code.challenge.user_engine.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Email de sign-up: 7 letras, {@code @}, un dominio de 3 a 30 caracteres (letras, dígitos, {@code .} y
+ * {@code -}), un punto y de 2 a 10 letras. Acepta exactamente lo mismo que el regex
+ * {@code ^[A-Za-z]{7}@[A-Za-z0-9.-]{3,30}\.[A-Za-z]{2,10}$}. {@code null} es válido (lo cubre {@code @NotBlank}).
+ */
+@Documented
+@Constraint(validatedBy = SignUpEmailValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SignUpEmail {
+    String message() default "El correo debe tener exactamente 7 letras en el usuario y un formato válido";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
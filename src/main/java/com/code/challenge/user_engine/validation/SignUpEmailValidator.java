@@ -0,0 +1,58 @@
+package com.code.challenge.user_engine.validation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * Una sola pasada sin reservar memoria. Como el TLD no admite puntos, el separador es siempre el último
+ * punto: basta con recordar dónde está y si desde entonces solo hubo letras.
+ */
+public class SignUpEmailValidator implements ConstraintValidator<SignUpEmail, CharSequence> {
+    private static final int USER_LETTERS = 7;
+    private static final int MIN_DOMAIN = 3;
+    private static final int MAX_DOMAIN = 30;
+    private static final int MIN_TLD = 2;
+    private static final int MAX_TLD = 10;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isValid(value);
+    }
+
+    public static boolean isValid(CharSequence value) {
+        int length = value.length();
+        if (length < USER_LETTERS + 1 + MIN_DOMAIN + 1 + MIN_TLD || length > USER_LETTERS + 1 + MAX_DOMAIN + 1 + MAX_TLD) {
+            return false;
+        }
+        for (int i = 0; i < USER_LETTERS; i++) {
+            if (!isLetter(value.charAt(i))) {
+                return false;
+            }
+        }
+        if (value.charAt(USER_LETTERS) != '@') {
+            return false;
+        }
+        int lastDot = -1;
+        boolean lettersSinceDot = false;
+        for (int i = USER_LETTERS + 1; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                lastDot = i;
+                lettersSinceDot = true;
+            } else if ((c >= '0' && c <= '9') || c == '-') {
+                lettersSinceDot = false;
+            } else if (!isLetter(c)) {
+                return false;
+            }
+        }
+        int domain = lastDot - (USER_LETTERS + 1);
+        int tld = length - lastDot - 1;
+        return lastDot >= 0 && lettersSinceDot
+                && domain >= MIN_DOMAIN && domain <= MAX_DOMAIN
+                && tld >= MIN_TLD && tld <= MAX_TLD;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
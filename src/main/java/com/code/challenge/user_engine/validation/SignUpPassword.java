@@ -0,0 +1,26 @@
+package com.code.challenge.user_engine.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Clave de sign-up: de 8 a 12 letras y dígitos ASCII, con exactamente una mayúscula y exactamente dos dígitos.
+ * Acepta exactamente lo mismo que el regex
+ * {@code ^(?=[^A-Z]*[A-Z][^A-Z]*$)(?=(?:[^0-9]*[0-9]){2}[^0-9]*$)[a-zA-Z\d]{8,12}$}. {@code null} es válido.
+ */
+@Documented
+@Constraint(validatedBy = SignUpPasswordValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SignUpPassword {
+    String message() default "La clave debe tener solo una Mayúscula y solamente dos números, minúsculas, largo máximo de 12 y mínimo 8";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
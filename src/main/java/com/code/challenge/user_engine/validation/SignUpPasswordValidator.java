@@ -0,0 +1,38 @@
+package com.code.challenge.user_engine.validation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * Una sola pasada sin reservar memoria: cuenta mayúsculas y dígitos y corta ante cualquier otro carácter
+ * que no sea una minúscula ASCII.
+ */
+public class SignUpPasswordValidator implements ConstraintValidator<SignUpPassword, CharSequence> {
+    private static final int MIN_LENGTH = 8;
+    private static final int MAX_LENGTH = 12;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isValid(value);
+    }
+
+    public static boolean isValid(CharSequence value) {
+        int length = value.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return false;
+        }
+        int uppercase = 0;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                uppercase++;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return uppercase == 1 && digits == 2;
+    }
+}
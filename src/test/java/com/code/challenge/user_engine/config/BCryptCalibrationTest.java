@@ -0,0 +1,35 @@
+package com.code.challenge.user_engine.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BCryptCalibrationTest {
+
+    @Test
+    void shouldKeepFloorWhenTargetIsBelowIt() {
+        BCryptCalibration calibration = BCryptCalibration.calibrate(1, 5);
+
+        assertThat(calibration.getStrength()).isEqualTo(5);
+        assertThat(calibration.getTargetMillis()).isEqualTo(1);
+        assertThat(calibration.getHashMillis()).isPositive();
+    }
+
+    @Test
+    void shouldRaiseStrengthUpToTarget() {
+        // Cada punto duplica el tiempo: con el piso a 1 ms, 8 ms son tres puntos más y 15 ms todavía no llegan a cuatro
+        assertThat(BCryptCalibration.strengthFor(1_000_000, 8_000_000, 4)).isEqualTo(7);
+        assertThat(BCryptCalibration.strengthFor(1_000_000, 15_999_999, 4)).isEqualTo(7);
+        assertThat(BCryptCalibration.strengthFor(1_000_000, 16_000_000, 4)).isEqualTo(8);
+        assertThat(BCryptCalibration.strengthFor(1_000_000, 1_999_999, 10)).isEqualTo(10);
+        assertThat(BCryptCalibration.strengthFor(1, Long.MAX_VALUE, 4)).isEqualTo(BCryptCalibration.MAX_STRENGTH);
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> BCryptCalibration.calibrate(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BCryptCalibration.calibrate(100, 3)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BCryptCalibration.calibrate(100, 32)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
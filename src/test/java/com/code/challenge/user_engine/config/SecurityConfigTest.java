@@ -1,6 +1,7 @@
 package com.code.challenge.user_engine.config;
 
 import com.code.challenge.user_engine.security.JwtAuthenticationFilter;
+import com.code.challenge.user_engine.security.RandomSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -28,7 +30,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest
-@ContextConfiguration(classes = SecurityConfig.class)
+@ContextConfiguration(classes = {SecurityConfig.class, RandomSource.class})
 class SecurityConfigTest {
 
     @Autowired
@@ -63,6 +65,12 @@ class SecurityConfigTest {
                 .andExpect(status().isNotFound()); // 404 porque no existe el endpoint real
     }
 
+    @Test
+    void shouldPermitAllForRefreshEndpoint() throws Exception {
+        mockMvc.perform(post("/api/v1/users/refresh"))
+                .andExpect(status().isNotFound()); // 404 porque no existe el endpoint real
+    }
+
     @Test
     void shouldProvideAuthenticationManager() throws Exception {
         assertNull(securityConfig.authenticationManager(authConfig));
@@ -70,8 +78,31 @@ class SecurityConfigTest {
 
     @Test
     void shouldProvideBCryptPasswordEncoder() {
-        PasswordEncoder encoder = securityConfig.passwordEncoder();
+        PasswordEncoder encoder = securityConfig.passwordEncoder(new BCryptCalibration(4, 100, 1.0), new RandomSource());
         assertTrue(encoder instanceof BCryptPasswordEncoder);
     }
 
+    @Test
+    void passwordEncoderShouldUseCalibratedStrength() {
+        PasswordEncoder encoder = securityConfig.passwordEncoder(new BCryptCalibration(5, 100, 1.0), new RandomSource());
+
+        assertTrue(encoder.encode("secret").startsWith("$2a$05$"));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+    }
+
+    @Test
+    void calibrationShouldNotGoBelowFloor() {
+        BCryptCalibration calibration = securityConfig.bcryptCalibration(1, 4);
+
+        assertEquals(4, calibration.getStrength());
+    }
+
+    @Test
+    void shouldNotRegisterJwtFilterAsServletFilter() {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = securityConfig.jwtAuthenticationFilterRegistration();
+
+        assertSame(jwtAuthenticationFilter, registration.getFilter());
+        assertFalse(registration.isEnabled());
+    }
 }
@@ -0,0 +1,172 @@
+package com.code.challenge.user_engine.controller;
+
+import com.code.challenge.user_engine.model.User;
+import com.code.challenge.user_engine.repository.UserRepository;
+import com.code.challenge.user_engine.security.JwtTokenUtil;
+import com.code.challenge.user_engine.security.RandomSource;
+import com.code.challenge.user_engine.security.VerifiedToken;
+import com.code.challenge.user_engine.service.BreachedPasswords;
+import com.code.challenge.user_engine.service.PasswordHashingExecutor;
+import com.code.challenge.user_engine.service.RefreshTokenService;
+import com.code.challenge.user_engine.service.RevocationFeed;
+import com.code.challenge.user_engine.service.SignUpCompletionExecutor;
+import com.code.challenge.user_engine.service.SignUpTimings;
+import com.code.challenge.user_engine.service.TokenBlacklist;
+import com.code.challenge.user_engine.service.TokenEpochs;
+import com.code.challenge.user_engine.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Una avalancha de sign-ups contra el controller con el {@link UserService} real y BCrypt trabado: lo que no entra
+ * en la cola de {@link PasswordHashingExecutor} sale con 503 en el acto, {@code /login} responde sin pasar por los
+ * hilos de hash y las escrituras de los aceptados corren en {@link SignUpCompletionExecutor}. La latencia de
+ * {@code /login} bajo carga se mide en {@code SignUpFloodBenchmark}.
+ */
+class SignUpFloodTest {
+
+    private static final int HASHING_THREADS = 1;
+    private static final int HASHING_QUEUE = 2;
+    private static final int SIGN_UPS = 10;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final List<String> insertThreads = new CopyOnWriteArrayList<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtTokenUtil jwtTokenUtil = mock(JwtTokenUtil.class);
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private SignUpCompletionExecutor signUpCompletionExecutor;
+    private MockMvc mockMvc;
+    private int emails;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingExecutor = new PasswordHashingExecutor(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                hashing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals("hash:" + rawPassword);
+            }
+        }, new BreachedPasswords("", 4096), HASHING_THREADS, HASHING_QUEUE);
+        signUpCompletionExecutor = new SignUpCompletionExecutor(2);
+        UserService userService = new UserService(userRepository, passwordHashingExecutor, signUpCompletionExecutor,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), jwtTokenUtil, mock(TokenBlacklist.class),
+                mock(TokenEpochs.class), mock(RevocationFeed.class), mock(RefreshTokenService.class),
+                new SignUpTimings(), new RandomSource());
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(userService)).build();
+
+        when(userRepository.insert(any())).thenAnswer(invocation -> {
+            insertThreads.add(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingExecutor.close();
+        signUpCompletionExecutor.close();
+    }
+
+    @Test
+    void floodShouldBeRejectedWithoutBlockingLogin() throws Exception {
+        List<MvcResult> signUps = new ArrayList<>();
+        signUps.add(signUp());
+        assertThat(hashing.await(5, TimeUnit.SECONDS)).isTrue(); // el primero ocupa el único hilo de BCrypt
+        for (int i = 1; i < SIGN_UPS; i++) {
+            signUps.add(signUp());
+        }
+
+        // Con el hash trabado, los que no entraron en la cola ya fueron rechazados, sin esperar a nadie
+        assertThat(passwordHashingExecutor.getRejected()).isEqualTo(SIGN_UPS - HASHING_THREADS - HASHING_QUEUE);
+        assertThat(passwordHashingExecutor.getQueueDepth()).isEqualTo(HASHING_QUEUE);
+
+        // /login no pasa por PasswordHashingExecutor: responde con todos sus hilos ocupados
+        User user = user();
+        when(jwtTokenUtil.verifyToken("login-token"))
+                .thenReturn(new VerifiedToken("login-token", user.getId(), UUID.randomUUID(), System.currentTimeMillis() + 60_000));
+        when(userRepository.findWithPhonesById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        assertThat(mockMvc.perform(get("/api/v1/users/login").header("Authorization", "Bearer login-token"))
+                .andReturn().getResponse().getStatus()).isEqualTo(200);
+        assertThat(insertThreads).isEmpty();
+
+        release.countDown();
+        int accepted = 0;
+        int rejected = 0;
+        for (MvcResult signUp : signUps) {
+            signUp.getAsyncResult(5_000);
+            int status = mockMvc.perform(asyncDispatch(signUp)).andReturn().getResponse().getStatus();
+            if (status == 200) {
+                accepted++;
+            } else if (status == 503) {
+                rejected++;
+            }
+        }
+        assertThat(accepted).isEqualTo(HASHING_THREADS + HASHING_QUEUE);
+        assertThat(rejected).isEqualTo(SIGN_UPS - accepted);
+        // Ningún insert corrió en un hilo de BCrypt
+        assertThat(insertThreads).hasSize(accepted).allMatch(thread -> thread.startsWith("sign-up-completion-"));
+    }
+
+    private MvcResult signUp() throws Exception {
+        String body = "{\"name\":\"flood\",\"email\":\"" + nextEmail() + "\",\"password\":\"passwoR34d\",\"phones\":[]}";
+        return mockMvc.perform(post("/api/v1/users/sign-up").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn();
+    }
+
+    // El usuario del email tiene que ser de exactamente 7 letras
+    private String nextEmail() {
+        int n = emails++;
+        char[] user = new char[7];
+        for (int i = user.length - 1; i >= 0; i--) {
+            user[i] = (char) ('a' + n % 26);
+            n /= 26;
+        }
+        return new String(user) + "@example.com";
+    }
+
+    private static User user() {
+        LocalDateTime now = LocalDateTime.now();
+        return User.builder().id(UUID.randomUUID()).name("flood").email("floodin@example.com").password("hash:passwoR34d")
+                .created(now).lastLogin(now).isActive(true).phones(new ArrayList<>()).build();
+    }
+}
@@ -1,14 +1,23 @@
 package com.code.challenge.user_engine.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.code.challenge.user_engine.dto.SignUpRequest;
 import com.code.challenge.user_engine.dto.UserResponse;
+import com.code.challenge.user_engine.exception.HashingOverloadedException;
+import com.code.challenge.user_engine.exception.InvalidTokenException;
+import com.code.challenge.user_engine.exception.UserAlreadyExistsException;
+import com.code.challenge.user_engine.security.JwtAuthenticationToken;
+import com.code.challenge.user_engine.security.VerifiedToken;
 import com.code.challenge.user_engine.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,6 +27,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -75,6 +85,24 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.email").value("user@example.com"));
     }
 
+    @Test
+    void login_ReusesClaimsVerifiedByFilter() throws Exception {
+        String token = "valid.token.here";
+        VerifiedToken verifiedToken = new VerifiedToken(token, UUID.randomUUID(), UUID.randomUUID(), Long.MAX_VALUE);
+        UserResponse response = UserResponse.builder()
+                .email("user@example.com")
+                .build();
+
+        when(userService.login(verifiedToken)).thenReturn(response);
+
+        mockMvc.perform(get("/api/v1/users/login")
+                        .header("Authorization", "Bearer " + token)
+                        .principal(new JwtAuthenticationToken(verifiedToken)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("user@example.com"));
+
+        verify(userService, never()).login(any(String.class));
+    }
 
     @Test
     void login_MissingAuthorizationHeader() throws Exception {
@@ -110,4 +138,138 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
-}
\ No newline at end of file
+    @Test
+    void signUp_Success() throws Exception {
+        SignUpRequest valid = new SignUpRequest("alex", "alexand@example.com", "passwoR34d", List.of());
+        when(userService.signUp(any(SignUpRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(UserResponse.builder().token("t").build()));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/users/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(valid)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("t"));
+    }
+
+    @Test
+    void signUp_EmailAlreadyExists() throws Exception {
+        SignUpRequest valid = new SignUpRequest("alex", "alexand@example.com", "passwoR34d", List.of());
+        when(userService.signUp(any(SignUpRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new UserAlreadyExistsException("alexand@example.com")));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/users/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(valid)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void signUp_HashingOverloaded() throws Exception {
+        SignUpRequest valid = new SignUpRequest("alex", "alexand@example.com", "passwoR34d", List.of());
+        when(userService.signUp(any(SignUpRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new HashingOverloadedException()));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/users/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(valid)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$[0].code").value(503));
+    }
+
+    @Test
+    void logoutAll_RevokesEveryTokenOfAuthenticatedUser() throws Exception {
+        UUID userId = UUID.randomUUID();
+        VerifiedToken verifiedToken = new VerifiedToken("valid.token.here", userId, UUID.randomUUID(), Long.MAX_VALUE);
+
+        mockMvc.perform(post("/api/v1/users/logout-all")
+                        .principal(new JwtAuthenticationToken(verifiedToken)))
+                .andExpect(status().isNoContent());
+
+        verify(userService).revokeAllTokens(userId);
+    }
+
+    @Test
+    void logoutAll_WithoutAuthentication() throws Exception {
+        mockMvc.perform(post("/api/v1/users/logout-all"))
+                .andExpect(status().isUnauthorized());
+
+        verify(userService, never()).revokeAllTokens(any());
+    }
+
+    @Test
+    void deactivate_DisablesAuthenticatedUser() throws Exception {
+        UUID userId = UUID.randomUUID();
+        VerifiedToken verifiedToken = new VerifiedToken("valid.token.here", userId, UUID.randomUUID(), Long.MAX_VALUE);
+
+        mockMvc.perform(post("/api/v1/users/deactivate")
+                        .principal(new JwtAuthenticationToken(verifiedToken)))
+                .andExpect(status().isNoContent());
+
+        verify(userService).deactivate(userId);
+    }
+
+    @Test
+    void deactivate_WithoutAuthentication() throws Exception {
+        mockMvc.perform(post("/api/v1/users/deactivate"))
+                .andExpect(status().isUnauthorized());
+
+        verify(userService, never()).deactivate(any());
+    }
+
+    @Test
+    void refresh_ReturnsNewTokens() throws Exception {
+        UserResponse response = UserResponse.builder()
+                .token("new-access")
+                .refreshToken("new-refresh")
+                .build();
+        when(userService.refresh("old-refresh")).thenReturn(response);
+
+        mockMvc.perform(post("/api/v1/users/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"old-refresh\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-access"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh"));
+    }
+
+    @Test
+    void refresh_InvalidToken() throws Exception {
+        when(userService.refresh("used")).thenThrow(new InvalidTokenException("Invalid refresh token"));
+
+        mockMvc.perform(post("/api/v1/users/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"used\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void refresh_MissingToken() throws Exception {
+        mockMvc.perform(post("/api/v1/users/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).refresh(any());
+    }
+
+    @Test
+    void login_OmitsRefreshTokenWhenDisabled() throws Exception {
+        when(userService.login(any(String.class))).thenReturn(UserResponse.builder().token("t").build());
+
+        mockMvc.perform(get("/api/v1/users/login")
+                        .header("Authorization", "Bearer valid.token.here"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").doesNotExist());
+    }
+}
@@ -0,0 +1,27 @@
+package com.code.challenge.user_engine.dto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshRequestTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void testBuilder() {
+        RefreshRequest request = RefreshRequest.builder().refreshToken("token").build();
+
+        assertEquals("token", request.getRefreshToken());
+        assertTrue(validator.validate(request).isEmpty());
+    }
+
+    @Test
+    void testBlankTokenIsInvalid() {
+        assertFalse(validator.validate(new RefreshRequest(" ")).isEmpty());
+        assertFalse(validator.validate(new RefreshRequest()).isEmpty());
+    }
+}
@@ -120,6 +120,19 @@ class SignUpRequestTest {
         assertFalse(violations.isEmpty());
     }
 
+    @Test
+    void testPasswordViolationKeepsMessage() {
+        SignUpRequest request = SignUpRequest.builder()
+                .email("abcdefg@test.com")
+                .password("passw12rd")
+                .build();
+
+        var violations = validator.validateProperty(request, "password");
+        assertEquals(1, violations.size());
+        assertEquals("La clave debe tener solo una Mayúscula y solamente dos números, minúsculas, largo máximo de 12 y mínimo 8",
+                violations.iterator().next().getMessage());
+    }
+
     @Test
     void testPasswordTooShort() {
         SignUpRequest request = SignUpRequest.builder()
@@ -28,7 +28,7 @@ class UserResponseTest {
         String password = "password";
         List<PhoneDto> phones = List.of(new PhoneDto());
 
-        UserResponse response = new UserResponse(id, created, lastLogin, token, isActive, name, email, password, phones);
+        UserResponse response = new UserResponse(id, created, lastLogin, token, isActive, name, email, password, phones, "refresh-token");
 
         assertEquals(id, response.getId());
         assertEquals(created, response.getCreated());
@@ -39,6 +39,7 @@ class UserResponseTest {
         assertEquals(email, response.getEmail());
         assertEquals(password, response.getPassword());
         assertEquals(phones, response.getPhones());
+        assertEquals("refresh-token", response.getRefreshToken());
     }
 
     @Test
@@ -0,0 +1,23 @@
+package com.code.challenge.user_engine.exception;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class HashingOverloadedExceptionTest {
+
+    @Test
+    void exceptionIsInstanceOfRuntimeException() {
+        assertTrue(new HashingOverloadedException() instanceof RuntimeException);
+    }
+
+    @Test
+    void messageAsksClientToRetry() {
+        assertEquals("Too many sign-ups in progress, please retry later", new HashingOverloadedException().getMessage());
+    }
+
+    @Test
+    void exceptionHasNoCauseByDefault() {
+        assertNull(new HashingOverloadedException().getCause());
+    }
+}
@@ -0,0 +1,44 @@
+package com.code.challenge.user_engine.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MigrationStateTest {
+
+    private static final long QUIET_PERIOD = 1_000;
+
+    @Test
+    void testCompletesAfterQuietPeriod() {
+        MigrationState state = MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(100).build();
+
+        state.recordPass(false, 100 + QUIET_PERIOD - 1, QUIET_PERIOD);
+        assertFalse(state.isComplete());
+
+        state.recordPass(false, 100 + QUIET_PERIOD, QUIET_PERIOD);
+        assertTrue(state.isComplete());
+        assertEquals(100 + QUIET_PERIOD, state.getCompletedAt());
+    }
+
+    @Test
+    void testPendingRowsReopenCompletedMigration() {
+        MigrationState state = MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(0).completedAt(5L).build();
+
+        state.recordPass(true, 2_000, QUIET_PERIOD);
+
+        assertFalse(state.isComplete());
+        assertEquals(2_000, state.getLastPendingAt());
+        // El período de espera vuelve a contar desde la última fila encontrada
+        state.recordPass(false, 2_500, QUIET_PERIOD);
+        assertFalse(state.isComplete());
+    }
+
+    @Test
+    void testCompletedMigrationKeepsItsCompletionTime() {
+        MigrationState state = MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(0).completedAt(5L).build();
+
+        state.recordPass(false, 10_000, QUIET_PERIOD);
+
+        assertEquals(5L, state.getCompletedAt());
+    }
+}
@@ -2,6 +2,7 @@ package com.code.challenge.user_engine.model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
@@ -9,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
 
 class PhoneTest {
 
@@ -29,12 +32,14 @@ class PhoneTest {
         int cityCode = 11;
         String countryCode = "+54";
 
-        Phone phone = new Phone(id, number, cityCode, countryCode);
+        User user = new User();
+        Phone phone = new Phone(id, number, cityCode, countryCode, user);
 
         assertEquals(id, phone.getId());
         assertEquals(number, phone.getNumber());
         assertEquals(cityCode, phone.getCityCode());
         assertEquals(countryCode, phone.getCountryCode());
+        assertSame(user, phone.getUser());
     }
 
     @Test
@@ -120,7 +125,39 @@ class PhoneTest {
     @Test
     void testIdAnnotation() throws NoSuchFieldException {
         assertNotNull(Phone.class.getDeclaredField("id").getAnnotation(Id.class));
-        assertNotNull(Phone.class.getDeclaredField("id").getAnnotation(GeneratedValue.class));
+        assertNull(Phone.class.getDeclaredField("id").getAnnotation(GeneratedValue.class));
+    }
+
+    @Test
+    void testUserAnnotations() throws NoSuchFieldException {
+        // El teléfono es el dueño de la relación: su insert lleva user_id
+        assertNotNull(Phone.class.getDeclaredField("user").getAnnotation(ManyToOne.class));
+        JoinColumn joinColumn = Phone.class.getDeclaredField("user").getAnnotation(JoinColumn.class);
+        assertEquals("user_id", joinColumn.name());
+        assertFalse(joinColumn.nullable());
+    }
+
+    @Test
+    void testEqualityIsByIdOnly() {
+        UUID id = UUID.randomUUID();
+        Phone phone = Phone.builder().id(id).number(1234567890L).cityCode(11).build();
+        Phone changed = Phone.builder().id(id).number(987654321L).cityCode(22).build();
+
+        assertEquals(phone, changed);
+        assertEquals(phone.hashCode(), changed.hashCode());
+    }
+
+    @Test
+    void testUserIsLeftOutOfEqualsAndToString() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(UUID.randomUUID()).email("test@example.com").build();
+        Phone phone = Phone.builder().id(id).number(1234567890L).user(user).build();
+        user.setPhones(List.of(phone));
+
+        assertEquals(Phone.builder().id(id).number(1234567890L).build(), phone);
+        assertFalse(phone.toString().contains("test@example.com"));
+        assertNotNull(user.toString());
+        assertEquals(user.hashCode(), user.hashCode());
     }
 
     @Test
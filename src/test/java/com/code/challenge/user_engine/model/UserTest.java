@@ -3,6 +3,7 @@ package com.code.challenge.user_engine.model;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.UUID;
 import javax.persistence.Column;
@@ -38,8 +39,8 @@ class UserTest {
         LocalDateTime now = LocalDateTime.now();
         List<Phone> phones = List.of(new Phone());
 
-        User user = new User(id, "Test User", "test@example.com", "password",
-                phones, now, now, "token123", true);
+        User user = new User(id, "Test User", "test@example.com", null, null, false, "password",
+                phones, now, now, "token123", true, 3);
 
         assertEquals(id, user.getId());
         assertEquals("Test User", user.getName());
@@ -50,6 +51,7 @@ class UserTest {
         assertEquals(now, user.getLastLogin());
         assertEquals("token123", user.getToken());
         assertTrue(user.isActive());
+        assertEquals(3, user.getTokenEpoch());
     }
 
     @Test
@@ -78,19 +80,28 @@ class UserTest {
         Table table = User.class.getAnnotation(Table.class);
         assertNotNull(table);
         assertEquals("users", table.name());
+        // La unicidad del email es una restricción con nombre: UserService reconoce su violación en el insert
+        assertEquals(2, table.uniqueConstraints().length);
+        assertEquals(User.EMAIL_CONSTRAINT, table.uniqueConstraints()[0].name());
+        assertArrayEquals(new String[]{"canonical_email"}, table.uniqueConstraints()[0].columnNames());
+        // La del email tal cual protege las filas que el backfill todavía no completó
+        assertEquals(User.LEGACY_EMAIL_CONSTRAINT, table.uniqueConstraints()[1].name());
+        assertArrayEquals(new String[]{"email"}, table.uniqueConstraints()[1].columnNames());
+        // El hash de 8 bytes es solo el índice de las búsquedas: una colisión no rechaza un email distinto
+        assertEquals(1, table.indexes().length);
+        assertEquals("email_hash", table.indexes()[0].columnList());
+        assertFalse(table.indexes()[0].unique());
 
         // Verify field annotations
         try {
             // Check ID field annotations
             assertNotNull(User.class.getDeclaredField("id").getAnnotation(Id.class));
-            GeneratedValue generatedValue = User.class.getDeclaredField("id").getAnnotation(GeneratedValue.class);
-            assertNotNull(generatedValue);
-            assertEquals("UUID", generatedValue.generator());
+            // El id lo asigna la aplicación, no la base
+            assertNull(User.class.getDeclaredField("id").getAnnotation(GeneratedValue.class));
 
             // Check email field annotations
             Column emailColumn = User.class.getDeclaredField("email").getAnnotation(Column.class);
             assertNotNull(emailColumn);
-            assertTrue(emailColumn.unique());
             assertFalse(emailColumn.nullable());
 
             // Check password field annotations
@@ -99,14 +110,49 @@ class UserTest {
             assertFalse(passwordColumn.nullable());
 
             // Check phones relationship
-            assertNotNull(User.class.getDeclaredField("phones").getAnnotation(OneToMany.class));
-            assertNotNull(User.class.getDeclaredField("phones").getAnnotation(JoinColumn.class));
+            OneToMany phones = User.class.getDeclaredField("phones").getAnnotation(OneToMany.class);
+            assertNotNull(phones);
+            // La columna user_id la escribe Phone: el lado de User no lleva JoinColumn
+            assertEquals("user", phones.mappedBy());
+            assertNull(User.class.getDeclaredField("phones").getAnnotation(JoinColumn.class));
 
         } catch (NoSuchFieldException e) {
             fail("Field not found: " + e.getMessage());
         }
     }
 
+    @Test
+    void testCanonicalizeEmail() {
+        User user = User.builder().email(" Someone@Example.COM ").build();
+
+        user.canonicalizeEmail();
+
+        assertEquals(" Someone@Example.COM ", user.getEmail());
+        assertEquals("someone@example.com", user.getCanonicalEmail());
+        assertEquals(User.emailHash("someone@example.com"), user.getEmailHash());
+    }
+
+    @Test
+    void testMarkEmailConflictKeepsEmailWithOwnCanonical() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).email("Twin@Example.com").build();
+
+        user.markEmailConflict();
+        user.canonicalizeEmail(); // el @PreUpdate de cualquier escritura posterior no lo deshace
+
+        assertTrue(user.isEmailConflict());
+        assertEquals("Twin@Example.com", user.getEmail());
+        assertEquals("conflict+" + id + "@invalid", user.getCanonicalEmail());
+        assertEquals(User.emailHash("conflict+" + id + "@invalid"), user.getEmailHash());
+    }
+
+    @Test
+    void testEmailHashIsStable() {
+        // Se guarda en la base: el mismo email tiene que dar el mismo hash en cualquier proceso y versión
+        assertEquals(0x973dfe463ec85785L, User.emailHash("test@example.com"));
+        assertNotEquals(User.emailHash("test@example.com"), User.emailHash("test@example.org"));
+    }
+
     @Test
     void testEqualsAndHashCode() {
         UUID id = UUID.randomUUID();
@@ -125,6 +171,38 @@ class UserTest {
         assertNotEquals(user1, user2);
     }
 
+    @Test
+    void testEqualityIsByIdOnly() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).email("test@example.com").token("a").build();
+        User changed = User.builder().id(id).email("other@example.com").token("b").build();
+
+        assertEquals(user, changed);
+        assertEquals(user.hashCode(), changed.hashCode());
+    }
+
+    @Test
+    void testPhonesAreNotTouchedByEqualsHashCodeAndToString() {
+        // Como una colección perezosa sin inicializar: cualquier acceso iría a la base
+        List<Phone> unloaded = new AbstractList<>() {
+            @Override
+            public Phone get(int index) {
+                throw new IllegalStateException("phones loaded");
+            }
+
+            @Override
+            public int size() {
+                throw new IllegalStateException("phones loaded");
+            }
+        };
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).name("John Doe").phones(unloaded).build();
+
+        assertEquals(User.builder().id(id).build(), user);
+        assertEquals(User.builder().id(id).build().hashCode(), user.hashCode());
+        assertTrue(user.toString().contains("John Doe"));
+    }
+
     @Test
     void testPhoneRelationship() {
         Phone phone = new Phone();
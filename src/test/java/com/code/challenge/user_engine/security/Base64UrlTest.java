@@ -0,0 +1,70 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Base64UrlTest {
+
+    @Test
+    void shouldMatchJdkEncoderAndDecodeBack() {
+        Random random = new Random(9);
+        for (int length = 0; length < 100; length++) {
+            byte[] source = new byte[length];
+            random.nextBytes(source);
+            byte[] encoded = new byte[Base64Url.encodedLength(length)];
+
+            int end = Base64Url.encode(source, length, encoded, 0);
+            String text = new String(encoded, 0, end, StandardCharsets.US_ASCII);
+            byte[] decoded = new byte[length];
+
+            assertThat(text).isEqualTo(Base64.getUrlEncoder().withoutPadding().encodeToString(source));
+            assertThat(Base64Url.decode(text, 0, text.length(), decoded)).isEqualTo(length);
+            assertThat(decoded).isEqualTo(source);
+        }
+    }
+
+    @Test
+    void uuidShouldEncodeAsItsSixteenBytes() {
+        Random random = new Random(13);
+        for (int i = 0; i < 1_000; i++) {
+            UUID uuid = i == 0 ? new UUID(-1, -1) : new UUID(random.nextLong(), random.nextLong());
+            byte[] bytes = ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+            byte[] encoded = new byte[Base64Url.UUID_CHARS];
+
+            assertThat(Base64Url.encodeUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), encoded, 0))
+                    .isEqualTo(Base64Url.UUID_CHARS);
+            String text = new String(encoded, StandardCharsets.US_ASCII);
+
+            assertThat(text).isEqualTo(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+            assertThat(Base64Url.isUuid(encoded, 0)).isTrue();
+            assertThat(Base64Url.decodeUuid(text)).isEqualTo(uuid);
+        }
+    }
+
+    @Test
+    void shouldRejectNonCanonicalUuid() {
+        assertThat(Base64Url.decodeUuid("AAAAAAAAAAAAAAAAAAAAAB")).isNull();
+        assertThat(Base64Url.decodeUuid("AAAAAAAAAAAAAAAAAAAA+A")).isNull();
+        assertThat(Base64Url.decodeUuid("AAAAAAAAAAAAAAAAAAAAA")).isNull();
+        assertThat(Base64Url.decodeUuid("AAAAAAAAAAAAAAAAAAAAñA")).isNull();
+        assertThat(Base64Url.decodeUuid(null)).isNull();
+    }
+
+    @Test
+    void shouldRejectInvalidInput() {
+        byte[] out = new byte[16];
+
+        assertThat(Base64Url.decode("ab+c", 0, 4, out)).isEqualTo(-1);
+        assertThat(Base64Url.decode("abc=", 0, 4, out)).isEqualTo(-1);
+        assertThat(Base64Url.decode("abcde", 0, 5, out)).isEqualTo(-1);
+        assertThat(Base64Url.decode("abcñ", 0, 4, out)).isEqualTo(-1);
+        assertThat(Base64Url.decode("abcdefgh", 0, 8, new byte[5])).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,143 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HmacTokenMinterTest {
+
+    private static final SecretKey KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    private final HmacTokenMinter minter = new HmacTokenMinter(KEY);
+
+    @Test
+    void shouldProduceSameBytesAsJjwtBuilder() {
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            UUID subject = new UUID(random.nextLong(), random.nextLong());
+            UUID tokenId = new UUID(random.nextLong(), random.nextLong());
+            long issuedAt = i < 10 ? i * 999L : Math.floorMod(random.nextLong(), 4_000_000_000_000L);
+            long expiresAt = issuedAt + random.nextInt(100_000_000);
+            int tokenEpoch = i < 10 ? i : random.nextInt(Integer.MAX_VALUE);
+
+            String expected = Jwts.builder()
+                    .setSubject(subject.toString())
+                    .setIssuedAt(new Date(issuedAt))
+                    .setExpiration(new Date(expiresAt))
+                    .setId(tokenId.toString())
+                    .claim("epoch", tokenEpoch)
+                    .signWith(KEY)
+                    .compact();
+
+            assertThat(minter.mint(subject, issuedAt, expiresAt, tokenId, tokenEpoch)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldWriteKidHeaderLikeJjwt() {
+        HmacTokenMinter withKid = new HmacTokenMinter(KEY, "key-2024");
+        UUID subject = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        String expected = Jwts.builder()
+                .setHeaderParam("kid", "key-2024")
+                .setSubject(subject.toString())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .setId(tokenId.toString())
+                .claim("epoch", 0)
+                .signWith(KEY)
+                .compact();
+
+        assertThat(withKid.mint(subject, now, now + 60_000, tokenId, 0)).isEqualTo(expected);
+    }
+
+    @Test
+    void mintedTokenShouldBeReadableByJjwt() {
+        UUID subject = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        Claims claims = Jwts.parser().setSigningKey(KEY)
+                .parseClaimsJws(minter.mint(subject, now, now + 60_000, tokenId, 3)).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo(subject.toString());
+        assertThat(claims.getId()).isEqualTo(tokenId.toString());
+        assertThat(claims.getIssuedAt().getTime()).isEqualTo(now / 1000 * 1000);
+        assertThat(claims.getExpiration().getTime()).isEqualTo((now + 60_000) / 1000 * 1000);
+        assertThat(claims.get("epoch", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void compactTokenShouldBeReadableByJjwt() {
+        HmacTokenMinter compact = new HmacTokenMinter(KEY, "key-2024", TokenProfile.COMPACT);
+        UUID subject = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        Jws<Claims> jws = Jwts.parser().setSigningKey(KEY).parseClaimsJws(compact.mint(subject, now, now + 60_000, tokenId, 0));
+        Claims claims = jws.getBody();
+
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("HS512");
+        assertThat(jws.getHeader().getKeyId()).isEqualTo("key-2024");
+        assertThat(claims.getSubject()).isEqualTo(base64Url(subject));
+        assertThat(claims.getId()).isEqualTo(base64Url(tokenId));
+        assertThat(claims.getExpiration().getTime()).isEqualTo((now + 60_000) / 1000 * 1000);
+        assertThat(claims).doesNotContainKeys("iat", "epoch");
+    }
+
+    @Test
+    void compactHs256TokenShouldBeReadableByJjwt() {
+        HmacTokenMinter compact = new HmacTokenMinter(KEY, "key-2024", TokenProfile.COMPACT_HS256);
+        UUID subject = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+
+        String token = compact.mint(subject, now, now + 60_000, UUID.randomUUID(), 7);
+        Jws<Claims> jws = Jwts.parser().setSigningKey(KEY).parseClaimsJws(token);
+
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("HS256");
+        assertThat(jws.getBody().getSubject()).isEqualTo(base64Url(subject));
+        assertThat(jws.getBody().get("epoch", Integer.class)).isEqualTo(7);
+        assertThat(token.substring(token.lastIndexOf('.') + 1)).hasSize(43);
+    }
+
+    @Test
+    void mintShouldOnlyAllocateTheToken() {
+        UUID subject = UUID.randomUUID();
+        UUID tokenId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 20_000; i++) {
+            minter.mint(subject, now, now + 60_000, tokenId, 0); // calentamiento: la carga de clases y el JIT sí reservan memoria
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            minter.mint(subject, now, now + 60_000, tokenId, 0);
+        }
+        long perMint = (threads.getThreadAllocatedBytes(threadId) - before) / 10_000;
+
+        // El String de ~275 caracteres más los arreglos internos del HMAC del JDK (~400 bytes medidos)
+        assertThat(perMint).isLessThan(768);
+    }
+
+    private static String base64Url(UUID uuid) {
+        byte[] bytes = ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,186 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HmacTokenVerifierTest {
+
+    private static final SecretKey KEY = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+
+    private final HmacTokenVerifier verifier = new HmacTokenVerifier(KEY);
+    private final UUID userId = UUID.randomUUID();
+    private final UUID tokenId = UUID.randomUUID();
+    private final long now = System.currentTimeMillis();
+    private final Date inOneHour = new Date((now / 1000 + 3600) * 1000);
+
+    @Test
+    void headerSegmentShouldMatchJjwt() {
+        String token = Jwts.builder().setSubject(userId.toString()).signWith(KEY).compact();
+
+        assertThat(token).startsWith(HmacTokenVerifier.headerSegment(null) + ".");
+    }
+
+    @Test
+    void headerSegmentWithKidShouldMatchJjwt() {
+        String token = Jwts.builder().setHeaderParam("kid", "key-2024").setSubject(userId.toString())
+                .signWith(KEY).compact();
+
+        assertThat(token).startsWith(HmacTokenVerifier.headerSegment("key-2024") + ".");
+    }
+
+    @Test
+    void shouldOnlyHandleTokensWithItsOwnKid() {
+        HmacTokenVerifier withKid = new HmacTokenVerifier(KEY, "current");
+        String token = Jwts.builder().setHeaderParam("kid", "current").setSubject(userId.toString())
+                .setExpiration(inOneHour).setId(tokenId.toString()).signWith(KEY).compact();
+
+        assertThat(withKid.handles(token)).isTrue();
+        assertThat(verifier.handles(token)).isFalse();
+        assertThat(withKid.verify(token, now).getUserId()).isEqualTo(userId);
+    }
+
+    @Test
+    void shouldReadClaimsOfTokenIssuedByJjwt() {
+        String token = Jwts.builder().setSubject(userId.toString()).setIssuedAt(new Date(now))
+                .setExpiration(inOneHour).setId(tokenId.toString()).signWith(KEY).compact();
+
+        VerifiedToken verifiedToken = verifier.verify(token, now);
+
+        assertThat(verifiedToken.getToken()).isEqualTo(token);
+        assertThat(verifiedToken.getUserId()).isEqualTo(userId);
+        assertThat(verifiedToken.getTokenId()).isEqualTo(tokenId);
+        assertThat(verifiedToken.getExpiresAt()).isEqualTo(inOneHour.getTime());
+    }
+
+    @Test
+    void shouldReadTokenEpochClaim() {
+        String token = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour)
+                .setId(tokenId.toString()).claim("epoch", 42).signWith(KEY).compact();
+        String tooLarge = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour)
+                .claim("epoch", Integer.MAX_VALUE + 1L).signWith(KEY).compact();
+
+        assertThat(verifier.verify(token, now).getTokenEpoch()).isEqualTo(42);
+        assertThat(verifier.verify(tooLarge, now)).isNull();
+    }
+
+    @Test
+    void shouldReadCompactUuidClaims() {
+        String token = Jwts.builder().setSubject(base64Url(userId)).setExpiration(inOneHour)
+                .setId(base64Url(tokenId)).signWith(KEY).compact();
+
+        VerifiedToken verifiedToken = verifier.verify(token, now);
+
+        assertThat(verifiedToken.getUserId()).isEqualTo(userId);
+        assertThat(verifiedToken.getTokenId()).isEqualTo(tokenId);
+        assertThat(verifiedToken.getTokenEpoch()).isZero();
+    }
+
+    @Test
+    void hs256VerifierShouldOnlyHandleHs256Tokens() {
+        HmacTokenVerifier hs256 = new HmacTokenVerifier(KEY, "current", SignatureAlgorithm.HS256);
+        String token = Jwts.builder().setHeaderParam("kid", "current").setSubject(base64Url(userId))
+                .setExpiration(inOneHour).signWith(KEY, SignatureAlgorithm.HS256).compact();
+        String hs512 = Jwts.builder().setHeaderParam("kid", "current").setSubject(base64Url(userId))
+                .setExpiration(inOneHour).signWith(KEY).compact();
+        String tampered = token.substring(0, token.length() - 5) + (token.endsWith("abcde") ? "edcba" : "abcde");
+
+        assertThat(token).startsWith(HmacTokenVerifier.headerSegment("current", SignatureAlgorithm.HS256) + ".");
+        assertThat(hs256.verify(token, now).getUserId()).isEqualTo(userId);
+        assertThat(hs256.handles(hs512)).isFalse();
+        assertThatThrownBy(() -> hs256.verify(tampered, now)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void shouldUseTokenDigestWhenJtiIsMissing() {
+        String token = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour).signWith(KEY).compact();
+
+        assertThat(verifier.verify(token, now).getTokenId()).isEqualTo(TokenIds.digestOf(token));
+    }
+
+    @Test
+    void shouldRejectTamperedSignature() {
+        String token = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour).signWith(KEY).compact();
+        String tampered = token.substring(0, token.length() - 5) + (token.endsWith("abcde") ? "edcba" : "abcde");
+
+        assertThatThrownBy(() -> verifier.verify(tampered, now)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void shouldRejectTokenSignedWithAnotherKey() {
+        String token = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour)
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS512)).compact();
+
+        assertThatThrownBy(() -> verifier.verify(token, now)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void shouldLeaveExpiredTokenToJjwt() {
+        String token = Jwts.builder().setSubject(userId.toString()).setExpiration(new Date(now - 5_000))
+                .signWith(KEY).compact();
+
+        assertThat(verifier.verify(token, now)).isNull();
+    }
+
+    @Test
+    void shouldLeaveUnexpectedShapesToJjwt() {
+        String withHeader = Jwts.builder().setHeaderParam("typ", "JWT").setSubject(userId.toString())
+                .setExpiration(inOneHour).signWith(KEY).compact();
+        String withNotBefore = Jwts.builder().setSubject(userId.toString()).setNotBefore(new Date(now))
+                .setExpiration(inOneHour).signWith(KEY).compact();
+        String withoutExpiration = Jwts.builder().setSubject(userId.toString()).signWith(KEY).compact();
+        String withNestedClaim = Jwts.builder().setSubject(userId.toString()).setExpiration(inOneHour)
+                .claim("roles", new String[]{"admin"}).signWith(KEY).compact();
+        String withNonUuidSubject = Jwts.builder().setSubject("someone").setExpiration(inOneHour)
+                .signWith(KEY).compact();
+        // 22 caracteres cuyo último carácter tiene bits bajos: no es la codificación canónica de 16 bytes
+        String withNonCanonicalSubject = Jwts.builder().setSubject("AAAAAAAAAAAAAAAAAAAAAB").setExpiration(inOneHour)
+                .signWith(KEY).compact();
+
+        assertThat(verifier.verify(withHeader, now)).isNull();
+        assertThat(verifier.verify(withNotBefore, now)).isNull();
+        assertThat(verifier.verify(withoutExpiration, now)).isNull();
+        assertThat(verifier.verify(withNestedClaim, now)).isNull();
+        assertThat(verifier.verify(withNonUuidSubject, now)).isNull();
+        assertThat(verifier.verify(withNonCanonicalSubject, now)).isNull();
+        assertThat(verifier.verify("malformed.token", now)).isNull();
+        assertThat(verifier.verify("", now)).isNull();
+    }
+
+    @Test
+    void verifyShouldOnlyAllocateTheResult() {
+        String token = Jwts.builder().setSubject(userId.toString()).setIssuedAt(new Date(now))
+                .setExpiration(inOneHour).setId(tokenId.toString()).signWith(KEY).compact();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 20_000; i++) {
+            verifier.verify(token, now); // calentamiento: la carga de clases y el JIT sí reservan memoria
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            verifier.verify(token, now);
+        }
+        long perVerify = (threads.getThreadAllocatedBytes(threadId) - before) / 10_000;
+
+        // VerifiedToken + dos UUID + los arreglos internos del HMAC del JDK (~180 bytes medidos)
+        assertThat(perVerify).isLessThan(512);
+    }
+
+    private static String base64Url(UUID uuid) {
+        byte[] bytes = ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
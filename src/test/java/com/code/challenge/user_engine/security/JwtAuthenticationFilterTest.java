@@ -41,6 +41,7 @@ class JwtAuthenticationFilterTest {
 
     private final String validToken = "valid.token.here";
     private final UUID userId = UUID.randomUUID();
+    private final VerifiedToken verifiedToken = new VerifiedToken(validToken, userId, UUID.randomUUID(), Long.MAX_VALUE);
 
     @BeforeEach
     void setUp() {
@@ -71,8 +72,7 @@ class JwtAuthenticationFilterTest {
     void shouldProcessRequestWithValidToken() throws ServletException, IOException {
         when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtTokenUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        when(jwtTokenUtil.verifyToken(validToken)).thenReturn(verifiedToken);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -110,7 +110,7 @@ class JwtAuthenticationFilterTest {
 
         when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer invalid.token");
-        when(jwtTokenUtil.validateToken("invalid.token")).thenThrow(new InvalidTokenException("Invalid token"));
+        when(jwtTokenUtil.verifyToken("invalid.token")).thenThrow(new InvalidTokenException("Invalid token"));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -149,8 +149,7 @@ class JwtAuthenticationFilterTest {
     void shouldSetJwtAuthenticationWhenTokenValid() throws ServletException, IOException {
         when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtTokenUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        when(jwtTokenUtil.verifyToken(validToken)).thenReturn(verifiedToken);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -159,13 +158,14 @@ class JwtAuthenticationFilterTest {
         assertNotNull(authentication);
         assertEquals(userId, authentication.getPrincipal());
         assertEquals(validToken, authentication.getCredentials());
+        assertSame(verifiedToken, authentication.getVerifiedToken());
     }
 
     @Test
     void shouldNotSetAuthenticationForExpiredToken() throws ServletException, IOException {
         when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer expired.token");
-        when(jwtTokenUtil.validateToken("expired.token")).thenReturn(false);
+        when(jwtTokenUtil.verifyToken("expired.token")).thenReturn(null);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
@@ -197,11 +197,13 @@ class JwtAuthenticationFilterTest {
     void shouldClearSecurityContextAfterProcessing() throws ServletException, IOException {
         when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtTokenUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        when(jwtTokenUtil.verifyToken(validToken)).thenReturn(verifiedToken);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
+        verify(jwtTokenUtil, times(1)).verifyToken(validToken);
+        verifyNoMoreInteractions(jwtTokenUtil);
+
         // Clear context and verify it was actually set during processing
         SecurityContextHolder.clearContext();
         assertNull(SecurityContextHolder.getContext().getAuthentication());
@@ -111,4 +111,20 @@ class JwtAuthenticationTokenTest {
         assertEquals(authToken, sameToken);
         assertEquals(authToken.hashCode(), sameToken.hashCode());
     }
+
+    @Test
+    void shouldExposeVerifiedTokenClaims() {
+        VerifiedToken verifiedToken = new VerifiedToken(testToken, testUserId, UUID.randomUUID(), Long.MAX_VALUE);
+        JwtAuthenticationToken token = new JwtAuthenticationToken(verifiedToken);
+
+        assertSame(verifiedToken, token.getVerifiedToken());
+        assertEquals(testUserId, token.getPrincipal());
+        assertEquals(testToken, token.getCredentials());
+        assertEquals(authToken, token);
+    }
+
+    @Test
+    void shouldHaveNoVerifiedTokenWhenBuiltFromRawValues() {
+        assertNull(authToken.getVerifiedToken());
+    }
 }
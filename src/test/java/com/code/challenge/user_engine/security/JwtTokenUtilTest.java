@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.Date;
+import java.util.Map;
 import java.util.UUID;
 import javax.crypto.SecretKey;
 
 import com.code.challenge.user_engine.service.TokenBlacklist;
+import com.code.challenge.user_engine.service.TokenEpochs;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,11 +20,7 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
-
 import io.jsonwebtoken.*;
-import org.junit.jupiter.api.BeforeAll;
 import org.powermock.reflect.Whitebox;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,37 +29,32 @@ public class JwtTokenUtilTest {
     @Mock
     private TokenBlacklist tokenBlacklist;
 
+    @Mock
+    private TokenEpochs tokenEpochs;
+
     private static final SecretKey testSecretKey = Keys.secretKeyFor(SignatureAlgorithm.HS512);
     private JwtTokenUtil jwtTokenUtil;
+    private VerifiedTokenCache verifiedTokenCache;
     private final Long EXPIRATION = 3600L;
     private UUID testUserId;
 
-    @BeforeAll
-    static void setUpClass() throws Exception {
-        // Configuración del campo static final para testing
-        Field field = JwtTokenUtil.class.getDeclaredField("secret");
-        field.setAccessible(true);
-
-        // Remover modificador final
-        Field modifiersField = Field.class.getDeclaredField("modifiers");
-        modifiersField.setAccessible(true);
-        modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
-
-        // Establecer el valor
-        field.set(null, testSecretKey);
-    }
-
     @BeforeEach
     void setUp() {
         testUserId = UUID.randomUUID();
         jwtTokenUtil = new JwtTokenUtil();
+        verifiedTokenCache = new VerifiedTokenCache(100);
         Whitebox.setInternalState(jwtTokenUtil, "tokenBlacklist", tokenBlacklist);
+        Whitebox.setInternalState(jwtTokenUtil, "tokenEpochs", tokenEpochs);
+        lenient().when(tokenEpochs.isCurrent(any(UUID.class), anyInt())).thenReturn(true);
+        Whitebox.setInternalState(jwtTokenUtil, "verifiedTokenCache", verifiedTokenCache);
         Whitebox.setInternalState(jwtTokenUtil, "expiration", EXPIRATION);
+        Whitebox.setInternalState(jwtTokenUtil, "signingKeyRing", new SigningKeyRing("test", Map.of("test", testSecretKey)));
+        Whitebox.setInternalState(jwtTokenUtil, "randomSource", new RandomSource(1));
     }
 
     @Test
     void generateToken_shouldReturnValidJwtToken() {
-        String token = jwtTokenUtil.generateToken(testUserId);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
 
         assertNotNull(token);
         assertFalse(token.isEmpty());
@@ -76,7 +69,7 @@ public class JwtTokenUtilTest {
 
     @Test
     void generateToken_shouldContainExpirationDate() {
-        String token = jwtTokenUtil.generateToken(testUserId);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
         Claims claims = Jwts.parser()
                 .setSigningKey(testSecretKey)
                 .parseClaimsJws(token)
@@ -88,7 +81,7 @@ public class JwtTokenUtilTest {
 
     @Test
     void getUserIdFromToken_shouldReturnCorrectUserId() {
-        String token = jwtTokenUtil.generateToken(testUserId);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
         UUID userId = jwtTokenUtil.getUserIdFromToken(token);
 
         assertEquals(testUserId, userId);
@@ -105,16 +98,16 @@ public class JwtTokenUtilTest {
 
     @Test
     void validateToken_shouldReturnTrueForValidToken() {
-        String token = jwtTokenUtil.generateToken(testUserId);
-        when(tokenBlacklist.isBlacklisted(token)).thenReturn(false);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
 
         assertTrue(jwtTokenUtil.validateToken(token));
     }
 
     @Test
     void validateToken_shouldReturnFalseForBlacklistedToken() {
-        String token = jwtTokenUtil.generateToken(testUserId);
-        when(tokenBlacklist.isBlacklisted(token)).thenReturn(true);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(true);
 
         assertFalse(jwtTokenUtil.validateToken(token));
     }
@@ -129,8 +122,6 @@ public class JwtTokenUtilTest {
                 .signWith(testSecretKey)
                 .compact();
 
-        when(tokenBlacklist.isBlacklisted(expiredToken)).thenReturn(false);
-
         assertFalse(jwtTokenUtil.validateToken(expiredToken));
     }
 
@@ -164,15 +155,15 @@ public class JwtTokenUtilTest {
 
     @Test
     void validateToken_shouldReturnFalseWhenTokenBlacklistThrowsException() {
-        String token = "any.token";
-        when(tokenBlacklist.isBlacklisted(token)).thenThrow(new RuntimeException("Blacklist error"));
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenThrow(new RuntimeException("Blacklist error"));
 
         assertFalse(jwtTokenUtil.validateToken(token));
     }
 
     @Test
     void generateToken_shouldIncludeIssuedAtDate() {
-        String token = jwtTokenUtil.generateToken(testUserId);
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
         Claims claims = Jwts.parser()
                 .setSigningKey(testSecretKey)
                 .parseClaimsJws(token)
@@ -199,10 +190,267 @@ public class JwtTokenUtilTest {
 
     @Test
     void validateToken_shouldReturnFalseForTokenWithInvalidSignature() {
-        String validToken = jwtTokenUtil.generateToken(testUserId);
+        String validToken = jwtTokenUtil.generateToken(testUserId, 0);
         // Modificar el token para invalidar la firma
         String invalidSignatureToken = validToken.substring(0, validToken.length() - 5) + "abcde";
 
         assertFalse(jwtTokenUtil.validateToken(invalidSignatureToken));
     }
+
+    @Test
+    void validateToken_shouldCacheVerifiedToken() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        assertTrue(jwtTokenUtil.validateToken(token));
+        assertTrue(jwtTokenUtil.validateToken(token));
+
+        assertEquals(1, verifiedTokenCache.size());
+        assertEquals(1, verifiedTokenCache.getHits());
+        assertEquals(1, verifiedTokenCache.getMisses());
+    }
+
+    @Test
+    void getUserIdFromToken_shouldHitCacheAfterValidation() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        jwtTokenUtil.validateToken(token);
+
+        assertEquals(testUserId, jwtTokenUtil.getUserIdFromToken(token));
+        assertEquals(1, verifiedTokenCache.getHits());
+    }
+
+    @Test
+    void validateToken_shouldRejectBlacklistedTokenEvenWhenCached() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false, true);
+
+        assertTrue(jwtTokenUtil.validateToken(token));
+        assertFalse(jwtTokenUtil.validateToken(token));
+    }
+
+    @Test
+    void evictToken_shouldRemoveTokenFromCache() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        jwtTokenUtil.getUserIdFromToken(token);
+
+        jwtTokenUtil.evictToken(token);
+
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void verifyToken_shouldReturnClaimsForValidToken() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertNotNull(verifiedToken);
+        assertEquals(token, verifiedToken.getToken());
+        assertEquals(testUserId, verifiedToken.getUserId());
+        assertTrue(verifiedToken.getExpiresAt() > System.currentTimeMillis());
+    }
+
+    @Test
+    void verifyToken_shouldReturnNullForInvalidToken() {
+        assertNull(jwtTokenUtil.verifyToken("invalid.token"));
+        assertNull(jwtTokenUtil.verifyToken(null));
+    }
+
+    @Test
+    void verifyToken_shouldReturnNullForBlacklistedToken() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(true);
+
+        assertNull(jwtTokenUtil.verifyToken(token));
+    }
+
+    @Test
+    void generateToken_shouldIncludeUniqueTokenId() {
+        String first = jwtTokenUtil.generateToken(testUserId, 0);
+        String second = jwtTokenUtil.generateToken(testUserId, 0);
+
+        String firstId = Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(first).getBody().getId();
+        String secondId = Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(second).getBody().getId();
+
+        assertNotNull(firstId);
+        assertNotEquals(firstId, secondId);
+    }
+
+    @Test
+    void verifyToken_shouldCheckBlacklistByJti() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        UUID jti = UUID.fromString(Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(token).getBody().getId());
+
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertEquals(jti, verifiedToken.getTokenId());
+        verify(tokenBlacklist).isBlacklisted(jti);
+    }
+
+    @Test
+    void verifyToken_shouldFallBackToJjwtForTokensWithOtherShape() {
+        String token = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setSubject(testUserId.toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(testSecretKey)
+                .compact();
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertNotNull(verifiedToken);
+        assertEquals(testUserId, verifiedToken.getUserId());
+        assertEquals(TokenIds.digestOf(token), verifiedToken.getTokenId());
+    }
+
+    @Test
+    void verifyToken_shouldReadCompactSubjectInJjwtFallback() {
+        Whitebox.setInternalState(jwtTokenUtil, "signingKeyRing",
+                new SigningKeyRing("test", Map.of("test", testSecretKey), TokenProfile.COMPACT_HS256));
+        SecretKey hs256Key = SigningKeyRing.deriveKey(testSecretKey, SignatureAlgorithm.HS256);
+        String compact = jwtTokenUtil.generateToken(testUserId, 0);
+        Claims claims = Jwts.parser().setSigningKey(hs256Key).parseClaimsJws(compact).getBody();
+        String token = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setClaims(claims)
+                .signWith(hs256Key, SignatureAlgorithm.HS256)
+                .compact();
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertNotNull(verifiedToken);
+        assertEquals(22, claims.getSubject().length());
+        assertEquals(testUserId, verifiedToken.getUserId());
+        assertEquals(jwtTokenUtil.verifyToken(compact).getTokenId(), verifiedToken.getTokenId());
+    }
+
+    @Test
+    void generateToken_shouldWriteActiveKidInHeader() {
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+
+        JwsHeader<?> header = Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(token).getHeader();
+
+        assertEquals("test", header.getKeyId());
+    }
+
+    @Test
+    void verifyToken_shouldAcceptTokenSignedWithVerifyOnlyKey() {
+        SecretKey previousKey = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        Whitebox.setInternalState(jwtTokenUtil, "signingKeyRing",
+                new SigningKeyRing("test", Map.of("test", testSecretKey, "previous", previousKey)));
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "previous")
+                .setSubject(testUserId.toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .setId(UUID.randomUUID().toString())
+                .signWith(previousKey)
+                .compact();
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertNotNull(verifiedToken);
+        assertEquals(testUserId, verifiedToken.getUserId());
+    }
+
+    @Test
+    void verifyToken_shouldRejectTokenWithUnknownKid() {
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "unknown")
+                .setSubject(testUserId.toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(testSecretKey)
+                .compact();
+
+        assertNull(jwtTokenUtil.verifyToken(token));
+    }
+
+    @Test
+    void generateToken_shouldEmbedTokenEpoch() {
+        String token = jwtTokenUtil.generateToken(testUserId, 7);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        Claims claims = Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(token).getBody();
+
+        assertEquals(7, claims.get("epoch", Integer.class));
+        assertEquals(7, jwtTokenUtil.verifyToken(token).getTokenEpoch());
+        verify(tokenEpochs).isCurrent(testUserId, 7);
+    }
+
+    @Test
+    void verifyToken_shouldRejectTokenFromRevokedEpoch() {
+        String token = jwtTokenUtil.generateToken(testUserId, 2);
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+        when(tokenEpochs.isCurrent(testUserId, 2)).thenReturn(false);
+
+        assertNull(jwtTokenUtil.verifyToken(token));
+        assertFalse(jwtTokenUtil.validateToken(token));
+    }
+
+    @Test
+    void verifyToken_shouldTreatMissingEpochClaimAsZero() {
+        String token = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setSubject(testUserId.toString())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(testSecretKey)
+                .compact();
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        assertEquals(0, jwtTokenUtil.verifyToken(token).getTokenEpoch());
+        verify(tokenEpochs).isCurrent(testUserId, 0);
+    }
+
+    @Test
+    void opaqueMode_shouldIssueAndResolveOpaqueTokens() {
+        Whitebox.setInternalState(jwtTokenUtil, "opaqueTokenStore", new OpaqueTokenStore(64, new RandomSource(1)));
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        String token = jwtTokenUtil.generateToken(testUserId, 2);
+        VerifiedToken verifiedToken = jwtTokenUtil.verifyToken(token);
+
+        assertEquals(OpaqueTokenStore.TOKEN_LENGTH, token.length());
+        assertEquals(testUserId, verifiedToken.getUserId());
+        assertEquals(2, verifiedToken.getTokenEpoch());
+        assertEquals(testUserId, jwtTokenUtil.getUserIdFromToken(token));
+        verify(tokenEpochs).isCurrent(testUserId, 2);
+    }
+
+    @Test
+    void opaqueMode_shouldRejectEvictedToken() {
+        Whitebox.setInternalState(jwtTokenUtil, "opaqueTokenStore", new OpaqueTokenStore(64, new RandomSource(1)));
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+
+        jwtTokenUtil.evictToken(token);
+
+        assertNull(jwtTokenUtil.verifyToken(token));
+        assertThrows(JwtException.class, () -> jwtTokenUtil.getUserIdFromToken(token));
+    }
+
+    @Test
+    void opaqueMode_shouldStillAcceptSignedTokens() {
+        String signed = jwtTokenUtil.generateToken(testUserId, 0);
+        Whitebox.setInternalState(jwtTokenUtil, "opaqueTokenStore", new OpaqueTokenStore(64, new RandomSource(1)));
+        when(tokenBlacklist.isBlacklisted(any(UUID.class))).thenReturn(false);
+
+        assertEquals(testUserId, jwtTokenUtil.verifyToken(signed).getUserId());
+    }
+
+    @Test
+    void generateToken_withRefreshTokens_shouldUseAccessExpiration() {
+        Whitebox.setInternalState(jwtTokenUtil, "refreshEnabled", true);
+        Whitebox.setInternalState(jwtTokenUtil, "accessExpiration", 300L);
+        long before = System.currentTimeMillis();
+
+        String token = jwtTokenUtil.generateToken(testUserId, 0);
+        Claims claims = Jwts.parser().setSigningKey(testSecretKey).parseClaimsJws(token).getBody();
+
+        long lifetime = claims.getExpiration().getTime() - before;
+        assertTrue(lifetime <= 300_000 && lifetime > 298_000);
+    }
 }
@@ -0,0 +1,130 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpaqueTokenStoreTest {
+
+    private final long now = System.currentTimeMillis();
+    private final UUID userId = UUID.randomUUID();
+    private final OpaqueTokenStore store = new OpaqueTokenStore(64, new RandomSource(1));
+
+    @Test
+    void shouldResolveIssuedToken() {
+        String token = store.issue(userId, now + 60_000, 3);
+
+        VerifiedToken resolved = store.resolve(token, now);
+
+        assertThat(token).hasSize(OpaqueTokenStore.TOKEN_LENGTH);
+        assertThat(OpaqueTokenStore.isOpaque(token)).isTrue();
+        assertThat(resolved.getToken()).isEqualTo(token);
+        assertThat(resolved.getUserId()).isEqualTo(userId);
+        assertThat(resolved.getExpiresAt()).isEqualTo(now + 60_000);
+        assertThat(resolved.getTokenEpoch()).isEqualTo(3);
+    }
+
+    @Test
+    void tokenIdShouldBeTheRandomBytesOfTheToken() {
+        String token = store.issue(userId, now + 60_000, 0);
+        ByteBuffer bytes = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+
+        assertThat(store.resolve(token, now).getTokenId()).isEqualTo(new UUID(bytes.getLong(), bytes.getLong()));
+    }
+
+    @Test
+    void shouldNotResolveExpiredOrRevokedTokens() {
+        String expiring = store.issue(userId, now + 1_000, 0);
+        String revoked = store.issue(userId, now + 60_000, 0);
+
+        assertThat(store.revoke(revoked)).isTrue();
+        assertThat(store.revoke(revoked)).isFalse();
+
+        assertThat(store.resolve(expiring, now + 1_000)).isNull();
+        assertThat(store.resolve(revoked, now)).isNull();
+    }
+
+    @Test
+    void shouldRejectUnknownAndMalformedTokens() {
+        assertThat(store.resolve("AAAAAAAAAAAAAAAAAAAAAA", now)).isNull();
+        assertThat(store.resolve("AAAAAAAAAAAAAAAAAAAAAB", now)).isNull(); // bits sobrantes distintos de cero
+        assertThat(store.resolve("AAAAAAAAAAAAAAAAAAAAA*", now)).isNull();
+        assertThat(store.resolve("short", now)).isNull();
+        assertThat(store.revoke("short")).isFalse();
+        assertThat(OpaqueTokenStore.isOpaque("aaaaaaaaaa.aaaaaaaaaaa")).isFalse();
+    }
+
+    @Test
+    void shouldGrowWhenLiveTokensFillTheTable() {
+        Map<String, UUID> issued = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID owner = UUID.randomUUID();
+            issued.put(store.issue(owner, now + 60_000, i), owner);
+        }
+
+        issued.forEach((token, owner) -> assertThat(store.resolve(token, now).getUserId()).isEqualTo(owner));
+        assertThat(store.capacity()).isGreaterThanOrEqualTo(8_192);
+    }
+
+    @Test
+    void shouldReuseSlotsOfExpiredTokens() {
+        for (int i = 0; i < 100_000; i++) {
+            store.issue(userId, 1, 0);
+        }
+
+        assertThat(store.capacity()).isEqualTo(64);
+    }
+
+    @Test
+    void readersShouldNeverSeeTornEntriesWhileWritersChurn() throws Exception {
+        String[] tokens = new String[2_000];
+        UUID[] owners = new UUID[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            owners[i] = UUID.randomUUID();
+            tokens[i] = store.issue(owners[i], Long.MAX_VALUE, i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong wrong = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int r = 0; r < 3; r++) {
+            executor.submit(() -> {
+                Random random = new Random();
+                while (!done.get()) {
+                    int i = random.nextInt(tokens.length);
+                    VerifiedToken resolved = store.resolve(tokens[i], now);
+                    if (resolved == null || !resolved.getUserId().equals(owners[i]) || resolved.getTokenEpoch() != i) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+        }
+        // Altas, vencimientos y revocaciones que fuerzan reutilización de slots y reconstrucciones de la tabla
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                String token = store.issue(UUID.randomUUID(), i % 3 == 0 ? 1 : now + 60_000, 7);
+                if (i % 5 == 0) {
+                    store.revoke(token);
+                }
+            }
+            done.set(true);
+        });
+        writer.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(wrong.get()).isZero();
+    }
+}
@@ -0,0 +1,150 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RandomSourceTest {
+
+    @Test
+    void shouldRoundStripesToPowerOfTwo() {
+        assertThat(new RandomSource(1).getStripes()).isEqualTo(1);
+        assertThat(new RandomSource(3).getStripes()).isEqualTo(4);
+        assertThat(new RandomSource(8).getStripes()).isEqualTo(8);
+        assertThatThrownBy(() -> new RandomSource(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void randomUuidShouldBeVersion4() {
+        RandomSource randomSource = new RandomSource(2);
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID uuid = randomSource.randomUuid();
+            assertThat(uuid.version()).isEqualTo(4);
+            assertThat(uuid.variant()).isEqualTo(2);
+            seen.add(uuid);
+        }
+        assertThat(seen).hasSize(10_000);
+    }
+
+    @Test
+    void timeOrderedUuidShouldBeVersion7WithTheCurrentMillisecond() {
+        RandomSource randomSource = new RandomSource(2);
+        long before = System.currentTimeMillis();
+
+        UUID uuid = randomSource.timeOrderedUuid();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, System.currentTimeMillis());
+    }
+
+    @Test
+    void timeOrderedUuidShouldStayMonotonicWithinAMillisecondAndWithClockGoingBack() {
+        RandomSource randomSource = new RandomSource(1);
+        long now = 1_700_000_000_000L;
+        UUID previous = randomSource.timeOrderedUuid(now);
+        // 10000 ids en el mismo milisegundo desbordan el contador de 12 bits al menos dos veces
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = randomSource.timeOrderedUuid(i == 5_000 ? now - 1_000 : now);
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits())).isPositive();
+            assertThat(next.version()).isEqualTo(7);
+            previous = next;
+        }
+        assertThat(previous.getMostSignificantBits() >>> 16).isGreaterThan(now);
+
+        UUID later = randomSource.timeOrderedUuid(now + 60_000);
+        assertThat(later.getMostSignificantBits() >>> 16).isEqualTo(now + 60_000);
+    }
+
+    @Test
+    void timeOrderedUuidsShouldBeUniqueAndOrderedPerThread() throws Exception {
+        RandomSource randomSource = new RandomSource(4);
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                long previous = 0;
+                for (int i = 0; i < 5_000; i++) {
+                    UUID uuid = randomSource.timeOrderedUuid();
+                    assertThat(Long.compareUnsigned(uuid.getMostSignificantBits(), previous)).isPositive();
+                    previous = uuid.getMostSignificantBits();
+                    seen.add(uuid);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(seen).hasSize(16 * 5_000);
+    }
+
+    @Test
+    void blocksShouldNotRepeatAcrossRefillsOrReseeds() {
+        RandomSource randomSource = new RandomSource(1);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            byte[] bytes = new byte[24]; // no divide al bloque: obliga a recargarlo a mitad de camino
+            randomSource.nextBytes(bytes);
+            assertThat(seen.add(Arrays.toString(bytes))).isTrue();
+            if (i % 100 == 0) {
+                randomSource.reseed();
+            }
+        }
+        byte[] large = new byte[4096];
+        randomSource.nextBytes(large);
+        assertThat(large).isNotEqualTo(new byte[4096]);
+    }
+
+    @Test
+    void secureRandomViewShouldSaltBCrypt() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4, new RandomSource(1).asSecureRandom());
+
+        String first = encoder.encode("passwoR34d");
+        String second = encoder.encode("passwoR34d");
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(encoder.matches("passwoR34d", first)).isTrue();
+        assertThat(encoder.matches("passwoR34d", second)).isTrue();
+    }
+
+    @Test
+    void concurrentThreadsShouldNotShareOutput() throws Exception {
+        RandomSource randomSource = new RandomSource(4);
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    seen.add(randomSource.randomUuid());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(seen).hasSize(16 * 5_000);
+    }
+}
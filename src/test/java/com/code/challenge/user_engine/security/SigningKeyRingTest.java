@@ -0,0 +1,192 @@
+package com.code.challenge.user_engine.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SigningKeyRingTest {
+
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path directory;
+
+    private final SecretKey current = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    private final SecretKey previous = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+    private final UUID userId = UUID.randomUUID();
+    private final long now = System.currentTimeMillis();
+
+    @Test
+    void nodesSharingKeystoreShouldAcceptEachOthersTokens() throws Exception {
+        Path keystore = writeKeystore(Map.of("current", current, "previous", previous));
+        SigningKeyRing nodeA = new SigningKeyRing(keystore.toString(), PASSWORD, "current", "legacy");
+        SigningKeyRing nodeB = new SigningKeyRing(keystore.toString(), PASSWORD, "current", "legacy");
+
+        String token = nodeA.mint(userId, now, now + 60_000, UUID.randomUUID(), 0);
+
+        assertThat(nodeB.verify(token, now).getUserId()).isEqualTo(userId);
+        assertThat(nodeB.parseClaims(token).getSubject()).isEqualTo(userId.toString());
+    }
+
+    @Test
+    void verifyOnlyKeyShouldStillAcceptTokensAfterRotation() throws Exception {
+        Path keystore = writeKeystore(Map.of("current", current, "previous", previous));
+        SigningKeyRing beforeRotation = new SigningKeyRing(keystore.toString(), PASSWORD, "previous", "legacy");
+        SigningKeyRing afterRotation = new SigningKeyRing(keystore.toString(), PASSWORD, "current", "legacy");
+
+        String oldToken = beforeRotation.mint(userId, now, now + 60_000, UUID.randomUUID(), 0);
+        String newToken = afterRotation.mint(userId, now, now + 60_000, UUID.randomUUID(), 0);
+
+        assertThat(afterRotation.verify(oldToken, now).getUserId()).isEqualTo(userId);
+        assertThat(Jwts.parser().setSigningKey(current).parseClaimsJws(newToken).getHeader().getKeyId())
+                .isEqualTo("current");
+    }
+
+    @Test
+    void activeKidShouldIgnoreCase() throws Exception {
+        Path keystore = writeKeystore(Map.of("current", current));
+
+        assertThat(new SigningKeyRing(keystore.toString(), PASSWORD, "Current", "legacy").getActiveKid()).isEqualTo("current");
+    }
+
+    @Test
+    void shouldRejectTokenWithUnknownKid() {
+        SigningKeyRing ring = new SigningKeyRing("current", Map.of("current", current));
+        SecretKey other = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        String token = Jwts.builder().setHeaderParam("kid", "other").setSubject(userId.toString())
+                .setExpiration(new Date(now + 60_000)).signWith(other).compact();
+
+        assertThat(ring.verify(token, now)).isNull();
+        assertThatThrownBy(() -> ring.parseClaims(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void tokenWithoutKidShouldUseActiveKey() {
+        SigningKeyRing ring = new SigningKeyRing("current", Map.of("current", current, "previous", previous));
+        String token = Jwts.builder().setSubject(userId.toString()).signWith(current).compact();
+
+        assertThat(ring.parseClaims(token).getSubject()).isEqualTo(userId.toString());
+    }
+
+    @Test
+    void shouldUseProcessLocalKeyWithoutKeystore() {
+        SigningKeyRing ring = new SigningKeyRing("", "", "", "legacy");
+
+        String token = ring.mint(userId, now, now + 60_000, UUID.randomUUID(), 0);
+
+        assertThat(ring.getActiveKid()).isEqualTo(SigningKeyRing.LOCAL_KID);
+        assertThat(ring.verify(token, now).getUserId()).isEqualTo(userId);
+    }
+
+    @Test
+    void nodesWithDifferentProfilesShouldAcceptEachOthersTokens() {
+        Map<String, SecretKey> keys = Map.of("current", current);
+        SigningKeyRing legacy = new SigningKeyRing("current", keys, TokenProfile.LEGACY);
+        SigningKeyRing compact = new SigningKeyRing("current", keys, TokenProfile.COMPACT);
+        SigningKeyRing hs256 = new SigningKeyRing("current", keys, TokenProfile.COMPACT_HS256);
+        UUID tokenId = UUID.randomUUID();
+
+        for (SigningKeyRing issuer : new SigningKeyRing[]{legacy, compact, hs256}) {
+            String token = issuer.mint(userId, now, now + 60_000, tokenId, 2);
+            for (SigningKeyRing verifier : new SigningKeyRing[]{legacy, compact, hs256}) {
+                VerifiedToken verifiedToken = verifier.verify(token, now);
+                assertThat(verifiedToken.getUserId()).isEqualTo(userId);
+                assertThat(verifiedToken.getTokenId()).isEqualTo(tokenId);
+                assertThat(verifiedToken.getTokenEpoch()).isEqualTo(2);
+                assertThat(verifier.parseClaims(token).get("epoch", Integer.class)).isEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    void hs256ShouldNotSignWithTheHs512Secret() {
+        SigningKeyRing ring = new SigningKeyRing("current", Map.of("current", current), TokenProfile.COMPACT_HS256);
+        SecretKey hs256Key = SigningKeyRing.deriveKey(current, SignatureAlgorithm.HS256);
+        String withSecret = Jwts.builder().setHeaderParam("kid", "current").setSubject(userId.toString())
+                .setExpiration(new Date(now + 60_000)).signWith(current, SignatureAlgorithm.HS256).compact();
+        String withDerivedKey = Jwts.builder().setHeaderParam("kid", "current").setSubject(userId.toString())
+                .setExpiration(new Date(now + 60_000)).signWith(hs256Key, SignatureAlgorithm.HS256).compact();
+
+        String minted = ring.mint(userId, now, now + 60_000, UUID.randomUUID(), 0);
+
+        assertThat(hs256Key.getEncoded()).hasSize(32).isNotEqualTo(current.getEncoded());
+        assertThat(SigningKeyRing.deriveKey(current, SignatureAlgorithm.HS512)).isSameAs(current);
+        assertThatThrownBy(() -> Jwts.parserBuilder().setSigningKey(current).build().parseClaimsJws(minted))
+                .isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> ring.verify(withSecret, now)).isInstanceOf(SignatureException.class);
+        assertThatThrownBy(() -> ring.parseClaims(withSecret)).isInstanceOf(SignatureException.class);
+        assertThat(ring.parseClaims(withDerivedKey).getSubject()).isEqualTo(userId.toString());
+    }
+
+    @Test
+    void shouldRejectUnsupportedAlgorithm() {
+        SigningKeyRing ring = new SigningKeyRing("current", Map.of("current", current));
+        String token = Jwts.builder().setHeaderParam("kid", "current").setSubject(userId.toString())
+                .signWith(current, SignatureAlgorithm.HS384).compact();
+
+        assertThat(ring.verify(token, now)).isNull();
+        assertThatThrownBy(() -> ring.parseClaims(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void compactProfileShouldShortenTokens() {
+        Map<String, SecretKey> keys = Map.of("current", current);
+        UUID tokenId = UUID.randomUUID();
+
+        String legacy = new SigningKeyRing("current", keys, TokenProfile.LEGACY).mint(userId, now, now + 60_000, tokenId, 0);
+        String compact = new SigningKeyRing("current", keys, TokenProfile.COMPACT).mint(userId, now, now + 60_000, tokenId, 0);
+        String hs256 = new SigningKeyRing("current", keys, TokenProfile.COMPACT_HS256).mint(userId, now, now + 60_000, tokenId, 0);
+
+        assertThat(compact.length()).isLessThan(legacy.length() - 60);
+        assertThat(hs256.length()).isEqualTo(compact.length() - 43);
+    }
+
+    @Test
+    void shouldFailFastOnMisconfiguration() throws Exception {
+        Path keystore = writeKeystore(Map.of("current", current));
+        SecretKey shortKey = new SecretKeySpec(new byte[32], "HmacSHA512");
+
+        assertThatThrownBy(() -> new SigningKeyRing(keystore.toString(), PASSWORD, "missing", "legacy"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SigningKeyRing(keystore.toString(), "wrong", "current", "legacy"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SigningKeyRing(directory.resolve("absent.p12").toString(), PASSWORD, "current", "legacy"))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SigningKeyRing("short", Map.of("short", shortKey)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SigningKeyRing("bad\"kid", Map.of("bad\"kid", current)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new SigningKeyRing("", "", "", "tiny"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private Path writeKeystore(Map<String, SecretKey> keys) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, PASSWORD.toCharArray());
+        for (Map.Entry<String, SecretKey> entry : keys.entrySet()) {
+            keyStore.setEntry(entry.getKey(), new KeyStore.SecretKeyEntry(entry.getValue()),
+                    new KeyStore.PasswordProtection(PASSWORD.toCharArray()));
+        }
+        Path path = directory.resolve("signing-keys.p12");
+        try (OutputStream out = Files.newOutputStream(path)) {
+            keyStore.store(out, PASSWORD.toCharArray());
+        }
+        return path;
+    }
+}
@@ -0,0 +1,29 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenIdsTest {
+
+    @Test
+    void digestShouldBeStableForSameToken() {
+        assertThat(TokenIds.digestOf("a.b.c")).isEqualTo(TokenIds.digestOf("a.b.c"));
+    }
+
+    @Test
+    void digestShouldDifferForDifferentTokens() {
+        assertThat(TokenIds.digestOf("a.b.c")).isNotEqualTo(TokenIds.digestOf("a.b.d"));
+    }
+
+    @Test
+    void digestShouldHandleEmptyAndUnicodeTokens() {
+        UUID empty = TokenIds.digestOf("");
+        UUID unicode = TokenIds.digestOf("tokén☕️");
+
+        assertThat(empty).isNotNull();
+        assertThat(unicode).isNotEqualTo(empty);
+    }
+}
@@ -0,0 +1,103 @@
+package com.code.challenge.user_engine.security;
+
+import com.code.challenge.user_engine.model.User;
+import com.code.challenge.user_engine.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserCredentialsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserCredentialsService userCredentialsService;
+
+    @Test
+    void shouldLoadUserByEmail() {
+        User user = User.builder().email("someone@example.com").password("$2a$10$hash").isActive(true).build();
+        when(userRepository.findByEmail("someone@example.com")).thenReturn(Optional.of(user));
+
+        UserDetails details = userCredentialsService.loadUserByUsername("someone@example.com");
+
+        assertThat(details.getUsername()).isEqualTo("someone@example.com");
+        assertThat(details.getPassword()).isEqualTo("$2a$10$hash");
+        assertThat(details.isEnabled()).isTrue();
+    }
+
+    @Test
+    void shouldFailForUnknownEmail() {
+        when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userCredentialsService.loadUserByUsername("missing@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    @Test
+    void successfulVerificationShouldRehashWeakerPassword() {
+        User user = User.builder().email("someone@example.com").password(new BCryptPasswordEncoder(4).encode("passwoR34d"))
+                .isActive(true).build();
+        when(userRepository.findByEmail("someone@example.com")).thenReturn(Optional.of(user));
+        DaoAuthenticationProvider provider = provider(new BCryptPasswordEncoder(5));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("someone@example.com", "passwoR34d"));
+
+        assertThat(user.getPassword()).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder(5).matches("passwoR34d", user.getPassword())).isTrue();
+        assertThat(userCredentialsService.getUpgrades()).isEqualTo(1);
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void currentStrengthShouldNotBeRehashed() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        String hash = encoder.encode("passwoR34d");
+        User user = User.builder().email("someone@example.com").password(hash).isActive(true).build();
+        when(userRepository.findByEmail("someone@example.com")).thenReturn(Optional.of(user));
+
+        provider(encoder).authenticate(new UsernamePasswordAuthenticationToken("someone@example.com", "passwoR34d"));
+
+        assertThat(user.getPassword()).isEqualTo(hash);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void wrongPasswordShouldNotBeRehashed() {
+        User user = User.builder().email("someone@example.com").password(new BCryptPasswordEncoder(4).encode("passwoR34d"))
+                .isActive(true).build();
+        when(userRepository.findByEmail("someone@example.com")).thenReturn(Optional.of(user));
+
+        assertThatThrownBy(() -> provider(new BCryptPasswordEncoder(5))
+                .authenticate(new UsernamePasswordAuthenticationToken("someone@example.com", "wrongPass12")))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(userRepository, never()).save(any());
+    }
+
+    // Mismo armado que hace AuthenticationConfiguration con los beans de la aplicación
+    private DaoAuthenticationProvider provider(BCryptPasswordEncoder encoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userCredentialsService);
+        provider.setUserDetailsPasswordService(userCredentialsService);
+        provider.setPasswordEncoder(encoder);
+        return provider;
+    }
+}
@@ -0,0 +1,153 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(10);
+    }
+
+    private long inOneHour() {
+        return System.currentTimeMillis() + 3_600_000L;
+    }
+
+    @Test
+    void shouldReturnNullOnMiss() {
+        assertThat(cache.get("unknown")).isNull();
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isZero();
+    }
+
+    @Test
+    void shouldReturnUserIdOnHit() {
+        cache.put(new VerifiedToken("token", userId, UUID.randomUUID(), inOneHour()));
+
+        assertThat(cache.get("token").getUserId()).isEqualTo(userId);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotReturnExpiredEntry() {
+        cache.put(new VerifiedToken("token", userId, UUID.randomUUID(), System.currentTimeMillis() + 50));
+        assertThat(cache.size()).isEqualTo(1);
+
+        await(100);
+
+        assertThat(cache.get("token")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldIgnoreAlreadyExpiredTokens() {
+        cache.put(new VerifiedToken("token", userId, UUID.randomUUID(), System.currentTimeMillis() - 1));
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldInvalidateEntry() {
+        cache.put(new VerifiedToken("token", userId, UUID.randomUUID(), inOneHour()));
+
+        cache.invalidate("token");
+
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void shouldHandleNullToken() {
+        cache.put(null);
+        cache.put(new VerifiedToken(null, userId, UUID.randomUUID(), inOneHour()));
+        cache.invalidate(null);
+
+        assertThat(cache.get(null)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldNeverGrowBeyondMaxSize() {
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(new VerifiedToken("token" + i, UUID.randomUUID(), UUID.randomUUID(), inOneHour()));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(cache.getMaxSize());
+        assertThat(cache.get("token999")).isNotNull();
+    }
+
+    @Test
+    void shouldSweepOnlyExpiredEntries() {
+        cache.put(new VerifiedToken("short", userId, UUID.randomUUID(), System.currentTimeMillis() + 50));
+        cache.put(new VerifiedToken("long", userId, UUID.randomUUID(), inOneHour()));
+
+        await(100);
+
+        assertThat(cache.sweepExpired()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("long")).isNotNull();
+    }
+
+    @Test
+    void shouldEvictExpiredEntriesBeforeLiveOnesWhenFull() {
+        VerifiedTokenCache small = new VerifiedTokenCache(32);
+        small.put(new VerifiedToken("keep0", userId, UUID.randomUUID(), inOneHour()));
+        small.put(new VerifiedToken("keep1", userId, UUID.randomUUID(), inOneHour()));
+        for (int i = 0; i < 30; i++) {
+            small.put(new VerifiedToken("short" + i, userId, UUID.randomUUID(), System.currentTimeMillis() + 50));
+        }
+
+        await(100);
+        small.put(new VerifiedToken("new", userId, UUID.randomUUID(), inOneHour()));
+
+        // El lote es de maxSize/16 = 2 y sale de las vencidas: las vigentes siguen y el resto queda para el barrido
+        assertThat(small.size()).isEqualTo(31);
+        assertThat(small.get("keep0")).isNotNull();
+        assertThat(small.get("keep1")).isNotNull();
+        assertThat(small.get("new")).isNotNull();
+    }
+
+    @Test
+    void shouldRejectNonPositiveMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedTokenCache(0));
+    }
+
+    @Test
+    void shouldStayBoundedUnderConcurrency() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String token = "t" + thread + "-" + i;
+                    cache.put(new VerifiedToken(token, userId, UUID.randomUUID(), inOneHour()));
+                    cache.get(token);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(cache.size()).isLessThanOrEqualTo(cache.getMaxSize() + 8);
+        assertThat(cache.getHits() + cache.getMisses()).isEqualTo(4_000);
+    }
+
+    private static void await(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
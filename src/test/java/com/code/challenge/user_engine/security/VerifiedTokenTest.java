@@ -0,0 +1,38 @@
+package com.code.challenge.user_engine.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID tokenId = UUID.randomUUID();
+
+    @Test
+    void shouldExposeClaims() {
+        VerifiedToken verifiedToken = new VerifiedToken("a.b.c", userId, tokenId, 1_000L);
+
+        assertThat(verifiedToken.getToken()).isEqualTo("a.b.c");
+        assertThat(verifiedToken.getUserId()).isEqualTo(userId);
+        assertThat(verifiedToken.getTokenId()).isEqualTo(tokenId);
+        assertThat(verifiedToken.getExpiresAt()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void shouldBeExpiredAtExactExpiration() {
+        VerifiedToken verifiedToken = new VerifiedToken("a.b.c", userId, tokenId, 1_000L);
+
+        assertThat(verifiedToken.isExpired(999L)).isFalse();
+        assertThat(verifiedToken.isExpired(1_000L)).isTrue();
+    }
+
+    @Test
+    void toStringShouldNotExposeToken() {
+        VerifiedToken verifiedToken = new VerifiedToken("secret.jwt.value", userId, tokenId, 1_000L);
+
+        assertThat(verifiedToken.toString()).doesNotContain("secret.jwt.value");
+    }
+}
@@ -0,0 +1,128 @@
+package com.code.challenge.user_engine.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BreachedPasswordsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldFindEveryRecordAndNothingElse() throws IOException {
+        byte[][] digests = randomDigests(10_000, new Random(1));
+        BreachedPasswords breached = new BreachedPasswords(write(digests), 7); // muchas páginas chicas
+
+        assertThat(breached.getRecords()).isEqualTo(10_000);
+        assertThat(breached.getIndexSize()).isEqualTo((10_000 + 6) / 7);
+        for (byte[] digest : digests) {
+            assertThat(breached.contains(digest)).isTrue();
+        }
+        for (byte[] absent : randomDigests(10_000, new Random(2))) {
+            assertThat(breached.contains(absent)).isFalse();
+        }
+    }
+
+    @Test
+    void shouldMatchPasswordsBySha1() throws IOException {
+        byte[][] digests = {BreachedPasswords.sha1("passwoR34d"), BreachedPasswords.sha1("qwertY12345")};
+        BreachedPasswords breached = new BreachedPasswords(write(digests), 4096);
+
+        assertThat(breached.isBreached("passwoR34d")).isTrue();
+        assertThat(breached.isBreached("qwertY12345")).isTrue();
+        assertThat(breached.isBreached("otraClave12")).isFalse();
+        assertThat(breached.getLookups()).isEqualTo(3);
+        assertThat(breached.getHits()).isEqualTo(2);
+        assertThat(breached.getLookupNanos()).isPositive();
+    }
+
+    @Test
+    void sharedPrefixAcrossPagesShouldStillBeFound() throws IOException {
+        // Los mismos 8 bytes iniciales a ambos lados de un corte de página
+        byte[][] digests = new byte[6][];
+        for (int i = 0; i < digests.length; i++) {
+            ByteBuffer digest = ByteBuffer.allocate(BreachedPasswords.RECORD_BYTES);
+            digest.putLong(0, i < 1 ? 1 : i < 5 ? 2 : 3);
+            digest.putLong(8, i);
+            digests[i] = digest.array();
+        }
+        BreachedPasswords breached = new BreachedPasswords(write(digests), 2);
+
+        for (byte[] digest : digests) {
+            assertThat(breached.contains(digest)).isTrue();
+        }
+        ByteBuffer missing = ByteBuffer.allocate(BreachedPasswords.RECORD_BYTES);
+        missing.putLong(0, 2);
+        missing.putLong(8, 9);
+        assertThat(breached.contains(missing.array())).isFalse();
+    }
+
+    @Test
+    void lookupShouldReadOnePageOfTheFile() throws IOException {
+        byte[][] digests = randomDigests(200_000, new Random(3));
+        BreachedPasswords breached = new BreachedPasswords(write(digests), 4096);
+        for (int i = 0; i < 10_000; i++) {
+            breached.isBreached("clave" + i);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            breached.contains(digests[i * 200]);
+        }
+
+        // La búsqueda binaria queda dentro de una página de 4096 registros: a lo sumo 13 lecturas por consulta,
+        // contra 18 si recorriera los 200000 registros
+        assertThat(breached.getIndexSize()).isEqualTo(49);
+        assertThat(breached.getRecordReads()).isLessThanOrEqualTo(13L * 11_000);
+    }
+
+    @Test
+    void withoutFileNothingIsBreached() {
+        BreachedPasswords breached = new BreachedPasswords("", 4096);
+
+        assertThat(breached.isEnabled()).isFalse();
+        assertThat(breached.isBreached("passwoR34d")).isFalse();
+        assertThat(breached.getLookups()).isZero();
+    }
+
+    @Test
+    void shouldRejectInvalidFiles() throws IOException {
+        Path truncated = tempDir.resolve("truncated.sha1");
+        Files.write(truncated, new byte[BreachedPasswords.RECORD_BYTES + 3]);
+
+        assertThatThrownBy(() -> new BreachedPasswords(truncated, 4096)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new BreachedPasswords(tempDir.resolve("missing.sha1"), 4096))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> new BreachedPasswords("", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Path write(byte[][] digests) throws IOException {
+        Path file = Files.createTempFile(tempDir, "breached", ".sha1");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (byte[] digest : digests) {
+                out.write(digest);
+            }
+        }
+        return file;
+    }
+
+    // Ordenados como bytes sin signo, igual que la lista de HIBP por hash
+    private static byte[][] randomDigests(int count, Random random) {
+        byte[][] digests = new byte[count][BreachedPasswords.RECORD_BYTES];
+        for (byte[] digest : digests) {
+            random.nextBytes(digest);
+        }
+        Arrays.sort(digests, Arrays::compareUnsigned);
+        return digests;
+    }
+}
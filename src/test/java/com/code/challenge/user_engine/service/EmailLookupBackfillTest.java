@@ -0,0 +1,189 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.UserEngineApplication;
+import com.code.challenge.user_engine.dto.SignUpRequest;
+import com.code.challenge.user_engine.exception.UserAlreadyExistsException;
+import com.code.challenge.user_engine.model.MigrationState;
+import com.code.challenge.user_engine.model.User;
+import com.code.challenge.user_engine.repository.MigrationStateRepository;
+import com.code.challenge.user_engine.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Aplicación completa con filas escritas como antes de {@code canonical_email} y {@code email_hash}: se encuentran
+ * por el email exacto mientras el backfill no pasó y por el email canónico después. Si el fallback por el email
+ * exacto sigue activo lo decide {@code migration_state}, no la ausencia momentánea de filas viejas.
+ */
+class EmailLookupBackfillTest {
+
+    private static ConfigurableApplicationContext context;
+    private static UserRepository userRepository;
+    private static EmailLookupBackfill backfill;
+    private static MigrationStateRepository migrationStateRepository;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startApplication() throws InterruptedException {
+        context = new SpringApplicationBuilder(UserEngineApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:backfill;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "password-hashing.bcrypt.target-millis=1",
+                        "password-hashing.bcrypt.min-strength=4",
+                        "users.email-backfill.batch-size=3",
+                        "users.email-backfill.interval-ms=3600000"
+                ).run();
+        userRepository = context.getBean(UserRepository.class);
+        backfill = context.getBean(EmailLookupBackfill.class);
+        migrationStateRepository = context.getBean(MigrationStateRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // La pasada del arranque, con la tabla vacía, no puede cruzarse con las filas del test
+        for (int i = 0; i < 100 && backfill.getPasses() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(backfill.getPasses()).isPositive();
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void legacyRowsShouldBeFoundBeforeAndAfterBackfill() {
+        for (int i = 1; i <= 7; i++) {
+            insertLegacyRow("Legacy" + i + "@Example.com");
+        }
+        UUID twin = insertLegacyRow("Twin@example.com");
+        UUID otherTwin = insertLegacyRow("twin@example.com");
+        long backfilledBefore = backfill.getBackfilled();
+        long conflictsBefore = backfill.getConflicts();
+
+        // Sin backfill: como antes, solo el email exacto
+        UUID legacyId = userRepository.findByEmail("Legacy1@Example.com").map(User::getId).orElseThrow();
+        assertThat(userRepository.findByEmail("legacy1@example.com")).isEmpty();
+        assertThat(userRepository.existsByEmail("Legacy1@Example.com")).isTrue();
+
+        assertThat(backfill.backfill()).isEqualTo(8);
+        assertThat(backfill.getConflicts()).isEqualTo(conflictsBefore + 1);
+        // La gemela también queda completa: ninguna fila deja la migración abierta
+        assertThat(jdbcTemplate.queryForObject("select count(*) from users where email_hash is null", Long.class)).isZero();
+
+        Optional<User> found = userRepository.findByEmail("LEGACY1@example.com");
+        assertThat(found).map(User::getId).contains(legacyId);
+        assertThat(found.get().getCanonicalEmail()).isEqualTo("legacy1@example.com");
+        assertThat(found.get().getEmailHash()).isEqualTo(User.emailHash("legacy1@example.com"));
+        assertThat(userRepository.existsByEmail(" legacy7@EXAMPLE.com ")).isTrue();
+
+        // De las dos filas gemelas solo una toma el email canónico, y las dos formas del email llevan a ella; la otra
+        // conserva su email y queda marcada
+        List<User> twins = userRepository.findAllById(List.of(twin, otherTwin));
+        assertThat(twins).filteredOn(user -> !user.isEmailConflict()).hasSize(1)
+                .extracting(User::getId)
+                .containsExactly(userRepository.findByEmail("Twin@example.com").map(User::getId).orElseThrow())
+                .containsExactly(userRepository.findByEmail("twin@example.com").map(User::getId).orElseThrow());
+        assertThat(twins).filteredOn(User::isEmailConflict).singleElement()
+                .satisfies(conflict -> assertThat(conflict.getCanonicalEmail()).isEqualTo("conflict+" + conflict.getId() + "@invalid"))
+                .extracting(User::getEmail).isIn("Twin@example.com", "twin@example.com");
+
+        assertThat(backfill.backfill()).isZero();
+        assertThat(backfill.getConflicts()).isEqualTo(conflictsBefore + 1);
+        assertThat(backfill.getBackfilled()).isEqualTo(backfilledBefore + 8);
+
+        // El email canónico ya es único: las mayúsculas no abren una cuenta nueva
+        assertThatThrownBy(() -> context.getBean(UserService.class).signUp(request("LEGACY2@EXAMPLE.COM")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+    }
+
+    @Test
+    void legacyLookupShouldFollowPersistedMigrationState() {
+        // Migración dada por terminada: sin fallback, una fila vieja no se encuentra hasta que el backfill la completa
+        migrationStateRepository.save(MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(0).completedAt(1L).build());
+        userRepository.reloadEmailLookupState();
+        insertLegacyRow("Late@example.com");
+        assertThat(userRepository.existsByEmail("Late@example.com")).isFalse();
+
+        // Una fila escrita después por un nodo viejo reabre la migración y vuelve el fallback
+        assertThat(backfill.backfill()).isEqualTo(1);
+        assertThat(migrationStateRepository.findById(MigrationState.EMAIL_LOOKUP).orElseThrow().isComplete()).isFalse();
+        insertLegacyRow("Later@example.com");
+        assertThat(userRepository.existsByEmail("late@EXAMPLE.com")).isTrue();
+        assertThat(userRepository.existsByEmail("Later@example.com")).isTrue();
+        backfill.backfill();
+    }
+
+    @Test
+    void pendingLegacyRowShouldStillRejectTheSameEmail() {
+        // Sin canonical_email la restricción del canónico no la ve: la protege la del email tal cual
+        insertLegacyRow("Pending@example.com");
+
+        assertThatThrownBy(() -> context.getBean(UserService.class).signUp(request("Pending@example.com")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+        backfill.backfill();
+    }
+
+    @Test
+    void completedMigrationShouldDropTheLegacyConstraint() {
+        backfill.backfill();
+        insertLegacyRow("Before@example.com");
+        assertThatThrownBy(() -> insertLegacyRow("Before@example.com")).isInstanceOf(DataIntegrityViolationException.class);
+        backfill.backfill();
+
+        // Una pasada sin filas pendientes, con el período de espera ya cumplido, da la migración por completa
+        migrationStateRepository.save(MigrationState.builder().name(MigrationState.EMAIL_LOOKUP).lastPendingAt(0).build());
+        try {
+            assertThat(backfill.backfill()).isZero();
+            assertThat(migrationStateRepository.findById(MigrationState.EMAIL_LOOKUP).orElseThrow().isComplete()).isTrue();
+
+            UUID first = insertLegacyRow("After@example.com");
+            UUID second = insertLegacyRow("After@example.com");
+            jdbcTemplate.update("delete from users where id in (?, ?)", bytes(first), bytes(second));
+        } finally {
+            // Deja la base como la esperan los otros tests: migración abierta y con la restricción
+            jdbcTemplate.execute("alter table users add constraint " + User.LEGACY_EMAIL_CONSTRAINT + " unique (email)");
+            migrationStateRepository.save(MigrationState.builder().name(MigrationState.EMAIL_LOOKUP)
+                    .lastPendingAt(System.currentTimeMillis()).build());
+            userRepository.reloadEmailLookupState();
+        }
+    }
+
+    // Como quedaba una fila escrita por la versión anterior: sin canonical_email ni email_hash
+    private static UUID insertLegacyRow(String email) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into users (id, name, email, password, is_active, token_epoch) values (?, ?, ?, ?, true, 0)",
+                bytes(id), "Legacy", email, "$2a$04$legacy");
+        return id;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+
+    private static SignUpRequest request(String email) {
+        SignUpRequest request = new SignUpRequest();
+        request.setName("Legacy");
+        request.setEmail(email);
+        request.setPassword("passwoR34d");
+        request.setPhones(List.of());
+        return request;
+    }
+}
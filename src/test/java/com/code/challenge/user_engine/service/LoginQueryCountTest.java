@@ -0,0 +1,92 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.UserEngineApplication;
+import com.code.challenge.user_engine.dto.PhoneDto;
+import com.code.challenge.user_engine.dto.SignUpRequest;
+import com.code.challenge.user_engine.dto.UserResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aplicación completa con las estadísticas de Hibernate: el login lee el usuario con sus teléfonos en una sola
+ * consulta y no vuelve a la base al armar la respuesta.
+ */
+class LoginQueryCountTest {
+
+    private static ConfigurableApplicationContext context;
+    private static UserService userService;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(UserEngineApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:login;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "spring.h2.console.enabled=false",
+                        // Las estadísticas son globales: ninguna tarea programada puede sumar sentencias a las del test
+                        "scheduling.enabled=false",
+                        "password-hashing.bcrypt.target-millis=1",
+                        "password-hashing.bcrypt.min-strength=4"
+                ).run();
+        userService = context.getBean(UserService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void loginShouldReadUserAndPhonesInOneQuery() {
+        UserResponse signedUp = userService.signUp(request("login-phones@example.com", phone(1), phone(2), phone(3))).join();
+
+        statistics.clear();
+        UserResponse response = userService.login(signedUp.getToken());
+
+        // El select con el join a phone y el update de last_login y token; ninguna carga perezosa de la colección
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(4);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(response.getPhones()).extracting(PhoneDto::getNumber).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void loginWithoutPhonesShouldCostTheSame() {
+        UserResponse signedUp = userService.signUp(request("login-no-phones@example.com")).join();
+
+        statistics.clear();
+        UserResponse response = userService.login(signedUp.getToken());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        assertThat(response.getPhones()).isEmpty();
+    }
+
+    private static PhoneDto phone(long number) {
+        return PhoneDto.builder().number(number).cityCode(11).countryCode("+54").build();
+    }
+
+    private static SignUpRequest request(String email, PhoneDto... phones) {
+        SignUpRequest request = new SignUpRequest();
+        request.setName("Login");
+        request.setEmail(email);
+        request.setPassword("passwoR34d");
+        request.setPhones(List.of(phones));
+        return request;
+    }
+}
@@ -0,0 +1,168 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.exception.HashingOverloadedException;
+import com.code.challenge.user_engine.exception.InvalidDataException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private volatile String hashingThread;
+    private final List<String> hashed = new CopyOnWriteArrayList<>();
+
+    private final PasswordEncoder encoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashingThread = Thread.currentThread().getName();
+            hashed.add(rawPassword.toString());
+            if (blocking) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    };
+
+    private final BreachedPasswords noBreaches = new BreachedPasswords("", 4096);
+
+    @TempDir
+    Path tempDir;
+
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    void shouldHashOnDedicatedThreadAndRecordTimings() throws Exception {
+        executor = new PasswordHashingExecutor(encoder, noBreaches, 2, 4);
+
+        assertThat(executor.encode("secret").get(5, TimeUnit.SECONDS)).isEqualTo("hash:secret");
+        assertThat(hashingThread).startsWith("password-hashing-");
+        assertThat(executor.getCompleted()).isEqualTo(1);
+        assertThat(executor.getHashNanos()).isPositive();
+        assertThat(executor.getQueueWaitNanos()).isPositive();
+        assertThat(executor.getRejected()).isZero();
+        assertThat(executor.getPoolSize()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectImmediatelyWhenQueueIsFull() throws Exception {
+        executor = new PasswordHashingExecutor(encoder, noBreaches, 1, 1);
+        blocking = true;
+
+        CompletableFuture<String> running = executor.encode("first");
+        while (executor.getQueueDepth() > 0 || hashingThread == null) {
+            Thread.onSpinWait(); // el primero tiene que estar en el hilo, no en la cola
+        }
+        CompletableFuture<String> queued = executor.encode("second");
+        CompletableFuture<String> rejected = executor.encode("third");
+
+        // Ya fallado al volver de encode, con el único hilo todavía trabado: el rechazo no espera a nadie
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(running).isNotDone();
+        assertThatThrownBy(rejected::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HashingOverloadedException.class);
+        assertThat(executor.getRejected()).isEqualTo(1);
+        assertThat(executor.getQueueDepth()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:second");
+        assertThat(executor.getCompleted()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledTaskShouldNotBeHashed() throws Exception {
+        executor = new PasswordHashingExecutor(encoder, noBreaches, 1, 2);
+        blocking = true;
+
+        CompletableFuture<String> running = executor.encode("first");
+        while (executor.getQueueDepth() > 0 || hashingThread == null) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<String> cancelled = executor.encode("second");
+        CompletableFuture<String> next = executor.encode("third");
+        cancelled.cancel(false);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:first");
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("hash:third");
+        // Un solo hilo y cola FIFO: cuando termina el tercero, el segundo ya pasó por el hilo sin calcularse
+        assertThat(hashed).containsExactly("first", "third");
+        assertThat(executor.getCompleted()).isEqualTo(2);
+    }
+
+    @Test
+    void breachedPasswordShouldBeRejectedWithoutHashing() throws Exception {
+        Path file = tempDir.resolve("breached.sha1");
+        Files.write(file, BreachedPasswords.sha1("passwoR34d"));
+        executor = new PasswordHashingExecutor(encoder, new BreachedPasswords(file, 16), 1, 1);
+
+        assertThatThrownBy(() -> executor.encode("passwoR34d").get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(InvalidDataException.class)
+                .hasMessageContaining(PasswordHashingExecutor.BREACHED_PASSWORD);
+        assertThat(hashingThread).isNull();
+        assertThat(executor.encode("otraClave12").get(5, TimeUnit.SECONDS)).isEqualTo("hash:otraClave12");
+    }
+
+    @Test
+    void shouldPropagateEncoderFailure() {
+        executor = new PasswordHashingExecutor(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalStateException("broken");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        }, noBreaches, 1, 1);
+
+        assertThatThrownBy(() -> executor.encode("secret").get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldDefaultToOneThreadPerCpu() {
+        executor = new PasswordHashingExecutor(encoder, noBreaches, 0, 1);
+
+        assertThat(executor.getPoolSize()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThatThrownBy(() -> new PasswordHashingExecutor(encoder, noBreaches, -1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PasswordHashingExecutor(encoder, noBreaches, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.exception.InvalidTokenException;
+import com.code.challenge.user_engine.model.RefreshToken;
+import com.code.challenge.user_engine.repository.RefreshTokenRepository;
+import com.code.challenge.user_engine.security.RandomSource;
+import com.code.challenge.user_engine.security.TokenIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long LIFETIME = 14 * 24 * 3_600_000L;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @Test
+    void shouldStoreOnlyDigestOfIssuedToken() {
+        RefreshTokenService service = service(true);
+
+        String token = service.issue(userId);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(token).hasSize(43);
+        assertThat(saved.getValue().getId()).isEqualTo(TokenIds.digestOf(token));
+        assertThat(saved.getValue().getUserId()).isEqualTo(userId);
+        assertThat(saved.getValue().getExpiresAt()).isEqualTo(NOW + LIFETIME);
+    }
+
+    @Test
+    void consumeShouldDeleteTokenAndReturnUser() {
+        RefreshTokenService service = service(true);
+        UUID id = TokenIds.digestOf("token");
+        when(refreshTokenRepository.findById(id)).thenReturn(Optional.of(new RefreshToken(id, userId, NOW + 1_000)));
+        when(refreshTokenRepository.deleteIfValid(id, NOW)).thenReturn(1);
+
+        assertThat(service.consume("token")).isEqualTo(userId);
+    }
+
+    @Test
+    void consumeShouldRejectTokenAlreadyUsedOrExpired() {
+        RefreshTokenService service = service(true);
+        UUID id = TokenIds.digestOf("token");
+        when(refreshTokenRepository.findById(id)).thenReturn(Optional.of(new RefreshToken(id, userId, NOW + 1_000)));
+        when(refreshTokenRepository.deleteIfValid(id, NOW)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.consume("token")).isInstanceOf(InvalidTokenException.class);
+    }
+
+    @Test
+    void consumeShouldRejectUnknownToken() {
+        RefreshTokenService service = service(true);
+        when(refreshTokenRepository.findById(any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.consume("unknown")).isInstanceOf(InvalidTokenException.class);
+        verify(refreshTokenRepository, never()).deleteIfValid(any(), anyLong());
+    }
+
+    @Test
+    void consumeShouldFailWhenDisabled() {
+        RefreshTokenService service = service(false);
+
+        assertThat(service.isEnabled()).isFalse();
+        assertThatThrownBy(() -> service.consume("token")).isInstanceOf(InvalidTokenException.class);
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void shouldRevokeAllTokensOfUserAndPurgeExpired() {
+        RefreshTokenService service = service(true);
+        when(refreshTokenRepository.deleteExpired(NOW)).thenReturn(3);
+
+        service.revokeAll(userId);
+
+        verify(refreshTokenRepository).deleteByUserId(userId);
+        assertThat(service.purgeExpired()).isEqualTo(3);
+    }
+
+    private RefreshTokenService service(boolean enabled) {
+        return new RefreshTokenService(refreshTokenRepository, enabled, LIFETIME,
+                Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), new RandomSource());
+    }
+}
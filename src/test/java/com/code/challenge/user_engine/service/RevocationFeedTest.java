@@ -0,0 +1,219 @@
+package com.code.challenge.user_engine.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RevocationFeedTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long IN_ONE_HOUR = NOW + 3_600_000;
+
+    private final MutableClock clock = new MutableClock(NOW);
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TokenBlacklist localBlacklist;
+    private TokenBlacklist remoteBlacklist;
+    private TokenEpochs remoteEpochs;
+    private RevocationFeed local;
+    private RevocationFeed remote;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        createTable();
+        localBlacklist = new TokenBlacklist(clock);
+        remoteBlacklist = new TokenBlacklist(clock);
+        remoteEpochs = new TokenEpochs(userId -> Optional.empty());
+        local = feed(localBlacklist, new TokenEpochs(userId -> Optional.empty()), 500);
+        remote = feed(remoteBlacklist, remoteEpochs, 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    void shouldPropagateRevocationsToOtherNode() {
+        UUID tokenId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        remoteEpochs.record(userId, 1);
+
+        local.tokenRevoked(tokenId, IN_ONE_HOUR);
+        local.epochBumped(userId, 2);
+
+        assertThat(remoteBlacklist.isBlacklisted(tokenId)).isFalse();
+        assertThat(local.flush()).isEqualTo(2);
+        assertThat(local.getPendingCount()).isZero();
+        assertThat(remote.poll()).isEqualTo(2);
+        assertThat(remoteBlacklist.isBlacklisted(tokenId)).isTrue();
+        assertThat(remoteEpochs.isCurrent(userId, 1)).isFalse();
+        assertThat(remoteEpochs.isCurrent(userId, 2)).isTrue();
+        assertThat(remote.getHighWaterMark()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldOnlyReadRowsAboveHighWaterMark() {
+        local.tokenRevoked(UUID.randomUUID(), IN_ONE_HOUR);
+        local.flush();
+        assertThat(remote.poll()).isEqualTo(1);
+
+        local.tokenRevoked(UUID.randomUUID(), IN_ONE_HOUR);
+        local.flush();
+
+        assertThat(remote.poll()).isEqualTo(1);
+        assertThat(remote.poll()).isZero();
+        assertThat(remoteBlacklist.getInsertCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWriteAndReadInSeveralBatches() {
+        RevocationFeed smallBatches = feed(localBlacklist, new TokenEpochs(userId -> Optional.empty()), 7);
+        for (int i = 0; i < 50; i++) {
+            smallBatches.tokenRevoked(new UUID(1, i + 1), IN_ONE_HOUR);
+        }
+
+        assertThat(smallBatches.flush()).isEqualTo(50);
+        RevocationFeed reader = feed(remoteBlacklist, remoteEpochs, 7);
+        assertThat(reader.poll()).isEqualTo(50);
+        assertThat(reader.getHighWaterMark()).isEqualTo(50);
+        assertThat(remoteBlacklist.size()).isEqualTo(50);
+    }
+
+    @Test
+    void shouldPickUpRowCommittedOutOfOrder() {
+        insert(1, 1);
+        insert(3, 3);
+        assertThat(remote.poll()).isEqualTo(2);
+
+        insert(2, 2); // transacción de otro nodo que confirmó después
+
+        assertThat(remote.poll()).isEqualTo(1);
+        assertThat(remoteBlacklist.isBlacklisted(new UUID(0, 2))).isTrue();
+        assertThat(remote.poll()).isZero();
+    }
+
+    @Test
+    void shouldLookUpGapsWithoutRereadingAppliedRows() {
+        insert(1, 1);
+        for (long seq = 3; seq <= 100; seq++) {
+            insert(seq, seq);
+        }
+        assertThat(remote.poll()).isEqualTo(99);
+        long rowsRead = remote.getRowsRead();
+
+        // El hueco en 2 sigue abierto: cada poll lo busca a él solo, no desde 2 hasta 100
+        assertThat(remote.poll()).isZero();
+        assertThat(remote.getRowsRead()).isEqualTo(rowsRead);
+
+        insert(2, 2);
+        assertThat(remote.poll()).isEqualTo(1);
+        assertThat(remote.getRowsRead()).isEqualTo(rowsRead + 1);
+        assertThat(remote.getHighWaterMark()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldForgetGapAfterTimeout() {
+        insert(1, 1);
+        insert(3, 3);
+        remote.poll();
+
+        clock.advance(RevocationFeed.GAP_TIMEOUT_MILLIS + 1);
+        remote.poll();
+        insert(2, 2);
+
+        assertThat(remote.poll()).isZero();
+    }
+
+    @Test
+    void shouldSkipAndPurgeExpiredRows() {
+        local.tokenRevoked(UUID.randomUUID(), NOW + 1_000);
+        local.tokenRevoked(UUID.randomUUID(), IN_ONE_HOUR);
+        local.flush();
+        clock.advance(2_000);
+
+        assertThat(remote.poll()).isEqualTo(1);
+        assertThat(remote.getHighWaterMark()).isEqualTo(2);
+        assertThat(remote.purgeExpired()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from revocations", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepRevocationsQueuedWhenDatabaseFails() {
+        jdbcTemplate.execute("drop table revocations");
+        local.tokenRevoked(UUID.randomUUID(), IN_ONE_HOUR);
+        local.tokenRevoked(UUID.randomUUID(), IN_ONE_HOUR);
+
+        assertThatThrownBy(local::flush).isInstanceOf(DataAccessException.class);
+        assertThat(local.getPendingCount()).isEqualTo(2);
+
+        createTable();
+        assertThat(local.flush()).isEqualTo(2);
+        assertThat(remote.poll()).isEqualTo(2);
+    }
+
+    private RevocationFeed feed(TokenBlacklist blacklist, TokenEpochs epochs, int batchSize) {
+        return new RevocationFeed(jdbcTemplate, transactionTemplate, blacklist, epochs, clock, batchSize, 3_600_000);
+    }
+
+    private void createTable() {
+        jdbcTemplate.execute("create table revocations (seq bigint auto_increment primary key, kind varchar(8) not null, "
+                + "subject_msb bigint not null, subject_lsb bigint not null, expires_at bigint not null, token_epoch int not null)");
+    }
+
+    private void insert(long seq, long tokenIdLsb) {
+        jdbcTemplate.update("insert into revocations (seq, kind, subject_msb, subject_lsb, expires_at, token_epoch) "
+                + "values (?, 'TOKEN', 0, ?, ?, 0)", seq, tokenIdLsb, IN_ONE_HOUR);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.code.challenge.user_engine.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RevocationLogTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayAppendedRecordsAfterReopen() {
+        Path path = directory.resolve("revocations.log");
+        try (RevocationLog log = RevocationLog.open(path)) {
+            log.append(1, 2, NOW + 1_000);
+            log.append(3, 4, NOW + 2_000);
+        }
+
+        List<long[]> records = new ArrayList<>();
+        try (RevocationLog log = RevocationLog.open(path)) {
+            int live = log.replay(NOW, (msb, lsb, expiresAt) -> records.add(new long[]{msb, lsb, expiresAt}));
+
+            assertThat(live).isEqualTo(2);
+            assertThat(log.size()).isEqualTo(2);
+        }
+        assertThat(records).containsExactly(new long[]{1, 2, NOW + 1_000}, new long[]{3, 4, NOW + 2_000});
+    }
+
+    @Test
+    void shouldSkipExpiredRecordsOnReplay() {
+        try (RevocationLog log = RevocationLog.open(directory.resolve("revocations.log"))) {
+            log.append(1, 1, NOW - 1);
+            log.append(2, 2, NOW + 1);
+
+            List<Long> replayed = new ArrayList<>();
+            log.replay(NOW, (msb, lsb, expiresAt) -> replayed.add(msb));
+
+            assertThat(replayed).containsExactly(2L);
+        }
+    }
+
+    @Test
+    void shouldGrowBeyondInitialMapping() {
+        Path path = directory.resolve("revocations.log");
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < 10_000; i++) {
+                log.append(i, i, NOW + 1_000);
+            }
+        }
+
+        try (RevocationLog log = RevocationLog.open(path)) {
+            assertThat(log.size()).isEqualTo(10_000);
+            assertThat(log.replay(NOW, (msb, lsb, expiresAt) -> { })).isEqualTo(10_000);
+        }
+    }
+
+    @Test
+    void shouldCompactAwayExpiredRecords() {
+        Path path = directory.resolve("revocations.log");
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(i, i, i < 60 ? NOW - 1 : NOW + 1_000);
+            }
+
+            assertThat(log.compact(NOW)).isEqualTo(60);
+            assertThat(log.size()).isEqualTo(40);
+
+            log.append(500, 500, NOW + 1_000);
+        }
+
+        assertThat(Files.exists(directory.resolve("revocations.log.compact"))).isFalse();
+        try (RevocationLog log = RevocationLog.open(path)) {
+            assertThat(log.size()).isEqualTo(41);
+        }
+    }
+
+    @Test
+    void shouldShrinkFileToLiveRecordsOnCompaction() throws Exception {
+        Path path = directory.resolve("revocations.log");
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < 10_000; i++) {
+                log.append(i, i, i < 9_000 ? NOW - 1 : NOW + 1_000);
+            }
+            long grown = Files.size(path);
+
+            assertThat(log.compact(NOW)).isEqualTo(9_000);
+            assertThat(Files.size(path)).isLessThan(grown).isEqualTo(16 + 4_096 * 24L);
+
+            // El mapeo adoptado sigue creciendo al llenarse
+            for (int i = 0; i < 5_000; i++) {
+                log.append(i, i, NOW + 1_000);
+            }
+        }
+
+        try (RevocationLog log = RevocationLog.open(path)) {
+            assertThat(log.size()).isEqualTo(6_000);
+            assertThat(log.replay(NOW, (msb, lsb, expiresAt) -> { })).isEqualTo(6_000);
+        }
+    }
+
+    @Test
+    void shouldComputeOffsetsInLong() {
+        int last = RevocationLog.MAX_RECORDS - 1;
+        assertThat(RevocationLog.offsetOf(last)).isEqualTo(16 + last * 24L);
+        // Pasado el último registro que entra en un mapeo falla en lugar de dar un offset negativo
+        assertThatThrownBy(() -> RevocationLog.offsetOf(RevocationLog.MAX_RECORDS + 1)).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldRejectFileThatIsNotARevocationLog() throws Exception {
+        Path path = directory.resolve("other.bin");
+        Files.write(path, "not a revocation log at all".getBytes());
+
+        assertThatThrownBy(() -> RevocationLog.open(path)).isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void shouldKeepRevocationsAcrossBlacklistRestart() {
+        Path path = directory.resolve("revocations.log");
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+        UUID revoked = UUID.randomUUID();
+
+        TokenBlacklist blacklist = new TokenBlacklist(clock, RevocationLog.open(path));
+        blacklist.blacklistToken(revoked, NOW + 60_000);
+        blacklist.close();
+
+        TokenBlacklist restarted = new TokenBlacklist(clock, RevocationLog.open(path));
+        assertThat(restarted.isBlacklisted(revoked)).isTrue();
+        assertThat(restarted.isBlacklisted(UUID.randomUUID())).isFalse();
+        restarted.close();
+    }
+
+    @Test
+    void shouldCompactExpiredRecordsOnBlacklistRestart() {
+        Path path = directory.resolve("revocations.log");
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(i, i, i < 70 ? NOW - 1 : NOW + 60_000);
+            }
+        }
+
+        TokenBlacklist restarted = new TokenBlacklist(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), RevocationLog.open(path));
+        restarted.close();
+
+        assertThat(restarted.size()).isEqualTo(30);
+        try (RevocationLog log = RevocationLog.open(path)) {
+            assertThat(log.size()).isEqualTo(30);
+        }
+    }
+
+    @Test
+    void shouldRestartWithOneMillionRevocations() {
+        Path path = directory.resolve("revocations.log");
+        Random random = new Random(7);
+        UUID last = null;
+        try (RevocationLog log = RevocationLog.open(path)) {
+            for (int i = 0; i < 1_000_000; i++) {
+                last = new UUID(random.nextLong(), random.nextLong());
+                log.append(last.getMostSignificantBits(), last.getLeastSignificantBits(), NOW + 1 + random.nextInt(3_600_000));
+            }
+        }
+
+        TokenBlacklist restarted = new TokenBlacklist(Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC), RevocationLog.open(path));
+
+        // Nada vencido: el arranque no compacta y todo queda revocado
+        assertThat(restarted.size()).isEqualTo(1_000_000);
+        assertThat(restarted.isBlacklisted(last)).isTrue();
+        restarted.close();
+    }
+}
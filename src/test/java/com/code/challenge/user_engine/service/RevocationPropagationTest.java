@@ -0,0 +1,115 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.UserEngineApplication;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos contextos de la aplicación contra la misma base H2 en modo servidor: lo revocado en un nodo
+ * se ve en el otro después de un flush del primero y un poll del segundo. Las tareas programadas
+ * quedan espaciadas una hora y el test las llama directamente.
+ */
+class RevocationPropagationTest {
+
+    private static final long SCHEDULED_INTERVAL_MS = 3_600_000;
+
+    private static Server database;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        database = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        String url = "jdbc:h2:tcp://localhost:" + port + "/mem:revocations;DB_CLOSE_DELAY=-1";
+        nodeA = startNode(url);
+        nodeB = startNode(url);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+        database.stop();
+    }
+
+    @Test
+    void revocationsShouldReachOtherNodeAfterFlushAndPoll() throws Exception {
+        RevocationFeed feedA = nodeA.getBean(RevocationFeed.class);
+        RevocationFeed feedB = nodeB.getBean(RevocationFeed.class);
+        TokenBlacklist blacklistB = nodeB.getBean(TokenBlacklist.class);
+        int revocations = 20_000;
+        int writers = 8;
+        UUID[] tokenIds = new UUID[revocations];
+        long expiresAt = System.currentTimeMillis() + 3_600_000;
+        for (int i = 0; i < revocations; i++) {
+            tokenIds[i] = UUID.randomUUID();
+        }
+
+        // Logins concurrentes encolando revocaciones en el nodo A
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            executor.submit(() -> {
+                for (int i = writer; i < revocations; i += writers) {
+                    feedA.tokenRevoked(tokenIds[i], expiresAt);
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Sin flush el otro nodo no las ve
+        feedB.poll();
+        assertThat(Arrays.stream(tokenIds).noneMatch(blacklistB::isBlacklisted)).isTrue();
+
+        assertThat(feedA.flush()).isEqualTo(revocations);
+        assertThat(feedA.getPendingCount()).isZero();
+        feedB.poll();
+
+        assertThat(Arrays.stream(tokenIds).allMatch(blacklistB::isBlacklisted)).isTrue();
+        assertThat(feedB.getHighWaterMark()).isGreaterThanOrEqualTo(revocations);
+    }
+
+    @Test
+    void epochBumpShouldReachOtherNode() {
+        UUID userId = UUID.randomUUID();
+        TokenEpochs epochsB = nodeB.getBean(TokenEpochs.class);
+        epochsB.record(userId, 1);
+
+        nodeA.getBean(RevocationFeed.class).epochBumped(userId, 2);
+        nodeA.getBean(RevocationFeed.class).flush();
+        nodeB.getBean(RevocationFeed.class).poll();
+
+        assertThat(epochsB.isCurrent(userId, 1)).isFalse();
+        assertThat(epochsB.isCurrent(userId, 2)).isTrue();
+    }
+
+    private static ConfigurableApplicationContext startNode(String url) {
+        return new SpringApplicationBuilder(UserEngineApplication.class).properties(
+                "server.port=0",
+                "spring.datasource.url=" + url,
+                "spring.jpa.hibernate.ddl-auto=update",
+                "spring.jpa.show-sql=false",
+                "spring.h2.console.enabled=false",
+                "jwt.revocation-feed.flush-interval-ms=" + SCHEDULED_INTERVAL_MS,
+                "jwt.revocation-feed.poll-interval-ms=" + SCHEDULED_INTERVAL_MS
+        ).run();
+    }
+}
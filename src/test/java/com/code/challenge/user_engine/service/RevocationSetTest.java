@@ -0,0 +1,158 @@
+package com.code.challenge.user_engine.service;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationSetTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long IN_ONE_HOUR = NOW + 3_600_000L;
+
+    @Test
+    void shouldContainAddedKey() {
+        RevocationSet set = new RevocationSet(16);
+
+        assertThat(set.add(1L, 2L, IN_ONE_HOUR)).isTrue();
+
+        assertThat(set.contains(1L, 2L, NOW)).isTrue();
+        assertThat(set.contains(2L, 1L, NOW)).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCountDuplicateKeys() {
+        RevocationSet set = new RevocationSet(16);
+
+        set.add(1L, 2L, IN_ONE_HOUR);
+        assertThat(set.add(1L, 2L, IN_ONE_HOUR)).isFalse();
+
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAcceptAllZeroKey() {
+        RevocationSet set = new RevocationSet(16);
+
+        set.add(0L, 0L, IN_ONE_HOUR);
+
+        assertThat(set.contains(0L, 0L, NOW)).isTrue();
+    }
+
+    @Test
+    void shouldNotReportExpiredKeys() {
+        RevocationSet set = new RevocationSet(16);
+        set.add(1L, 2L, NOW + 10);
+
+        assertThat(set.contains(1L, 2L, NOW + 10)).isFalse();
+    }
+
+    @Test
+    void shouldGrowAndKeepEveryKey() {
+        RevocationSet set = new RevocationSet(1);
+        Random random = new Random(42);
+        long[] keys = new long[20_000];
+        for (int i = 0; i < keys.length; i += 2) {
+            keys[i] = random.nextLong();
+            keys[i + 1] = random.nextLong();
+            set.add(keys[i], keys[i + 1], IN_ONE_HOUR);
+        }
+
+        for (int i = 0; i < keys.length; i += 2) {
+            assertThat(set.contains(keys[i], keys[i + 1], NOW)).isTrue();
+        }
+        assertThat(set.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    void shouldPurgeOnlyExpiredKeysAndKeepProbeChainsIntact() {
+        RevocationSet set = new RevocationSet(64);
+        for (long i = 0; i < 1_000; i++) {
+            set.add(i, i, i % 2 == 0 ? NOW + 500 : IN_ONE_HOUR);
+        }
+
+        int purged = set.purgeExpired(NOW + 5_000);
+
+        assertThat(purged).isEqualTo(500);
+        assertThat(set.size()).isEqualTo(500);
+        for (long i = 0; i < 1_000; i++) {
+            assertThat(set.contains(i, i, NOW + 5_000)).isEqualTo(i % 2 != 0);
+        }
+    }
+
+    @Test
+    void shouldKeepKeyRevokedAgainWithLaterExpiration() {
+        RevocationSet set = new RevocationSet(16);
+        set.add(1L, 2L, NOW + 500);
+        set.add(1L, 2L, IN_ONE_HOUR);
+
+        set.purgeExpired(NOW + 5_000);
+
+        assertThat(set.contains(1L, 2L, NOW + 5_000)).isTrue();
+    }
+
+    @Test
+    void shouldUseFarLessMemoryThanJwtStrings() {
+        int entries = 96_000;
+        RevocationSet set = new RevocationSet(entries);
+        Random random = new Random(7);
+        for (int i = 0; i < entries; i++) {
+            set.add(random.nextLong(), random.nextLong(), IN_ONE_HOUR);
+        }
+        double bytesPerEntry = (double) GraphLayout.parseInstance(set).totalSize() / entries;
+
+        int sampled = 10_000;
+        Set<String> jwtStrings = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        String jwtShape = "x".repeat(250);
+        for (int i = 0; i < sampled; i++) {
+            jwtStrings.add(jwtShape + i);
+        }
+        double stringBytesPerEntry = (double) GraphLayout.parseInstance(jwtStrings).totalSize() / sampled;
+
+        assertThat(bytesPerEntry).isLessThan(100.0);
+        assertThat(bytesPerEntry * 4).isLessThan(stringBytesPerEntry);
+    }
+
+    @Test
+    void lookupsShouldNotAllocate() {
+        RevocationSet set = new RevocationSet(1_024);
+        Random random = new Random(3);
+        for (int i = 0; i < 1_000; i++) {
+            set.add(random.nextLong(), random.nextLong(), IN_ONE_HOUR);
+        }
+        long[] probes = new long[2_000];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextLong();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        boolean found = false;
+        for (int round = 0; round < 100; round++) {
+            found |= lookupAll(set, probes); // calentamiento: la carga de clases y el JIT sí reservan memoria
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int round = 0; round < 100; round++) {
+            found |= lookupAll(set, probes);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(found).isFalse();
+        assertThat(allocated).isLessThan(1_024);
+    }
+
+    private static boolean lookupAll(RevocationSet set, long[] probes) {
+        boolean found = false;
+        for (int i = 0; i < probes.length; i += 2) {
+            found |= set.contains(probes[i], probes[i + 1], NOW);
+        }
+        return found;
+    }
+}
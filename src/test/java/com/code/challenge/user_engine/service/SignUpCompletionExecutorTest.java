@@ -0,0 +1,49 @@
+package com.code.challenge.user_engine.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignUpCompletionExecutorTest {
+
+    private SignUpCompletionExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    void shouldRunTasksOnItsOwnThreads() throws Exception {
+        executor = new SignUpCompletionExecutor(3);
+
+        String thread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor::execute)
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(thread).startsWith("sign-up-completion-");
+        assertThat(executor.getPoolSize()).isEqualTo(3);
+        assertThat(executor.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void shouldDelegateToGivenExecutor() {
+        executor = new SignUpCompletionExecutor(Runnable::run);
+        String[] thread = new String[1];
+
+        executor.execute(() -> thread[0] = Thread.currentThread().getName());
+
+        assertThat(thread[0]).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void shouldRejectInvalidConfiguration() {
+        assertThatThrownBy(() -> new SignUpCompletionExecutor(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
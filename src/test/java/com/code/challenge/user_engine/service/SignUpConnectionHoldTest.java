@@ -0,0 +1,167 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.dto.SignUpRequest;
+import com.code.challenge.user_engine.repository.UserRepository;
+import com.code.challenge.user_engine.security.JwtTokenUtil;
+import com.code.challenge.user_engine.security.RandomSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link UserService} con transacciones reales sobre un {@link javax.sql.DataSource} que cuenta las conexiones
+ * abiertas: en /sign-up ninguna puede estar tomada mientras corre BCrypt o se firma el token, solo durante las
+ * escrituras cortas.
+ */
+class SignUpConnectionHoldTest {
+
+    private static final int SIGN_UPS = 10;
+
+    private final CountingDataSource dataSource = new CountingDataSource();
+    private final LongAccumulator openWhileHashing = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator openWhileMinting = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator openWhileWriting = new LongAccumulator(Math::max, 0);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtTokenUtil jwtTokenUtil = mock(JwtTokenUtil.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+
+    private PasswordHashingExecutor passwordHashingExecutor;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingExecutor = new PasswordHashingExecutor(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                openWhileHashing.accumulate(dataSource.open.get());
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals("hash:" + rawPassword);
+            }
+        }, new BreachedPasswords("", 4096), 1, 1);
+        userService = new UserService(userRepository, passwordHashingExecutor, new SignUpCompletionExecutor(Runnable::run),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), jwtTokenUtil, mock(TokenBlacklist.class),
+                mock(TokenEpochs.class), mock(RevocationFeed.class), refreshTokenService,
+                new SignUpTimings(), new RandomSource());
+
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenAnswer(invocation -> {
+            openWhileMinting.accumulate(dataSource.open.get());
+            return "jwt-token";
+        });
+        when(userRepository.insert(any())).thenAnswer(invocation -> {
+            openWhileWriting.accumulate(dataSource.open.get());
+            return invocation.getArgument(0);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.close();
+    }
+
+    @Test
+    void sequentialSignUpShouldNotHoldConnectionWhileHashingOrMinting() {
+        signUps("sequential");
+
+        // El token ya va en el insert
+        assertThat(dataSource.checkouts.sum()).isEqualTo(SIGN_UPS);
+    }
+
+    @Test
+    void parallelSignUpShouldNotHoldConnectionWhileHashingOrMinting() {
+        signUps("parallel");
+
+        // El token ya va en el insert
+        assertThat(dataSource.checkouts.sum()).isEqualTo(SIGN_UPS);
+    }
+
+    @Test
+    void refreshTokenShouldShareTheInsertTransaction() {
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+        when(refreshTokenService.issue(any())).thenAnswer(invocation -> {
+            openWhileWriting.accumulate(dataSource.open.get());
+            return "refresh-token";
+        });
+
+        signUps("sequential");
+        assertThat(dataSource.checkouts.sum()).isEqualTo(SIGN_UPS);
+        signUps("parallel");
+        assertThat(dataSource.checkouts.sum()).isEqualTo(SIGN_UPS * 2L);
+    }
+
+    private void signUps(String pipeline) {
+        userService.setSignUpPipeline(pipeline);
+
+        for (int i = 0; i < SIGN_UPS; i++) {
+            userService.signUp(request(pipeline.substring(0, 6) + (char) ('a' + i) + "@example.com")).join();
+        }
+
+        assertThat(openWhileHashing.get()).isZero();
+        assertThat(openWhileMinting.get()).isZero();
+        // Las escrituras sí corren con su conexión, una sola abierta a la vez
+        assertThat(openWhileWriting.get()).isEqualTo(1);
+        assertThat(dataSource.open.get()).isZero();
+    }
+
+    private static SignUpRequest request(String email) {
+        SignUpRequest request = new SignUpRequest();
+        request.setName("Hold");
+        request.setEmail(email);
+        request.setPassword("passwoR34d");
+        request.setPhones(List.of());
+        return request;
+    }
+
+    // Cuenta cuántas conexiones se pidieron y cuántas siguen abiertas, desde getConnection hasta close
+    private static final class CountingDataSource extends DelegatingDataSource {
+        private final AtomicInteger open = new AtomicInteger();
+        private final LongAdder checkouts = new LongAdder();
+
+        CountingDataSource() {
+            JdbcDataSource h2 = new JdbcDataSource();
+            h2.setURL("jdbc:h2:mem:hold;DB_CLOSE_DELAY=-1");
+            setTargetDataSource(h2);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = obtainTargetDataSource().getConnection();
+            checkouts.increment();
+            open.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName()) && !connection.isClosed()) {
+                            open.decrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.UserEngineApplication;
+import com.code.challenge.user_engine.dto.PhoneDto;
+import com.code.challenge.user_engine.dto.SignUpRequest;
+import com.code.challenge.user_engine.dto.UserResponse;
+import com.code.challenge.user_engine.exception.UserAlreadyExistsException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Aplicación completa con las estadísticas de Hibernate: cuántas sentencias SQL hace un sign-up con el insert
+ * como única comprobación del email, contra el mismo sign-up con el EXISTS previo.
+ */
+class SignUpRoundTripTest {
+
+    private static final int SIGN_UPS = 50;
+    private static final AtomicInteger emails = new AtomicInteger();
+
+    private static ConfigurableApplicationContext context;
+    private static UserService userService;
+    private static Statistics statistics;
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(UserEngineApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:roundtrip;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        "spring.h2.console.enabled=false",
+                        // Las estadísticas son globales: ninguna tarea programada puede sumar sentencias a las del test
+                        "scheduling.enabled=false",
+                        // Tabla nueva, sin filas viejas: una pasada del backfill da la migración por completa
+                        "users.email-backfill.quiet-period-ms=0",
+                        // Hash mínimo: el test cuenta sentencias, no necesita un BCrypt real
+                        "password-hashing.bcrypt.target-millis=1",
+                        "password-hashing.bcrypt.min-strength=4"
+                ).run();
+        userService = context.getBean(UserService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        // Sin la pasada las búsquedas por email seguirían probando también con el email exacto
+        context.getBean(EmailLookupBackfill.class).backfill();
+        userService.signUp(request(nextEmail()), true).join(); // calentamiento de Hibernate y del EXISTS
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void insertFirstShouldSaveOneStatementPerSignUp() {
+        double withPreCheck = statementsPerSignUp(true);
+        double insertFirst = statementsPerSignUp(false);
+
+        // Un solo insert con el token; el EXISTS es la única diferencia
+        assertThat(insertFirst).isEqualTo(1.0);
+        assertThat(withPreCheck).isEqualTo(2.0);
+    }
+
+    @Test
+    void repeatedEmailShouldFailOnTheInsertAlone() {
+        String email = nextEmail();
+        userService.signUp(request(email), false).join();
+
+        statistics.clear();
+        assertThatThrownBy(() -> userService.signUp(request(email), false).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void phonesShouldBeInsertedInOneBatch() {
+        SignUpRequest request = request(nextEmail());
+        request.setPhones(List.of(phone(1), phone(2), phone(3), phone(4), phone(5)));
+
+        statistics.clear();
+        UserResponse response = userService.signUp(request, false).join();
+
+        // Insert del usuario con su token y un lote con los cinco teléfonos; ningún update de user_id
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(6);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(response.getPhones()).extracting(PhoneDto::getNumber).containsExactly(1L, 2L, 3L, 4L, 5L);
+        byte[] userId = ByteBuffer.allocate(16).putLong(response.getId().getMostSignificantBits())
+                .putLong(response.getId().getLeastSignificantBits()).array();
+        assertThat(context.getBean(JdbcTemplate.class)
+                .queryForObject("select count(*) from phone where user_id = ?", Integer.class, userId)).isEqualTo(5);
+    }
+
+    @Test
+    void emailDifferingOnlyInCaseShouldBeRejected() {
+        String email = nextEmail();
+        userService.signUp(request(email), false).join();
+
+        assertThatThrownBy(() -> userService.signUp(request(email.toUpperCase()), false).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+        assertThatThrownBy(() -> userService.signUp(request(email.toUpperCase()), true).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserAlreadyExistsException.class);
+    }
+
+    @Test
+    void concurrentSignUpsWithTheSameEmailShouldCreateOneUser() {
+        String email = nextEmail();
+        List<CompletableFuture<UserResponse>> signUps = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            signUps.add(CompletableFuture.supplyAsync(() -> userService.signUp(request(email), false))
+                    .thenCompose(signUp -> signUp));
+        }
+
+        int created = 0;
+        int rejected = 0;
+        for (CompletableFuture<UserResponse> signUp : signUps) {
+            try {
+                signUp.join();
+                created++;
+            } catch (CompletionException e) {
+                assertThat(e).hasCauseInstanceOf(UserAlreadyExistsException.class);
+                rejected++;
+            }
+        }
+
+        assertThat(created).isEqualTo(1);
+        assertThat(rejected).isEqualTo(7);
+    }
+
+    private static double statementsPerSignUp(boolean checkEmailFirst) {
+        statistics.clear();
+        for (int i = 0; i < SIGN_UPS; i++) {
+            userService.signUp(request(nextEmail()), checkEmailFirst).join();
+        }
+        return (double) statistics.getPrepareStatementCount() / SIGN_UPS;
+    }
+
+    private static PhoneDto phone(long number) {
+        return PhoneDto.builder().number(number).cityCode(11).countryCode("+54").build();
+    }
+
+    private static String nextEmail() {
+        return "roundtrip" + emails.incrementAndGet() + "@example.com";
+    }
+
+    private static SignUpRequest request(String email) {
+        SignUpRequest request = new SignUpRequest();
+        request.setName("Round Trip");
+        request.setEmail(email);
+        request.setPassword("passwoR34d");
+        request.setPhones(List.of());
+        return request;
+    }
+}
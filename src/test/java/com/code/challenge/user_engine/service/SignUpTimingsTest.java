@@ -0,0 +1,34 @@
+package com.code.challenge.user_engine.service;
+
+import com.code.challenge.user_engine.service.SignUpTimings.Stage;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignUpTimingsTest {
+
+    private final SignUpTimings timings = new SignUpTimings();
+
+    @Test
+    void shouldAccumulatePerStage() {
+        assertThat(timings.time(Stage.MINT, () -> "token")).isEqualTo("token");
+        timings.record(Stage.HASH, System.nanoTime() - 2_000_000);
+        timings.record(Stage.HASH, System.nanoTime() - 4_000_000);
+
+        assertThat(timings.getCount(Stage.MINT)).isEqualTo(1);
+        assertThat(timings.getCount(Stage.HASH)).isEqualTo(2);
+        assertThat(timings.getMeanMicros(Stage.HASH)).isGreaterThanOrEqualTo(3_000);
+        assertThat(timings.getCount(Stage.TOTAL)).isZero();
+        assertThat(timings.getMeanMicros(Stage.TOTAL)).isZero();
+    }
+
+    @Test
+    void failedStageShouldStillBeTimed() {
+        assertThatThrownBy(() -> timings.time(Stage.WRITE, () -> {
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timings.getCount(Stage.WRITE)).isEqualTo(1);
+    }
+}
@@ -1,14 +1,23 @@
 package com.code.challenge.user_engine.service;
 
+import com.code.challenge.user_engine.security.TokenIds;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
 import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class TokenBlacklistTest {
 
+    private final long expiresAt = System.currentTimeMillis() + 3_600_000;
     private TokenBlacklist tokenBlacklist;
 
     @BeforeEach
@@ -18,50 +27,50 @@ public class TokenBlacklistTest {
 
     @Test
     void shouldReturnFalseForTokenNotBlacklisted() {
-        assertThat(tokenBlacklist.isBlacklisted("token123")).isFalse();
+        assertThat(tokenBlacklist.isBlacklisted(id("token123"))).isFalse();
     }
 
     @Test
     void shouldReturnTrueAfterTokenIsBlacklisted() {
-        tokenBlacklist.blacklistToken("token123");
-        assertThat(tokenBlacklist.isBlacklisted("token123")).isTrue();
+        tokenBlacklist.blacklistToken(id("token123"), expiresAt);
+        assertThat(tokenBlacklist.isBlacklisted(id("token123"))).isTrue();
     }
 
     @Test
     void shouldBlacklistMultipleTokens() {
-        tokenBlacklist.blacklistToken("token1");
-        tokenBlacklist.blacklistToken("token2");
+        tokenBlacklist.blacklistToken(id("token1"), expiresAt);
+        tokenBlacklist.blacklistToken(id("token2"), expiresAt);
 
-        assertThat(tokenBlacklist.isBlacklisted("token1")).isTrue();
-        assertThat(tokenBlacklist.isBlacklisted("token2")).isTrue();
+        assertThat(tokenBlacklist.isBlacklisted(id("token1"))).isTrue();
+        assertThat(tokenBlacklist.isBlacklisted(id("token2"))).isTrue();
     }
 
     @Test
     void shouldNotAffectOtherTokensWhenOneIsBlacklisted() {
-        tokenBlacklist.blacklistToken("token1");
-        assertThat(tokenBlacklist.isBlacklisted("token2")).isFalse();
+        tokenBlacklist.blacklistToken(id("token1"), expiresAt);
+        assertThat(tokenBlacklist.isBlacklisted(id("token2"))).isFalse();
     }
 
     @Test
     void shouldHandleEmptyStringToken() {
-        tokenBlacklist.blacklistToken("");
-        assertThat(tokenBlacklist.isBlacklisted("")).isTrue();
+        tokenBlacklist.blacklistToken(id(""), expiresAt);
+        assertThat(tokenBlacklist.isBlacklisted(id(""))).isTrue();
     }
 
     @Test
     void shouldAllowBlacklistingSameTokenMultipleTimes() {
-        tokenBlacklist.blacklistToken("tokenX");
-        tokenBlacklist.blacklistToken("tokenX");
+        tokenBlacklist.blacklistToken(id("tokenX"), expiresAt);
+        tokenBlacklist.blacklistToken(id("tokenX"), expiresAt);
 
-        assertThat(tokenBlacklist.isBlacklisted("tokenX")).isTrue();
+        assertThat(tokenBlacklist.isBlacklisted(id("tokenX"))).isTrue();
     }
 
     @Test
     void shouldRemainBlacklistedAfterMultipleChecks() {
-        tokenBlacklist.blacklistToken("tokenY");
+        tokenBlacklist.blacklistToken(id("tokenY"), expiresAt);
 
-        assertThat(tokenBlacklist.isBlacklisted("tokenY")).isTrue();
-        assertThat(tokenBlacklist.isBlacklisted("tokenY")).isTrue(); // again
+        assertThat(tokenBlacklist.isBlacklisted(id("tokenY"))).isTrue();
+        assertThat(tokenBlacklist.isBlacklisted(id("tokenY"))).isTrue(); // again
     }
 
     @Test
@@ -70,7 +79,7 @@ public class TokenBlacklistTest {
         String token = "tokenConcurrent";
 
         Callable<Void> task = () -> {
-            tokenBlacklist.blacklistToken(token);
+            tokenBlacklist.blacklistToken(id(token), expiresAt);
             return null;
         };
 
@@ -84,14 +93,14 @@ public class TokenBlacklistTest {
 
         executor.shutdown();
 
-        assertThat(tokenBlacklist.isBlacklisted(token)).isTrue();
+        assertThat(tokenBlacklist.isBlacklisted(id(token))).isTrue();
     }
 
     @Test
     void shouldHandleCheckingConcurrency() throws InterruptedException, ExecutionException {
-        tokenBlacklist.blacklistToken("parallelToken");
+        tokenBlacklist.blacklistToken(id("parallelToken"), expiresAt);
 
-        Callable<Boolean> task = () -> tokenBlacklist.isBlacklisted("parallelToken");
+        Callable<Boolean> task = () -> tokenBlacklist.isBlacklisted(id("parallelToken"));
 
         ExecutorService executor = Executors.newFixedThreadPool(10);
         Future<Boolean>[] futures = new Future[50];
@@ -112,13 +121,13 @@ public class TokenBlacklistTest {
 
         Runnable add = () -> {
             for (int i = 0; i < 1000; i++) {
-                tokenBlacklist.blacklistToken("t" + i);
+                tokenBlacklist.blacklistToken(id("t" + i), expiresAt);
             }
         };
 
         Runnable check = () -> {
             for (int i = 0; i < 1000; i++) {
-                tokenBlacklist.isBlacklisted("t" + i);
+                tokenBlacklist.isBlacklisted(id("t" + i));
             }
         };
 
@@ -131,19 +140,168 @@ public class TokenBlacklistTest {
     @Test
     void shouldBlacklistUnicodeToken() {
         String token = "tokén☕️";
-        tokenBlacklist.blacklistToken(token);
-        assertThat(tokenBlacklist.isBlacklisted(token)).isTrue();
+        tokenBlacklist.blacklistToken(id(token), expiresAt);
+        assertThat(tokenBlacklist.isBlacklisted(id(token))).isTrue();
     }
 
     @Test
     void shouldHandleVeryLongToken() {
         String longToken = "a".repeat(10_000);
-        tokenBlacklist.blacklistToken(longToken);
-        assertThat(tokenBlacklist.isBlacklisted(longToken)).isTrue();
+        tokenBlacklist.blacklistToken(id(longToken), expiresAt);
+        assertThat(tokenBlacklist.isBlacklisted(id(longToken))).isTrue();
     }
 
     @Test
     void shouldReturnFalseWhenNeverBlacklisted() {
-        assertThat(tokenBlacklist.isBlacklisted("neverAdded")).isFalse();
+        assertThat(tokenBlacklist.isBlacklisted(id("neverAdded"))).isFalse();
+    }
+
+    @Test
+    void shouldForgetTokenOnceItExpires() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+
+        blacklist.blacklistToken(id("token"), 15_000);
+        assertThat(blacklist.isBlacklisted(id("token"))).isTrue();
+
+        clock.advance(5_000);
+        assertThat(blacklist.isBlacklisted(id("token"))).isFalse();
+    }
+
+    @Test
+    void shouldPurgeOnlyExpiredBuckets() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+        blacklist.blacklistToken(id("short"), 12_000);
+        blacklist.blacklistToken(id("long"), 60_000);
+        blacklist.blacklistToken(id("later"), 600_000);
+
+        clock.advance(5_000);
+        int purged = blacklist.purgeExpired();
+
+        assertThat(purged).isEqualTo(1);
+        assertThat(blacklist.size()).isEqualTo(2);
+        assertThat(blacklist.isBlacklisted(id("long"))).isTrue();
+        assertThat(blacklist.isBlacklisted(id("later"))).isTrue();
+        assertThat(blacklist.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPurgeExpiredEntriesWhenInserting() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+        for (int i = 0; i < 100; i++) {
+            blacklist.blacklistToken(id("old" + i), 11_000 + i);
+        }
+
+        clock.advance(60_000);
+        blacklist.blacklistToken(id("new"), 200_000);
+
+        assertThat(blacklist.size()).isEqualTo(1);
+        assertThat(blacklist.getInsertCount()).isEqualTo(101);
+        assertThat(blacklist.getEvictionCount()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldIgnoreAlreadyExpiredToken() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+
+        blacklist.blacklistToken(id("expired"), 9_000);
+
+        assertThat(blacklist.size()).isZero();
+        assertThat(blacklist.getInsertCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepTokenRevokedAgainWithLaterExpiration() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+        blacklist.blacklistToken(id("token"), 12_000);
+        blacklist.blacklistToken(id("token"), 30_000);
+
+        clock.advance(5_000);
+        blacklist.purgeExpired();
+
+        assertThat(blacklist.isBlacklisted(id("token"))).isTrue();
+        assertThat(blacklist.getInsertCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldApplyReplicatedRevocationUntilItExpires() {
+        MutableClock clock = new MutableClock(10_000);
+        TokenBlacklist blacklist = new TokenBlacklist(clock);
+
+        blacklist.applyReplicated(1L, 2L, 12_000);
+        blacklist.applyReplicated(3L, 4L, 9_000);
+
+        assertThat(blacklist.isBlacklisted(new UUID(1L, 2L))).isTrue();
+        assertThat(blacklist.isBlacklisted(new UUID(3L, 4L))).isFalse();
+        clock.advance(5_000);
+        assertThat(blacklist.isBlacklisted(new UUID(1L, 2L))).isFalse();
+    }
+
+    @Test
+    void shouldCompactLogOnlyFromTheScheduledTask(@TempDir Path directory) {
+        MutableClock clock = new MutableClock(10_000);
+        RevocationLog log = RevocationLog.open(directory.resolve("revocations.log"));
+        TokenBlacklist blacklist = new TokenBlacklist(clock, log);
+        for (int i = 0; i <= 10_000; i++) {
+            blacklist.blacklistToken(new UUID(i, i), 11_000);
+        }
+
+        clock.advance(5_000);
+        blacklist.blacklistToken(UUID.randomUUID(), 60_000);
+
+        // El request purga la memoria pero deja el archivo como estaba
+        assertThat(blacklist.size()).isEqualTo(1);
+        assertThat(log.size()).isEqualTo(10_002);
+
+        assertThat(blacklist.compactLog()).isEqualTo(10_001);
+        assertThat(log.size()).isEqualTo(1);
+        assertThat(blacklist.compactLog()).isZero();
+        blacklist.close();
+    }
+
+    @Test
+    void shouldNotCompactWithoutLog() {
+        assertThat(tokenBlacklist.compactLog()).isZero();
+    }
+
+    // Así se guardan los tokens sin jti
+    private static UUID id(String token) {
+        return TokenIds.digestOf(token);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
     }
 }
@@ -0,0 +1,134 @@
+package com.code.challenge.user_engine.service;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenEpochsTest {
+
+    private final Map<UUID, Integer> stored = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final TokenEpochs tokenEpochs = new TokenEpochs(userId -> {
+        loads.incrementAndGet();
+        return Optional.ofNullable(stored.get(userId));
+    });
+
+    @Test
+    void shouldLoadEpochOnceFromStore() {
+        UUID userId = UUID.randomUUID();
+        stored.put(userId, 2);
+
+        assertThat(tokenEpochs.isCurrent(userId, 2)).isTrue();
+        assertThat(tokenEpochs.isCurrent(userId, 2)).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectUnknownUserWithOneLoad() {
+        UUID userId = UUID.randomUUID();
+
+        assertThat(tokenEpochs.isCurrent(userId, 0)).isFalse();
+        assertThat(tokenEpochs.isCurrent(userId, 0)).isFalse();
+        // Un epoch alto no lo hace pasar por uno incrementado en otro nodo
+        assertThat(tokenEpochs.isCurrent(userId, 7)).isFalse();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(tokenEpochs.size()).isEqualTo(1);
+    }
+
+    @Test
+    void recordShouldReplaceMissingUser() {
+        UUID userId = UUID.randomUUID();
+        assertThat(tokenEpochs.isCurrent(userId, 0)).isFalse();
+
+        tokenEpochs.record(userId, 0);
+
+        assertThat(tokenEpochs.isCurrent(userId, 0)).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectTokensFromPreviousEpoch() {
+        UUID userId = UUID.randomUUID();
+        tokenEpochs.record(userId, 0);
+
+        tokenEpochs.record(userId, 1);
+
+        assertThat(tokenEpochs.isCurrent(userId, 0)).isFalse();
+        assertThat(tokenEpochs.isCurrent(userId, 1)).isTrue();
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void shouldNeverMoveEpochBackwards() {
+        UUID userId = UUID.randomUUID();
+        tokenEpochs.record(userId, 5);
+
+        tokenEpochs.record(userId, 3);
+
+        assertThat(tokenEpochs.isCurrent(userId, 3)).isFalse();
+        assertThat(tokenEpochs.isCurrent(userId, 5)).isTrue();
+    }
+
+    @Test
+    void shouldLearnHigherEpochBumpedByAnotherNode() {
+        UUID userId = UUID.randomUUID();
+        tokenEpochs.record(userId, 1);
+
+        assertThat(tokenEpochs.isCurrent(userId, 2)).isTrue();
+        assertThat(tokenEpochs.isCurrent(userId, 1)).isFalse();
+    }
+
+    @Test
+    void shouldGrowBeyondInitialCapacity() {
+        Random random = new Random(5);
+        UUID[] users = new UUID[5_000];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new UUID(random.nextLong(), random.nextLong());
+            tokenEpochs.record(users[i], i);
+        }
+
+        assertThat(tokenEpochs.size()).isEqualTo(users.length);
+        for (int i = 0; i < users.length; i++) {
+            assertThat(tokenEpochs.isCurrent(users[i], i)).isTrue();
+        }
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void shouldHandleNilUuid() {
+        UUID nil = new UUID(0, 0);
+        tokenEpochs.record(nil, 4);
+
+        assertThat(tokenEpochs.isCurrent(nil, 4)).isTrue();
+    }
+
+    @Test
+    void shouldUseLessMemoryThanBlacklistingEveryToken() {
+        int users = 20_000;
+        int tokensPerUser = 5;
+        long expiresAt = System.currentTimeMillis() + 3_600_000;
+        Random random = new Random(9);
+        RevocationSet blacklist = new RevocationSet(users * tokensPerUser);
+        for (int i = 0; i < users; i++) {
+            tokenEpochs.record(new UUID(random.nextLong(), random.nextLong()), 1);
+            for (int t = 0; t < tokensPerUser; t++) {
+                blacklist.add(random.nextLong(), random.nextLong(), expiresAt);
+            }
+        }
+
+        long epochBytes = GraphLayout.parseInstance(tokenEpochs).totalSize();
+        long blacklistBytes = GraphLayout.parseInstance(blacklist).totalSize();
+
+        // Un slot de epoch (20 bytes) contra un slot de blacklist (24 bytes) por cada token revocado
+        assertThat((double) epochBytes / users).isLessThan(64.0);
+        assertThat(epochBytes * 3).isLessThan(blacklistBytes);
+    }
+}
@@ -3,26 +3,39 @@ package com.code.challenge.user_engine.service;
 import com.code.challenge.user_engine.dto.PhoneDto;
 import com.code.challenge.user_engine.dto.SignUpRequest;
 import com.code.challenge.user_engine.dto.UserResponse;
+import com.code.challenge.user_engine.exception.HashingOverloadedException;
 import com.code.challenge.user_engine.exception.InvalidTokenException;
 import com.code.challenge.user_engine.exception.UserAlreadyExistsException;
 import com.code.challenge.user_engine.exception.UserNotFoundException;
 import com.code.challenge.user_engine.model.User;
 import com.code.challenge.user_engine.repository.UserRepository;
 import com.code.challenge.user_engine.security.JwtTokenUtil;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.JwtException;
+import com.code.challenge.user_engine.security.RandomSource;
+import com.code.challenge.user_engine.security.VerifiedToken;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,14 +46,23 @@ class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
-    @Mock private PasswordEncoder passwordEncoder;
+    @Mock private PasswordHashingExecutor passwordHashingExecutor;
+    @Spy private SignUpCompletionExecutor signUpCompletionExecutor = new SignUpCompletionExecutor(Runnable::run);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    @Spy private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    @Spy private SignUpTimings signUpTimings = new SignUpTimings();
+    @Spy private RandomSource randomSource = new RandomSource();
     @Mock private JwtTokenUtil jwtTokenUtil;
     @Mock private TokenBlacklist tokenBlacklist;
+    @Mock private TokenEpochs tokenEpochs;
+    @Mock private RevocationFeed revocationFeed;
+    @Mock private RefreshTokenService refreshTokenService;
 
     @InjectMocks
     private UserService userService;
 
     private SignUpRequest sampleRequest;
+    private final UUID tokenId = UUID.randomUUID();
 
     @BeforeEach
     void setup() {
@@ -53,24 +75,263 @@ class UserServiceTest {
 
     @Test
     void signUp_shouldCreateUserSuccessfully() {
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
-        when(userRepository.saveAndFlush(any())).thenAnswer(i -> i.getArgument(0));
-        when(jwtTokenUtil.generateToken(any())).thenReturn("jwt-token");
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
 
-        UserResponse response = userService.signUp(sampleRequest);
+        UserResponse response = userService.signUp(sampleRequest).join();
 
         assertThat(response).isNotNull();
         assertThat(response.getEmail()).isEqualTo("test@example.com");
         assertThat(response.getToken()).isEqualTo("jwt-token");
     }
 
+    @Test
+    void signUp_shouldInsertUserWithItsTokenInOneTransaction() {
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("jwt-token");
+
+        UUID userId = userService.signUp(sampleRequest).join().getId();
+
+        assertThat(userId).isNotNull();
+        InOrder inOrder = inOrder(userRepository, transactionManager, jwtTokenUtil);
+        inOrder.verify(jwtTokenUtil).generateToken(userId, 0);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).insert(argThat(user -> userId.equals(user.getId()) && "jwt-token".equals(user.getToken())));
+        inOrder.verify(transactionManager).commit(any());
+        verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void signUp_shouldRevokeMintedTokenWhenInsertFails() {
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("jwt-token");
+        when(userRepository.insert(any())).thenThrow(new DataIntegrityViolationException("connection reset"));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isInstanceOf(DataIntegrityViolationException.class);
+        verify(transactionManager).rollback(any());
+        verify(jwtTokenUtil).evictToken("jwt-token");
+        verify(tokenEpochs, never()).record(any(), anyInt());
+    }
+
+    @Test
+    void signUp_shouldLeaveHashingThreadBeforeTheInsert() {
+        CompletableFuture<String> hash = new CompletableFuture<>();
+        when(passwordHashingExecutor.encode("password123")).thenReturn(hash);
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+
+        CompletableFuture<UserResponse> signUp = userService.signUp(sampleRequest);
+        verify(signUpCompletionExecutor, never()).execute(any());
+        hash.complete("encodedPassword");
+        signUp.join();
+
+        // Firma e insert se encolan en SignUpCompletionExecutor, no siguen en el hilo que completó el hash
+        InOrder inOrder = inOrder(signUpCompletionExecutor, jwtTokenUtil, userRepository);
+        inOrder.verify(signUpCompletionExecutor).execute(any());
+        inOrder.verify(jwtTokenUtil).generateToken(any(), eq(0));
+        inOrder.verify(userRepository).insert(argThat(user -> "jwt-token".equals(user.getToken())));
+    }
+
+    @Test
+    void signUp_inParallel_shouldMintTokenBeforeHashCompletesAndStoreItWithTheInsert() {
+        userService.setSignUpPipeline("parallel");
+        CompletableFuture<String> hash = new CompletableFuture<>();
+        when(passwordHashingExecutor.encode("password123")).thenReturn(hash);
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("jwt-token");
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+
+        CompletableFuture<UserResponse> signUp = userService.signUp(sampleRequest);
+
+        // El token ya está firmado; falta el hash
+        verify(jwtTokenUtil).generateToken(any(), eq(0));
+        verify(userRepository, never()).insert(any());
+        hash.complete("encodedPassword");
+        UserResponse response = signUp.join();
+
+        // La firma y el insert
+        verify(signUpCompletionExecutor, times(2)).execute(any());
+        verify(jwtTokenUtil, never()).evictToken(any());
+        ArgumentCaptor<UUID> mintedFor = ArgumentCaptor.forClass(UUID.class);
+        verify(jwtTokenUtil).generateToken(mintedFor.capture(), eq(0));
+        assertThat(response.getId()).isEqualTo(mintedFor.getValue());
+        assertThat(response.getToken()).isEqualTo("jwt-token");
+        verify(userRepository).insert(argThat(user -> "jwt-token".equals(user.getToken())
+                && "encodedPassword".equals(user.getPassword())));
+        verify(tokenEpochs).record(response.getId(), 0);
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.TOTAL)).isEqualTo(1);
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.WRITE)).isEqualTo(1);
+    }
+
+    @Test
+    void signUp_inParallel_shouldRejectRepeatedEmailWithoutInsert() {
+        userService.setSignUpPipeline("parallel");
+        CompletableFuture<String> hash = new CompletableFuture<>();
+        when(passwordHashingExecutor.encode("password123")).thenReturn(hash);
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("jwt-token");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest, true).get());
+
+        assertThat(failure.getCause()).isInstanceOf(UserAlreadyExistsException.class);
+        assertThat(hash).isCancelled();
+        // El token se firmó a la par del chequeo: se revoca
+        verify(jwtTokenUtil).evictToken("jwt-token");
+        verify(userRepository, never()).insert(any());
+    }
+
+    @Test
+    void signUp_inParallel_shouldStartHashMintAndProbeTogether() {
+        List<Runnable> tasks = new ArrayList<>();
+        UserService service = new UserService(userRepository, passwordHashingExecutor, new SignUpCompletionExecutor(tasks::add),
+                transactionTemplate, jwtTokenUtil, tokenBlacklist, tokenEpochs, revocationFeed, refreshTokenService,
+                signUpTimings, randomSource);
+        service.setSignUpPipeline("parallel");
+        CompletableFuture<String> hash = new CompletableFuture<>();
+        when(passwordHashingExecutor.encode("password123")).thenReturn(hash);
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("jwt-token");
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+
+        CompletableFuture<UserResponse> signUp = service.signUp(sampleRequest, true);
+
+        // Con el hash encolado, el chequeo y la firma ya son dos tareas aparte: ninguna espera a la otra
+        assertThat(tasks).hasSize(2);
+        verifyNoInteractions(jwtTokenUtil);
+        verify(userRepository, never()).existsByEmail(any());
+        new ArrayList<>(tasks).forEach(Runnable::run);
+        verify(userRepository).existsByEmail("test@example.com");
+        verify(jwtTokenUtil).generateToken(any(), eq(0));
+
+        // El insert espera a las tres
+        assertThat(tasks).hasSize(2);
+        hash.complete("encodedPassword");
+        assertThat(tasks).hasSize(3);
+        verify(userRepository, never()).insert(any());
+        tasks.get(2).run();
+
+        assertThat(signUp.join().getToken()).isEqualTo("jwt-token");
+        verify(userRepository).insert(argThat(user -> "jwt-token".equals(user.getToken())));
+    }
+
+    @Test
+    void signUp_inParallel_shouldRevokeMintedTokenWhenInsertFails() {
+        userService.setSignUpPipeline("parallel");
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("opaque-token");
+        when(userRepository.insert(any())).thenThrow(emailViolation());
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isInstanceOf(UserAlreadyExistsException.class);
+        verify(jwtTokenUtil).evictToken("opaque-token");
+    }
+
+    @Test
+    void signUp_inParallel_shouldRevokeMintedTokenWhenHashFails() {
+        userService.setSignUpPipeline("parallel");
+        when(passwordHashingExecutor.encode("password123"))
+                .thenReturn(CompletableFuture.failedFuture(new HashingOverloadedException()));
+        when(jwtTokenUtil.generateToken(any(), eq(0))).thenReturn("opaque-token");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isInstanceOf(HashingOverloadedException.class);
+        verify(jwtTokenUtil).evictToken("opaque-token");
+        verify(userRepository, never()).insert(any());
+    }
+
+    @Test
+    void signUp_shouldRecordStageTimings() {
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+
+        userService.signUp(sampleRequest).join();
+
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.PROBE)).isZero(); // sin chequeo previo del email
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.HASH)).isEqualTo(1);
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.MINT)).isEqualTo(1);
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.WRITE)).isEqualTo(1); // el insert ya lleva el token
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.TOTAL)).isEqualTo(1);
+    }
+
     @Test
     void signUp_shouldThrowWhenEmailAlreadyExists() {
-        when(userRepository.findByEmail("test@example.com"))
-                .thenReturn(Optional.of(mock(User.class)));
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenThrow(emailViolation());
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isInstanceOf(UserAlreadyExistsException.class);
+        verify(transactionManager).rollback(any());
+        verify(jwtTokenUtil).evictToken("jwt-token");
+    }
+
+    @Test
+    void signUp_shouldInsertWithoutQueryingEmailFirst() {
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+
+        userService.signUp(sampleRequest).join();
+
+        verify(userRepository, never()).existsByEmail(any());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void signUp_shouldPropagateOtherIntegrityViolations() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("NULL not allowed for column \"PASSWORD\"", "23502"), null));
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenThrow(violation);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isSameAs(violation);
+    }
+
+    @Test
+    void signUp_withEmailPreCheck_shouldRejectRepeatedEmailBeforeHashing() {
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(true);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest, true).get());
+
+        assertThat(failure.getCause()).isInstanceOf(UserAlreadyExistsException.class);
+        verifyNoInteractions(passwordHashingExecutor);
+        assertThat(signUpTimings.getCount(SignUpTimings.Stage.PROBE)).isEqualTo(1);
+    }
+
+    @Test
+    void signUp_withEmailPreCheckEnabled_shouldCheckBeforeInsert() {
+        userService.setEmailPreCheck(true);
+        when(userRepository.existsByEmail("test@example.com")).thenReturn(false);
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("jwt-token");
+
+        userService.signUp(sampleRequest).join();
+
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).existsByEmail("test@example.com");
+        inOrder.verify(userRepository).insert(any());
+    }
+
+    @Test
+    void signUp_shouldFailFastWhenHashingIsOverloaded() {
+        when(passwordHashingExecutor.encode("password123"))
+                .thenReturn(CompletableFuture.failedFuture(new HashingOverloadedException()));
 
-        assertThrows(UserAlreadyExistsException.class, () -> userService.signUp(sampleRequest));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(failure.getCause()).isInstanceOf(HashingOverloadedException.class);
+        verify(userRepository, never()).insert(any());
     }
 
     @Test
@@ -79,10 +340,9 @@ class UserServiceTest {
         UUID userId = UUID.randomUUID();
         User user = User.builder().id(userId).email("test@example.com").name("Test User").created(LocalDateTime.now()).lastLogin(LocalDateTime.now()).isActive(true).phones(List.of()).build();
 
-        when(jwtTokenUtil.validateToken(token)).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken(token)).thenReturn(userId);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(jwtTokenUtil.generateToken(userId)).thenReturn("new-token");
+        when(jwtTokenUtil.verifyToken(token)).thenReturn(new VerifiedToken(token, userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
         when(userRepository.save(any())).thenReturn(user);
 
         UserResponse response = userService.login(token);
@@ -92,7 +352,7 @@ class UserServiceTest {
 
     @Test
     void login_shouldThrowIfTokenIsNull() {
-        assertThrows(InvalidTokenException.class, () -> userService.login(null));
+        assertThrows(InvalidTokenException.class, () -> userService.login((String) null));
     }
 
     @Test
@@ -102,7 +362,7 @@ class UserServiceTest {
 
     @Test
     void login_shouldThrowIfTokenInvalid() {
-        when(jwtTokenUtil.validateToken("bad-token")).thenReturn(false);
+        when(jwtTokenUtil.verifyToken("bad-token")).thenReturn(null);
 
         assertThrows(InvalidTokenException.class, () -> userService.login("bad-token"));
     }
@@ -110,9 +370,8 @@ class UserServiceTest {
     @Test
     void login_shouldThrowIfUserNotFound() {
         UUID userId = UUID.randomUUID();
-        when(jwtTokenUtil.validateToken("token")).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken("token")).thenReturn(userId);
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(jwtTokenUtil.verifyToken("token")).thenReturn(new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.empty());
 
         assertThrows(UserNotFoundException.class, () -> userService.login("token"));
     }
@@ -120,40 +379,89 @@ class UserServiceTest {
     @Test
     void login_shouldBlacklistOldToken() {
         UUID userId = UUID.randomUUID();
-        User user = User.builder().id(userId).email("test@example.com").phones(List.of()).build();
+        User user = User.builder().id(userId).email("test@example.com").isActive(true).phones(List.of()).build();
 
-        when(jwtTokenUtil.validateToken("token")).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken("token")).thenReturn(userId);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(jwtTokenUtil.generateToken(userId)).thenReturn("new-token");
+        when(jwtTokenUtil.verifyToken("token")).thenReturn(new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
         when(userRepository.save(any())).thenReturn(user);
 
         userService.login("token");
 
-        verify(tokenBlacklist).blacklistToken("token");
+        verify(tokenBlacklist).blacklistToken(tokenId, Long.MAX_VALUE);
+        verify(revocationFeed).tokenRevoked(tokenId, Long.MAX_VALUE);
+    }
+
+    @Test
+    void login_shouldRevokeOldTokenOnlyAfterCommit() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).email("test@example.com").isActive(true).phones(List.of()).build();
+        when(jwtTokenUtil.verifyToken("token")).thenReturn(new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
+        when(userRepository.save(any())).thenReturn(user);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.login("token");
+
+            // Hasta el commit el token presentado sigue valiendo
+            verifyNoInteractions(tokenBlacklist, revocationFeed);
+            verify(jwtTokenUtil, never()).evictToken(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(tokenBlacklist).blacklistToken(tokenId, Long.MAX_VALUE);
+        verify(revocationFeed).tokenRevoked(tokenId, Long.MAX_VALUE);
+        verify(jwtTokenUtil).evictToken("token");
+    }
+
+    @Test
+    void login_shouldNotRevokeOldTokenWhenTransactionRollsBack() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).email("test@example.com").isActive(true).phones(List.of()).build();
+        when(jwtTokenUtil.verifyToken("token")).thenReturn(new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
+        when(userRepository.save(any())).thenReturn(user);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.login("token");
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verifyNoInteractions(tokenBlacklist, revocationFeed);
+        verify(jwtTokenUtil, never()).evictToken(any());
     }
 
     @Test
     void signUp_shouldEncodePassword() {
-        when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("password123")).thenReturn("encoded");
-        when(userRepository.saveAndFlush(any())).thenAnswer(i -> i.getArgument(0));
-        when(jwtTokenUtil.generateToken(any())).thenReturn("token");
+        when(passwordHashingExecutor.encode("password123")).thenReturn(CompletableFuture.completedFuture("encoded"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("token");
 
-        userService.signUp(sampleRequest);
+        UserResponse response = userService.signUp(sampleRequest).join();
 
-        verify(passwordEncoder).encode("password123");
+        verify(passwordHashingExecutor).encode("password123");
+        assertThat(response.getPassword()).isEqualTo("encoded");
     }
 
     @Test
     void login_shouldUpdateLastLogin() {
         UUID userId = UUID.randomUUID();
-        User user = User.builder().id(userId).phones(List.of()).build();
+        User user = User.builder().id(userId).isActive(true).phones(List.of()).build();
 
-        when(jwtTokenUtil.validateToken("token")).thenReturn(true);
-        when(jwtTokenUtil.getUserIdFromToken("token")).thenReturn(userId);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(jwtTokenUtil.generateToken(userId)).thenReturn("new-token");
+        when(jwtTokenUtil.verifyToken("token")).thenReturn(new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE));
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
         when(userRepository.save(any())).thenReturn(user);
 
         UserResponse response = userService.login("token");
@@ -162,28 +470,209 @@ class UserServiceTest {
     }
 
     @Test
-    void login_shouldThrowOnExpiredJwtException() {
-        when(jwtTokenUtil.validateToken("expired")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+    void signUp_shouldGenerateToken() {
+        when(passwordHashingExecutor.encode(any())).thenReturn(CompletableFuture.completedFuture("enc"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("generated");
+
+        UserResponse response = userService.signUp(sampleRequest).join();
 
-        assertThrows(InvalidTokenException.class, () -> userService.login("expired"));
+        assertThat(response.getToken()).isEqualTo("generated");
     }
 
     @Test
-    void login_shouldThrowOnGenericJwtException() {
-        when(jwtTokenUtil.validateToken("bad")).thenThrow(new JwtException("bad token"));
+    void login_shouldNotVerifyTokenAgainWhenClaimsAreProvided() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).isActive(true).phones(List.of()).build();
+        VerifiedToken verifiedToken = new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE);
+
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 0)).thenReturn("new-token");
+        when(userRepository.save(any())).thenReturn(user);
+
+        UserResponse response = userService.login(verifiedToken);
 
-        assertThrows(InvalidTokenException.class, () -> userService.login("bad"));
+        assertThat(response.getToken()).isEqualTo("new-token");
+        verify(jwtTokenUtil, never()).verifyToken(any());
+        verify(tokenBlacklist).blacklistToken(tokenId, Long.MAX_VALUE);
     }
 
     @Test
-    void signUp_shouldGenerateToken() {
-        when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
-        when(passwordEncoder.encode(any())).thenReturn("enc");
-        when(userRepository.saveAndFlush(any())).thenAnswer(i -> i.getArgument(0));
-        when(jwtTokenUtil.generateToken(any())).thenReturn("generated");
+    void revokeAllTokens_shouldBumpTokenEpoch() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).token("old-token").isActive(true).tokenEpoch(4).phones(List.of()).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
-        UserResponse response = userService.signUp(sampleRequest);
+        userService.revokeAllTokens(userId);
 
-        assertThat(response.getToken()).isEqualTo("generated");
+        assertThat(user.getTokenEpoch()).isEqualTo(5);
+        assertThat(user.getToken()).isNull();
+        assertThat(user.isActive()).isTrue();
+        verify(userRepository).save(user);
+        verify(tokenEpochs).record(userId, 5);
+        verify(revocationFeed).epochBumped(userId, 5);
+        verify(refreshTokenService).revokeAll(userId);
+        verifyNoInteractions(tokenBlacklist);
+    }
+
+    @Test
+    void revokeAllTokens_shouldThrowIfUserNotFound() {
+        UUID userId = UUID.randomUUID();
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userService.revokeAllTokens(userId));
+        verifyNoInteractions(tokenEpochs);
+    }
+
+    @Test
+    void deactivate_shouldDisableUserAndRevokeTokens() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).isActive(true).phones(List.of()).build();
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        userService.deactivate(userId);
+
+        assertThat(user.isActive()).isFalse();
+        assertThat(user.getTokenEpoch()).isEqualTo(1);
+        verify(tokenEpochs).record(userId, 1);
+    }
+
+    @Test
+    void login_shouldRejectInactiveUser() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).isActive(false).phones(List.of()).build();
+        VerifiedToken verifiedToken = new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE);
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidTokenException.class, () -> userService.login(verifiedToken));
+        verify(jwtTokenUtil, never()).generateToken(any(), anyInt());
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(tokenBlacklist, revocationFeed);
+    }
+
+    @Test
+    void login_withRefreshTokens_shouldRejectTokenLogin() {
+        UUID userId = UUID.randomUUID();
+        VerifiedToken verifiedToken = new VerifiedToken("token", userId, tokenId, Long.MAX_VALUE);
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+
+        InvalidTokenException thrown = assertThrows(InvalidTokenException.class, () -> userService.login(verifiedToken));
+
+        assertThat(thrown.getMessage()).contains("/refresh");
+        verify(refreshTokenService, never()).issue(any());
+        verify(jwtTokenUtil, never()).generateToken(any(), anyInt());
+        verifyNoInteractions(userRepository, tokenBlacklist, revocationFeed);
+    }
+
+    @Test
+    void signUp_withRefreshTokens_shouldIssueInTheInsertTransaction() {
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+        when(refreshTokenService.issue(any())).thenReturn("refresh-token");
+        when(passwordHashingExecutor.encode(any())).thenReturn(CompletableFuture.completedFuture("enc"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("generated");
+
+        UserResponse response = userService.signUp(sampleRequest).join();
+
+        assertThat(response.getRefreshToken()).isEqualTo("refresh-token");
+        InOrder inOrder = inOrder(transactionManager, userRepository, refreshTokenService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).insert(argThat(user -> "generated".equals(user.getToken())));
+        inOrder.verify(refreshTokenService).issue(response.getId());
+        inOrder.verify(transactionManager).commit(any());
+        verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void signUp_withRefreshTokens_shouldRollBackInsertWhenIssueFails() {
+        IllegalStateException failure = new IllegalStateException("refresh_tokens unavailable");
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+        when(refreshTokenService.issue(any())).thenThrow(failure);
+        when(passwordHashingExecutor.encode(any())).thenReturn(CompletableFuture.completedFuture("enc"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("generated");
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> userService.signUp(sampleRequest).get());
+
+        assertThat(thrown.getCause()).isSameAs(failure);
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(jwtTokenUtil).evictToken("generated");
+    }
+
+    @Test
+    void signUp_inParallel_withRefreshTokens_shouldIssueInTheInsertTransaction() {
+        userService.setSignUpPipeline("parallel");
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+        when(refreshTokenService.issue(any())).thenReturn("refresh-token");
+        when(passwordHashingExecutor.encode(any())).thenReturn(CompletableFuture.completedFuture("enc"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("generated");
+
+        UserResponse response = userService.signUp(sampleRequest).join();
+
+        assertThat(response.getRefreshToken()).isEqualTo("refresh-token");
+        InOrder inOrder = inOrder(transactionManager, userRepository, refreshTokenService);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).insert(any());
+        inOrder.verify(refreshTokenService).issue(response.getId());
+        inOrder.verify(transactionManager).commit(any());
+        verify(transactionManager).getTransaction(any());
+    }
+
+    @Test
+    void signUp_withoutRefreshTokens_shouldNotIssueOne() {
+        when(passwordHashingExecutor.encode(any())).thenReturn(CompletableFuture.completedFuture("enc"));
+        when(userRepository.insert(any())).thenAnswer(i -> i.getArgument(0));
+        when(jwtTokenUtil.generateToken(any(), anyInt())).thenReturn("generated");
+
+        UserResponse response = userService.signUp(sampleRequest).join();
+
+        assertThat(response.getRefreshToken()).isNull();
+        verify(refreshTokenService, never()).issue(any());
+    }
+
+    @Test
+    void refresh_shouldRotateTokens() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).isActive(true).tokenEpoch(2).phones(List.of()).build();
+        when(refreshTokenService.consume("old-refresh")).thenReturn(userId);
+        when(refreshTokenService.isEnabled()).thenReturn(true);
+        when(refreshTokenService.issue(userId)).thenReturn("new-refresh");
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+        when(jwtTokenUtil.generateToken(userId, 2)).thenReturn("new-access");
+        when(userRepository.save(user)).thenReturn(user);
+
+        UserResponse response = userService.refresh("old-refresh");
+
+        assertThat(response.getToken()).isEqualTo("new-access");
+        assertThat(response.getRefreshToken()).isEqualTo("new-refresh");
+    }
+
+    @Test
+    void refresh_shouldRejectInactiveUser() {
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().id(userId).isActive(false).phones(List.of()).build();
+        when(refreshTokenService.consume("refresh")).thenReturn(userId);
+        when(userRepository.findWithPhonesById(userId)).thenReturn(Optional.of(user));
+
+        assertThrows(InvalidTokenException.class, () -> userService.refresh("refresh"));
+        verify(jwtTokenUtil, never()).generateToken(any(), anyInt());
+    }
+
+    // Como llega de H2 a través del repositorio: el nombre del índice encabeza el mensaje
+    private static DataIntegrityViolationException emailViolation() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement",
+                        new SQLException("Unique index or primary key violation", "23505"),
+                        "PUBLIC.UK_USERS_EMAIL_INDEX_4 ON PUBLIC.USERS(CANONICAL_EMAIL) VALUES 1"));
+    }
+
+    @Test
+    void refresh_shouldPropagateInvalidRefreshToken() {
+        when(refreshTokenService.consume("bad")).thenThrow(new InvalidTokenException("Invalid refresh token"));
+
+        assertThrows(InvalidTokenException.class, () -> userService.refresh("bad"));
+        verifyNoInteractions(userRepository);
     }
 }
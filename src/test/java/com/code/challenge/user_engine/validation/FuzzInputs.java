@@ -0,0 +1,56 @@
+package com.code.challenge.user_engine.validation;
+
+import java.util.Random;
+
+/**
+ * Entradas para comparar los validadores contra los regex originales: cadenas al azar de un alfabeto con los
+ * caracteres que importan en los bordes (letras, dígitos, {@code . - @}, espacios, saltos de línea y
+ * caracteres no ASCII que {@code \d} o {@code [A-Z]} podrían confundir) y mutaciones de entradas válidas.
+ */
+final class FuzzInputs {
+    private static final String ALPHABET = "abcxyzABCXYZ0189.-@_ \n\téİ٣ſK";
+
+    private final Random random;
+    private final String[] seeds;
+
+    FuzzInputs(long seed, String... seeds) {
+        this.random = new Random(seed);
+        this.seeds = seeds;
+    }
+
+    String next() {
+        StringBuilder value;
+        if (random.nextBoolean()) {
+            value = new StringBuilder();
+            int length = random.nextInt(random.nextBoolean() ? 16 : 55);
+            for (int i = 0; i < length; i++) {
+                value.append(randomChar());
+            }
+        } else {
+            value = new StringBuilder(seeds[random.nextInt(seeds.length)]);
+            int mutations = random.nextInt(4);
+            for (int i = 0; i < mutations; i++) {
+                int position = random.nextInt(value.length() + 1);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        value.insert(position, randomChar());
+                        break;
+                    case 1:
+                        if (position < value.length()) {
+                            value.deleteCharAt(position);
+                        }
+                        break;
+                    default:
+                        if (position < value.length()) {
+                            value.setCharAt(position, randomChar());
+                        }
+                }
+            }
+        }
+        return value.toString();
+    }
+
+    private char randomChar() {
+        return ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.code.challenge.user_engine.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignUpEmailValidatorTest {
+
+    // El @Pattern que reemplaza; Hibernate Validator lo evaluaba con matches()
+    static final Pattern ORIGINAL = Pattern.compile("^[A-Za-z]{7}@[A-Za-z0-9.-]{3,30}\\.[A-Za-z]{2,10}$");
+
+    private final SignUpEmailValidator validator = new SignUpEmailValidator();
+
+    @Test
+    void shouldAcceptValidEmails() {
+        assertThat(SignUpEmailValidator.isValid("abcdefg@test.com")).isTrue();
+        assertThat(SignUpEmailValidator.isValid("ABCdefg@sub.domain-1.io")).isTrue();
+        assertThat(SignUpEmailValidator.isValid("abcdefg@a.b.cd")).isTrue(); // el dominio puede tener puntos
+        assertThat(validator.isValid(null, null)).isTrue();
+    }
+
+    @Test
+    void shouldRejectInvalidEmails() {
+        assertThat(SignUpEmailValidator.isValid("abcdef@test.com")).isFalse();     // 6 letras
+        assertThat(SignUpEmailValidator.isValid("abcdefg1@test.com")).isFalse();   // dígito en el usuario
+        assertThat(SignUpEmailValidator.isValid("abcdefg@te.com")).isFalse();      // dominio de 2
+        assertThat(SignUpEmailValidator.isValid("abcdefg@test.c0m")).isFalse();    // dígito en el TLD
+        assertThat(SignUpEmailValidator.isValid("abcdefg@test.c")).isFalse();      // TLD de 1
+        assertThat(SignUpEmailValidator.isValid("abcdefg@testcom")).isFalse();     // sin punto
+        assertThat(SignUpEmailValidator.isValid("abcdefg@test.com\n")).isFalse();  // $ no deja pasar el salto final
+        assertThat(SignUpEmailValidator.isValid("abcdéfg@test.com")).isFalse();
+        assertThat(SignUpEmailValidator.isValid("")).isFalse();
+    }
+
+    @Test
+    void shouldAcceptExactlyWhatTheRegexAccepts() {
+        FuzzInputs inputs = new FuzzInputs(1, "abcdefg@dom.ain-x.com", "abcdefg@abc.de", "abcdefg@a-b.c-d.abcdefghij");
+        int accepted = 0;
+        for (int i = 0; i < 500_000; i++) {
+            String value = inputs.next();
+            boolean expected = ORIGINAL.matcher(value).matches();
+            assertThat(SignUpEmailValidator.isValid(value)).as("'%s'", value).isEqualTo(expected);
+            if (expected) {
+                accepted++;
+            }
+        }
+        // Las mutaciones tienen que producir suficientes entradas válidas para que la comparación valga algo
+        assertThat(accepted).isGreaterThan(10_000);
+    }
+}
@@ -0,0 +1,52 @@
+package com.code.challenge.user_engine.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignUpPasswordValidatorTest {
+
+    // El @Pattern que reemplaza; Hibernate Validator lo evaluaba con matches()
+    static final Pattern ORIGINAL =
+            Pattern.compile("^(?=[^A-Z]*[A-Z][^A-Z]*$)(?=(?:[^0-9]*[0-9]){2}[^0-9]*$)[a-zA-Z\\d]{8,12}$");
+
+    private final SignUpPasswordValidator validator = new SignUpPasswordValidator();
+
+    @Test
+    void shouldAcceptValidPasswords() {
+        assertThat(SignUpPasswordValidator.isValid("passW12rd")).isTrue();
+        assertThat(SignUpPasswordValidator.isValid("12Abcdef")).isTrue();
+        assertThat(SignUpPasswordValidator.isValid("abcdefghiJ12")).isTrue();
+        assertThat(validator.isValid(null, null)).isTrue();
+    }
+
+    @Test
+    void shouldRejectInvalidPasswords() {
+        assertThat(SignUpPasswordValidator.isValid("passw12rd")).isFalse();      // sin mayúscula
+        assertThat(SignUpPasswordValidator.isValid("PassW12rd")).isFalse();      // dos mayúsculas
+        assertThat(SignUpPasswordValidator.isValid("passW1234")).isFalse();      // cuatro dígitos
+        assertThat(SignUpPasswordValidator.isValid("passW1rd")).isFalse();       // un dígito
+        assertThat(SignUpPasswordValidator.isValid("pasW12r")).isFalse();        // 7 caracteres
+        assertThat(SignUpPasswordValidator.isValid("passW12rd1234")).isFalse();  // 13 caracteres
+        assertThat(SignUpPasswordValidator.isValid("passW12r_d")).isFalse();
+        assertThat(SignUpPasswordValidator.isValid("passW1٣rd")).isFalse();      // \d solo acepta 0-9
+        assertThat(SignUpPasswordValidator.isValid("passW12rd\n")).isFalse();
+    }
+
+    @Test
+    void shouldAcceptExactlyWhatTheRegexAccepts() {
+        FuzzInputs inputs = new FuzzInputs(2, "passW12rd", "12Abcdef", "abcdefghiJ12");
+        int accepted = 0;
+        for (int i = 0; i < 500_000; i++) {
+            String value = inputs.next();
+            boolean expected = ORIGINAL.matcher(value).matches();
+            assertThat(SignUpPasswordValidator.isValid(value)).as("'%s'", value).isEqualTo(expected);
+            if (expected) {
+                accepted++;
+            }
+        }
+        assertThat(accepted).isGreaterThan(10_000);
+    }
+}